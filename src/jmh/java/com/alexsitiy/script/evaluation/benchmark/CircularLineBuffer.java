@@ -1,4 +1,4 @@
-package com.alexsitiy.script.evaluation.model;
+package com.alexsitiy.script.evaluation.benchmark;
 
 
 import java.io.ByteArrayOutputStream;
@@ -11,6 +11,9 @@ import java.util.Arrays;
  * the max capacity of the lines. It also has initial capacity that will be increased
  * if needed until the max capacity is reached. If the buffer is full - it starts to
  * overwrite the oldest lines.
+ * <br/>
+ * It's the buffer the output of scripts was kept in before
+ * {@link com.alexsitiy.script.evaluation.model.OutputRingBuffer}, it's kept as is as the baseline of the benchmarks.
  */
 public class CircularLineBuffer extends OutputStream {
     private String[] buffer;
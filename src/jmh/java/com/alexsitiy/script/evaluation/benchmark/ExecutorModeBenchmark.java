@@ -0,0 +1,136 @@
+package com.alexsitiy.script.evaluation.benchmark;
+
+import com.alexsitiy.script.evaluation.executor.SemaphoreTaskExecutor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class compares the PLATFORM executor, the thread pool Spring Boot creates, with the VIRTUAL one,
+ * {@link SemaphoreTaskExecutor} that starts every task on a virtual thread. Both run the same number of tasks at once.
+ * <br/>
+ * Every invocation submits a batch that is bigger than the concurrency, so most of the tasks wait in the queue.
+ * The throughput is the number of batches per second, the sampled time is the latency of the whole batch.
+ * The time the tasks have waited in the queue is reported by the queueWaitMicros and tasks counters,
+ * their ratio is the mean queue latency.
+ * <br/>
+ * The "blocking" workload sleeps as a script waiting on I/O does, the "cpu" one burns CPU as a busy script does.
+ * The VIRTUAL mode requires JDK 21 at runtime, the virtual thread factory is looked up reflectively,
+ * since the benchmarks are compiled for Java 17.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ExecutorModeBenchmark {
+
+    private static final int CONCURRENCY = 8;
+    private static final int BATCH_SIZE = 256;
+    private static final long CPU_TOKENS = 10_000;
+    private static final long SLEEP_MILLIS = 1;
+
+    @Param({"platform", "virtual"})
+    private String mode;
+
+    @Param({"blocking", "cpu"})
+    private String workload;
+
+    private TaskExecutor executor;
+    private AutoCloseable closeable;
+
+    /**
+     * The time the tasks have waited in the queue, it's summed up over the iteration.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class QueueWait {
+        public long queueWaitMicros;
+        public long tasks;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            queueWaitMicros = 0;
+            tasks = 0;
+        }
+    }
+
+    @Setup
+    public void setUp() throws ReflectiveOperationException {
+        if (mode.equals("platform")) {
+            ThreadPoolTaskExecutor pool = new ThreadPoolTaskExecutor();
+            pool.setCorePoolSize(CONCURRENCY);
+            pool.setMaxPoolSize(CONCURRENCY);
+            pool.setQueueCapacity(BATCH_SIZE);
+            pool.initialize();
+
+            this.executor = pool;
+            this.closeable = pool::shutdown;
+        } else {
+            ExecutorService launcher = (ExecutorService) Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor")
+                    .invoke(null);
+            SemaphoreTaskExecutor semaphoreExecutor = new SemaphoreTaskExecutor(launcher, CONCURRENCY, BATCH_SIZE,
+                    new SimpleMeterRegistry());
+
+            this.executor = semaphoreExecutor;
+            this.closeable = semaphoreExecutor;
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        closeable.close();
+    }
+
+    @Benchmark
+    public void batch(QueueWait queueWait) throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(BATCH_SIZE);
+        AtomicLong waited = new AtomicLong();
+        boolean blocking = workload.equals("blocking");
+
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            long submittedAt = System.nanoTime();
+
+            executor.execute(() -> {
+                waited.addAndGet(System.nanoTime() - submittedAt);
+                try {
+                    if (blocking)
+                        Thread.sleep(SLEEP_MILLIS);
+                    else
+                        Blackhole.consumeCPU(CPU_TOKENS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+
+        done.await();
+        queueWait.queueWaitMicros += TimeUnit.NANOSECONDS.toMicros(waited.get());
+        queueWait.tasks += BATCH_SIZE;
+    }
+}
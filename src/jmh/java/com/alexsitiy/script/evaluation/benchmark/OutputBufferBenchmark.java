@@ -0,0 +1,91 @@
+package com.alexsitiy.script.evaluation.benchmark;
+
+import com.alexsitiy.script.evaluation.model.OutputRingBuffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class measures writing the output of a script and reading it as a whole via toString().
+ * {@link OutputRingBuffer} is compared with {@link CircularLineBuffer} it has replaced.
+ * <br/>
+ * The "writeWhileReading" group has a single writer, as a script has, and several readers,
+ * as the clients polling the result have.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Group)
+public class OutputBufferBenchmark {
+
+    private static final int MAX_BYTES = 64 * 1024;
+    private static final int MAX_LINES = 100;
+
+    @Param({"ring", "line"})
+    private String buffer;
+
+    @Param({"32", "512"})
+    private int lineLength;
+
+    private OutputStream out;
+    private byte[] line;
+
+    @Setup(Level.Iteration)
+    public void setUp() throws IOException {
+        this.out = buffer.equals("ring")
+                ? new OutputRingBuffer(MAX_BYTES, MAX_LINES)
+                : new CircularLineBuffer(10, MAX_LINES);
+        this.line = ("x".repeat(lineLength - 1) + "\n").getBytes(StandardCharsets.UTF_8);
+
+        // the buffer is full, so every write overwrites the oldest line
+        for (int i = 0; i < MAX_LINES; i++) {
+            out.write(line);
+        }
+    }
+
+    @Benchmark
+    @Group("write")
+    @GroupThreads(1)
+    public void write() throws IOException {
+        out.write(line);
+    }
+
+    @Benchmark
+    @Group("read")
+    @GroupThreads(1)
+    public String read() {
+        return out.toString();
+    }
+
+    @Benchmark
+    @Group("writeWhileReading")
+    @GroupThreads(1)
+    public void writer() throws IOException {
+        out.write(line);
+    }
+
+    @Benchmark
+    @Group("writeWhileReading")
+    @GroupThreads(3)
+    public String reader() {
+        return out.toString();
+    }
+}
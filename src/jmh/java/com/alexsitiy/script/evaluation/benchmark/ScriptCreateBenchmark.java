@@ -0,0 +1,111 @@
+package com.alexsitiy.script.evaluation.benchmark;
+
+import com.alexsitiy.script.evaluation.engine.EngineMode;
+import com.alexsitiy.script.evaluation.engine.ExecutionBudget;
+import com.alexsitiy.script.evaluation.engine.PerScriptEngineContextFactory;
+import com.alexsitiy.script.evaluation.engine.ScriptContextFactory;
+import com.alexsitiy.script.evaluation.engine.SharedEngineContextFactory;
+import com.alexsitiy.script.evaluation.engine.SourceCache;
+import com.alexsitiy.script.evaluation.model.OutputQuota;
+import com.alexsitiy.script.evaluation.model.Script;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class measures {@link Script#create} that creates the context of the script and validates its code.
+ * <br/>
+ * With the "miss" cache every body is unique, so it's parsed every time, with the "hit" cache
+ * the parsed source is taken from {@link SourceCache}. The created script is parked right away,
+ * so its context is closed within the measurement the same way every script closes it eventually.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ScriptCreateBenchmark {
+
+    private static final ExecutionBudget BUDGET = new ExecutionBudget(1_000_000, Duration.ofSeconds(10));
+    private static final OutputQuota QUOTA = new OutputQuota(64 * 1024, 100);
+
+    @Param({"small", "large"})
+    private String body;
+
+    @Param({"SHARED", "PER_SCRIPT"})
+    private EngineMode engine;
+
+    @Param({"hit", "miss"})
+    private String cache;
+
+    private ScriptContextFactory contextFactory;
+    private SourceCache sourceCache;
+    private String code;
+    private long id;
+
+    @Setup
+    public void setUp() {
+        this.contextFactory = engine == EngineMode.SHARED
+                ? new SharedEngineContextFactory(event -> {
+                })
+                : new PerScriptEngineContextFactory(event -> {
+                });
+        this.sourceCache = new SourceCache(1000, new SimpleMeterRegistry());
+        this.code = body.equals("small") ? "console.log('Hello, World!');" : largeBody();
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        if (contextFactory instanceof AutoCloseable closeable)
+            closeable.close();
+    }
+
+    @Benchmark
+    public Script create() {
+        long id = ++this.id;
+        String code = cache.equals("hit") ? this.code : this.code + "\n// " + id;
+
+        Script script = Script.create(id, code, contextFactory, sourceCache, BUDGET, QUOTA);
+        script.park();
+
+        return script;
+    }
+
+    /**
+     * @return the code of about 30KB with a hundred of functions.
+     */
+    private static String largeBody() {
+        StringBuilder builder = new StringBuilder();
+
+        for (int i = 0; i < 100; i++) {
+            builder.append("""
+                    function fibonacci%1$d(n) {
+                        let previous = 0, current = 1;
+                        for (let i = 0; i < n; i++) {
+                            const next = previous + current;
+                            previous = current;
+                            current = next;
+                        }
+                        return { index: n, value: current, label: 'fibonacci-%1$d-' + n };
+                    }
+                    console.log(JSON.stringify(fibonacci%1$d(%1$d)));
+                    """.formatted(i));
+        }
+
+        return builder.toString();
+    }
+}
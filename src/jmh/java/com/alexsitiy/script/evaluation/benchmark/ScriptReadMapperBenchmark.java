@@ -0,0 +1,77 @@
+package com.alexsitiy.script.evaluation.benchmark;
+
+import com.alexsitiy.script.evaluation.controller.ScriptRestController;
+import com.alexsitiy.script.evaluation.dto.ScriptReadDto;
+import com.alexsitiy.script.evaluation.engine.ExecutionBudget;
+import com.alexsitiy.script.evaluation.mapper.ScriptReadMapper;
+import com.alexsitiy.script.evaluation.model.Script;
+import com.alexsitiy.script.evaluation.model.Status;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.hateoas.server.core.ControllerEntityLinks;
+import org.springframework.hateoas.server.mvc.WebMvcLinkBuilderFactory;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class measures mapping {@link Script} to {@link ScriptReadDto} with a self link only
+ * and with all the links, as the list and a single script are returned by the API.
+ * <br/>
+ * The links are built against a mock request bound to the benchmark thread,
+ * so they're resolved the same way as in a request of the client.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ScriptReadMapperBenchmark {
+
+    private ScriptReadMapper mapper;
+    private Script script;
+
+    @Setup
+    public void setUp() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/scripts");
+        request.setServerName("localhost");
+        request.setServerPort(8080);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+        this.mapper = new ScriptReadMapper(new ControllerEntityLinks(List.of(ScriptRestController.class),
+                new WebMvcLinkBuilderFactory()));
+        this.script = Script.restore(1L, "console.log('Hello, World!');",
+                new ExecutionBudget(1_000_000, Duration.ofSeconds(10)), Status.COMPLETED,
+                Duration.ofMillis(15), Instant.now(), Instant.now(), List.of("Hello, World!"));
+    }
+
+    @TearDown
+    public void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Benchmark
+    public ScriptReadDto toModel() {
+        return mapper.toModel(script);
+    }
+
+    @Benchmark
+    public ScriptReadDto toModelWithAllLinks() {
+        return mapper.toModelWithAllLinks(script);
+    }
+}
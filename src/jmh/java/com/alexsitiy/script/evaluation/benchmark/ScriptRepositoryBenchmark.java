@@ -0,0 +1,97 @@
+package com.alexsitiy.script.evaluation.benchmark;
+
+import com.alexsitiy.script.evaluation.engine.ExecutionBudget;
+import com.alexsitiy.script.evaluation.model.Script;
+import com.alexsitiy.script.evaluation.model.Status;
+import com.alexsitiy.script.evaluation.repository.ScriptPage;
+import com.alexsitiy.script.evaluation.repository.ScriptRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class measures {@link ScriptRepository#findAll(Set, List)} and the first page of
+ * {@link ScriptRepository#findPage(Set, List, int, String)} with different filters and sorts.
+ * <br/>
+ * The repository is filled with finished scripts, 80% of them are COMPLETED, the rest are FAILED
+ * and INTERRUPTED in equal parts, so the filters show the effect of the status index.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ScriptRepositoryBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+
+    @Param({"1000", "10000", "100000"})
+    private int size;
+
+    /**
+     * The statuses separated by "+" or "all".
+     */
+    @Param({"all", "COMPLETED", "FAILED+INTERRUPTED"})
+    private String filter;
+
+    /**
+     * The sorts separated by "+" or "none".
+     */
+    @Param({"none", "id", "TIME", "scheduled+ID"})
+    private String sort;
+
+    private ScriptRepository repository;
+    private Set<Status> statuses;
+    private List<String> sorts;
+
+    @Setup
+    public void setUp() {
+        this.repository = new ScriptRepository(new SimpleMeterRegistry());
+        this.statuses = filter.equals("all")
+                ? Set.of()
+                : EnumSet.copyOf(Arrays.stream(filter.split("\\+")).map(Status::valueOf).toList());
+        this.sorts = sort.equals("none") ? List.of() : List.of(sort.split("\\+"));
+
+        Random random = new Random(42);
+        ExecutionBudget budget = new ExecutionBudget(1_000_000, Duration.ofSeconds(10));
+        Instant start = Instant.now();
+
+        for (long id = 1; id <= size; id++) {
+            int roll = random.nextInt(10);
+            Status status = roll < 8 ? Status.COMPLETED : roll == 8 ? Status.FAILED : Status.INTERRUPTED;
+            Instant scheduledTime = start.plusMillis(random.nextInt(size * 10));
+
+            repository.save(Script.restore(id, "console.log('%d')".formatted(id), budget, status,
+                    Duration.ofMillis(random.nextInt(10_000)), scheduledTime, scheduledTime, List.of(String.valueOf(id))));
+        }
+    }
+
+    @Benchmark
+    public List<Script> findAll() {
+        return repository.findAll(statuses, sorts);
+    }
+
+    @Benchmark
+    public ScriptPage<Script> findPage() {
+        return repository.findPage(statuses, sorts, PAGE_SIZE, null);
+    }
+}
@@ -0,0 +1,5 @@
+/**
+ * Includes JMH benchmarks of the hot paths of the model and the repository.
+ * They're compiled and run only with the benchmark build profile.
+ */
+package com.alexsitiy.script.evaluation.benchmark;
@@ -0,0 +1,55 @@
+package com.alexsitiy.script.evaluation.loadtest;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class samples the heap usage of the JVM periodically and keeps the peak.
+ * The app is run in the same JVM as the load generator, whose own allocations are small.
+ */
+final class HeapSampler implements AutoCloseable {
+
+    private static final long SAMPLE_INTERVAL_MILLIS = 100;
+
+    private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+    private final AtomicLong peak = new AtomicLong();
+    private final ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "loadtest-heap-sampler");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    HeapSampler() {
+        sampler.scheduleAtFixedRate(this::sample, 0, SAMPLE_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    void reset() {
+        peak.set(0);
+    }
+
+    long getPeak() {
+        sample();
+        return peak.get();
+    }
+
+    /**
+     * @return the heap usage in bytes right after an explicit GC.
+     */
+    long getUsedAfterGc() {
+        System.gc();
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+
+    private void sample() {
+        peak.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max);
+    }
+
+    @Override
+    public void close() {
+        sampler.shutdownNow();
+    }
+}
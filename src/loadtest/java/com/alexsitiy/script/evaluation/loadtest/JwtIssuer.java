@@ -0,0 +1,98 @@
+package com.alexsitiy.script.evaluation.loadtest;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+
+/**
+ * This class stands in for Keycloak. It signs the tokens with its own RSA key
+ * and serves the public key as a JWK set on the loopback interface, so the app validates the tokens
+ * the same way it validates the ones issued by Keycloak.
+ */
+public class JwtIssuer implements AutoCloseable {
+
+    private static final String JWKS_PATH = "/protocol/openid-connect/certs";
+    private static final Duration TOKEN_LIFETIME = Duration.ofDays(1);
+
+    private final RSAKey key;
+    private final HttpServer server;
+    private final String issuer;
+
+    public JwtIssuer() throws IOException, JOSEException {
+        this.key = new RSAKeyGenerator(2048)
+                .keyID("loadtest")
+                .generate();
+
+        byte[] jwks = new JWKSet(key.toPublicJWK()).toString().getBytes(StandardCharsets.UTF_8);
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        this.server.createContext(JWKS_PATH, exchange -> {
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, jwks.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(jwks);
+            }
+        });
+        this.server.start();
+
+        this.issuer = "http://%s:%d/realms/loadtest".formatted(server.getAddress().getHostString(),
+                server.getAddress().getPort());
+    }
+
+    /**
+     * @return the issuer the tokens are issued by, the app must be configured with it.
+     */
+    public String getIssuer() {
+        return issuer;
+    }
+
+    /**
+     * @return the URL of the JWK set, the app must be configured with it.
+     */
+    public String getJwkSetUri() {
+        return issuer.substring(0, issuer.indexOf("/realms")) + JWKS_PATH;
+    }
+
+    /**
+     * Issues a token with "api" scope for a given subject, the subject is the tenant of the scripts.
+     *
+     * @param subject the subject of the token.
+     * @return the serialized token.
+     * @throws JOSEException if the token couldn't be signed.
+     */
+    public String issue(String subject) throws JOSEException {
+        Instant now = Instant.now();
+        JWTClaimsSet claims = new JWTClaimsSet.Builder()
+                .issuer(issuer)
+                .subject(subject)
+                .claim("scope", "api")
+                .issueTime(Date.from(now))
+                .expirationTime(Date.from(now.plus(TOKEN_LIFETIME)))
+                .build();
+
+        SignedJWT jwt = new SignedJWT(new JWSHeader.Builder(JWSAlgorithm.RS256).keyID(key.getKeyID()).build(), claims);
+        jwt.sign(new RSASSASigner(key));
+
+        return jwt.serialize();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
@@ -0,0 +1,194 @@
+package com.alexsitiy.script.evaluation.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.hateoas.MediaTypes;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * This class applies the load of {@link Scenario} to the running app. Every user is a thread that sends
+ * the next request once the previous one is answered, the operation is chosen randomly by the weights of the mix.
+ * <br/>
+ * The ids of the recently submitted scripts are kept in a ring, the scripts to be polled, stopped and deleted
+ * are chosen among them. Until the first script is submitted, every user submits.
+ */
+final class LoadGenerator {
+
+    private static final int RECENT_IDS = 1024;
+    private static final long JOIN_TIMEOUT_SECONDS = 30;
+
+    private final Scenario scenario;
+    private final URI baseUri;
+    private final List<String> tokens;
+    private final ObjectMapper objectMapper;
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .build();
+
+    private final Operation[] wheel;
+    private final Map<Operation, OperationStats> stats = new EnumMap<>(Operation.class);
+    private final AtomicLongArray recentIds = new AtomicLongArray(RECENT_IDS);
+    private final AtomicLong submitted = new AtomicLong();
+    /**
+     * The number of the written slots of the ring, the slots are published in order until the ring is full.
+     */
+    private final AtomicLong published = new AtomicLong();
+    private volatile boolean running = true;
+
+    /**
+     * @param scenario     the scenario to be run.
+     * @param baseUri      the base URL of the app.
+     * @param tokens       the tokens of the tenants, the users are spread over them.
+     * @param objectMapper the mapper the submitted scripts are read with.
+     */
+    LoadGenerator(Scenario scenario, URI baseUri, List<String> tokens, ObjectMapper objectMapper) {
+        this.scenario = scenario;
+        this.baseUri = baseUri;
+        this.tokens = tokens;
+        this.objectMapper = objectMapper;
+
+        List<Operation> wheel = new ArrayList<>();
+        scenario.mix().forEach((operation, weight) -> {
+            for (int i = 0; i < weight; i++) {
+                wheel.add(operation);
+            }
+        });
+        if (wheel.isEmpty())
+            throw new IllegalArgumentException("The mix of scenario %s is empty".formatted(scenario.name()));
+
+        this.wheel = wheel.toArray(Operation[]::new);
+        for (Operation operation : Operation.values()) {
+            stats.put(operation, new OperationStats());
+        }
+    }
+
+    ScenarioReport run() throws InterruptedException {
+        AtomicInteger index = new AtomicInteger();
+        ExecutorService users = Executors.newFixedThreadPool(scenario.users(), runnable -> {
+            Thread thread = new Thread(runnable, "loadtest-user-" + index.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        try (HeapSampler heapSampler = new HeapSampler()) {
+            for (int i = 0; i < scenario.users(); i++) {
+                String token = tokens.get(i % tokens.size());
+                users.execute(() -> runUser(token));
+            }
+
+            Thread.sleep(scenario.warmup().toMillis());
+            stats.values().forEach(OperationStats::reset);
+            heapSampler.reset();
+
+            Thread.sleep(scenario.duration().toMillis());
+            List<OperationReport> operations = new ArrayList<>();
+            stats.forEach((operation, operationStats) ->
+                    operations.add(operationStats.report(operation, scenario.duration())));
+            long peakHeapUsed = heapSampler.getPeak();
+
+            this.running = false;
+            users.shutdown();
+            users.awaitTermination(JOIN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+
+            return new ScenarioReport(scenario.name(),
+                    operations.stream().mapToDouble(OperationReport::throughput).sum(),
+                    operations,
+                    peakHeapUsed,
+                    heapSampler.getUsedAfterGc());
+        } finally {
+            users.shutdownNow();
+        }
+    }
+
+    private void runUser(String token) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+
+        while (running) {
+            Operation operation = published.get() == 0 ? Operation.SUBMIT : wheel[random.nextInt(wheel.length)];
+            HttpRequest request = requestOf(operation, token, random);
+
+            long start = System.nanoTime();
+            OperationStats.Outcome outcome;
+            try {
+                HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+                outcome = OperationStats.Outcome.of(response.statusCode());
+
+                if (operation == Operation.SUBMIT && outcome == OperationStats.Outcome.OK)
+                    remember(objectMapper.readTree(response.body()).path("id").asLong());
+            } catch (IOException e) {
+                outcome = OperationStats.Outcome.ERROR;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            stats.get(operation).record(System.nanoTime() - start, outcome);
+        }
+    }
+
+    private HttpRequest requestOf(Operation operation, String token, ThreadLocalRandom random) {
+        HttpRequest.Builder builder = switch (operation) {
+            case SUBMIT -> HttpRequest.newBuilder(uriOf("/scripts"))
+                    .header(HttpHeaders.CONTENT_TYPE, MediaType.TEXT_PLAIN_VALUE)
+                    .POST(HttpRequest.BodyPublishers.ofString(randomOf(scenario.scripts(), random)));
+            case POLL -> HttpRequest.newBuilder(uriOf("/scripts/%d/result".formatted(recentId(random))))
+                    .header(HttpHeaders.ACCEPT, MediaType.TEXT_PLAIN_VALUE)
+                    .GET();
+            case LIST -> HttpRequest.newBuilder(listUriOf(randomOf(scenario.sorts(), random)))
+                    .header(HttpHeaders.ACCEPT, MediaTypes.HAL_JSON_VALUE)
+                    .GET();
+            case STOP -> HttpRequest.newBuilder(uriOf("/scripts/%d".formatted(recentId(random))))
+                    .POST(HttpRequest.BodyPublishers.noBody());
+            case DELETE -> HttpRequest.newBuilder(uriOf("/scripts/%d".formatted(recentId(random))))
+                    .DELETE();
+        };
+
+        return builder.header(HttpHeaders.AUTHORIZATION, "Bearer " + token).build();
+    }
+
+    private URI uriOf(String path) {
+        return baseUri.resolve(path);
+    }
+
+    private URI listUriOf(List<String> sorts) {
+        UriComponentsBuilder builder = UriComponentsBuilder.fromUri(baseUri).path("/scripts");
+        if (!sorts.isEmpty())
+            builder.queryParam("sorts", sorts.toArray());
+
+        return builder.build().toUri();
+    }
+
+    private void remember(long id) {
+        long slot = submitted.getAndIncrement();
+        recentIds.set((int) (slot % RECENT_IDS), id);
+
+        while (slot < RECENT_IDS && !published.compareAndSet(slot, slot + 1))
+            Thread.onSpinWait();
+    }
+
+    private long recentId(ThreadLocalRandom random) {
+        return recentIds.get(random.nextInt((int) published.get()));
+    }
+
+    private static <T> T randomOf(List<T> values, ThreadLocalRandom random) {
+        return values.get(random.nextInt(values.size()));
+    }
+}
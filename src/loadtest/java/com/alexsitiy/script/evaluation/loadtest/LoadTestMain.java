@@ -0,0 +1,123 @@
+package com.alexsitiy.script.evaluation.loadtest;
+
+import com.alexsitiy.script.evaluation.ScriptEvaluationApplication;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class is the entry point of the load test. It reads the scenarios, runs every one of them
+ * against a freshly started app and prints the report. The report is also written as JSON,
+ * so the runs can be compared.
+ * <br/>
+ * The app is started in this JVM with the properties of the scenario, on a random port and with its own
+ * storage directory. It validates the tokens issued by {@link JwtIssuer}, so neither Keycloak nor nginx is needed.
+ */
+public final class LoadTestMain {
+
+    private static final String DEFAULT_SCENARIOS = "/scenarios.json";
+    private static final String DEFAULT_RESULT = "target/loadtest-result.json";
+
+    private LoadTestMain() {
+    }
+
+    /**
+     * @param args the path of the scenarios and the path of the result, the bundled scenarios
+     *             and target/loadtest-result.json are used by default.
+     */
+    public static void main(String[] args) throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper()
+                .findAndRegisterModules()
+                .enable(SerializationFeature.INDENT_OUTPUT);
+        List<Scenario> scenarios = readScenarios(objectMapper, args.length > 0 ? Path.of(args[0]) : null);
+        Path result = Path.of(args.length > 1 ? args[1] : DEFAULT_RESULT);
+
+        List<ScenarioReport> reports = new ArrayList<>();
+        try (JwtIssuer issuer = new JwtIssuer()) {
+            for (Scenario scenario : scenarios) {
+                ScenarioReport report = run(scenario, issuer, objectMapper);
+                print(report);
+                reports.add(report);
+            }
+        }
+
+        Files.createDirectories(result.toAbsolutePath().getParent());
+        objectMapper.writeValue(result.toFile(), reports);
+        System.out.printf("The report is written to %s%n", result.toAbsolutePath());
+    }
+
+    private static List<Scenario> readScenarios(ObjectMapper objectMapper, Path path) throws IOException {
+        TypeReference<List<Scenario>> type = new TypeReference<>() {
+        };
+
+        if (path != null)
+            return objectMapper.readValue(path.toFile(), type);
+
+        try (InputStream in = LoadTestMain.class.getResourceAsStream(DEFAULT_SCENARIOS)) {
+            return objectMapper.readValue(in, type);
+        }
+    }
+
+    private static ScenarioReport run(Scenario scenario, JwtIssuer issuer, ObjectMapper objectMapper) throws Exception {
+        System.out.printf("Running scenario %s: %d users, %s warmup, %s measurement%n",
+                scenario.name(), scenario.users(), scenario.warmup(), scenario.duration());
+
+        Path storage = Files.createTempDirectory("script-evaluation-loadtest");
+        List<String> arguments = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--spring.security.oauth2.resourceserver.jwt.issuer-uri=" + issuer.getIssuer(),
+                "--spring.security.oauth2.resourceserver.jwt.jwk-set-uri=" + issuer.getJwkSetUri(),
+                "--springdoc.swagger-ui.oauth.client-id=loadtest",
+                "--script.storage.directory=" + storage,
+                "--logging.level.root=WARN",
+                "--logging.level.com.alexsitiy.script.evaluation=WARN"));
+        // the properties of the scenario go last, so they override the defaults above
+        for (Map.Entry<String, String> property : scenario.properties().entrySet()) {
+            arguments.add("--%s=%s".formatted(property.getKey(), property.getValue()));
+        }
+
+        try (ConfigurableApplicationContext app = new SpringApplicationBuilder(ScriptEvaluationApplication.class)
+                .run(arguments.toArray(String[]::new))) {
+            int port = ((WebServerApplicationContext) app).getWebServer().getPort();
+
+            List<String> tokens = new ArrayList<>();
+            for (int i = 0; i < scenario.tenants(); i++) {
+                tokens.add(issuer.issue("tenant-" + i));
+            }
+
+            return new LoadGenerator(scenario, URI.create("http://localhost:" + port), tokens, objectMapper).run();
+        } finally {
+            FileSystemUtils.deleteRecursively(storage);
+        }
+    }
+
+    private static void print(ScenarioReport report) {
+        System.out.printf("%n%s: %.1f req/s, peak heap %d MB, heap after GC %d MB%n", report.name(), report.throughput(),
+                report.peakHeapUsed() >> 20, report.heapUsedAfterGc() >> 20);
+        System.out.printf("%-8s %9s %10s %9s %9s %7s %9s %9s %9s %9s %9s%n", "op", "count", "req/s", "rejected",
+                "conflicts", "errors", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+
+        for (OperationReport operation : report.operations()) {
+            if (operation.count() == 0)
+                continue;
+
+            System.out.printf("%-8s %9d %10.1f %8.2f%% %9d %7d %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                    operation.operation(), operation.count(), operation.throughput(), operation.rejectionRate() * 100,
+                    operation.conflicts(), operation.errors(), operation.p50(), operation.p90(), operation.p99(),
+                    operation.p999(), operation.max());
+        }
+    }
+}
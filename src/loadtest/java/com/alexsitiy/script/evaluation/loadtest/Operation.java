@@ -0,0 +1,27 @@
+package com.alexsitiy.script.evaluation.loadtest;
+
+/**
+ * The Enum with the requests the load generator sends.
+ */
+public enum Operation {
+    /**
+     * POST /scripts with one of the scripts of the scenario.
+     */
+    SUBMIT,
+    /**
+     * GET /scripts/{id}/result of a recently submitted script.
+     */
+    POLL,
+    /**
+     * GET /scripts with one of the sorts of the scenario.
+     */
+    LIST,
+    /**
+     * POST /scripts/{id} that stops a recently submitted script.
+     */
+    STOP,
+    /**
+     * DELETE /scripts/{id} of a recently submitted script.
+     */
+    DELETE
+}
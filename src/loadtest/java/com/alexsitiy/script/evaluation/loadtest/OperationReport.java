@@ -0,0 +1,31 @@
+package com.alexsitiy.script.evaluation.loadtest;
+
+/**
+ * The measured results of one operation of the scenario, the latencies are in milliseconds.
+ *
+ * @param operation     the operation.
+ * @param count         the number of requests answered during the measurement.
+ * @param throughput    the number of requests answered per second.
+ * @param rejected      the number of requests rejected due to capacity.
+ * @param rejectionRate the share of rejected requests.
+ * @param conflicts     the number of requests for scripts that were deleted, expired or not finished yet.
+ * @param errors        the number of failed requests.
+ * @param p50           the median latency.
+ * @param p90           the 90th percentile of the latency.
+ * @param p99           the 99th percentile of the latency.
+ * @param p999          the 99.9th percentile of the latency.
+ * @param max           the max latency.
+ */
+public record OperationReport(Operation operation,
+                              long count,
+                              double throughput,
+                              long rejected,
+                              double rejectionRate,
+                              long conflicts,
+                              long errors,
+                              double p50,
+                              double p90,
+                              double p99,
+                              double p999,
+                              double max) {
+}
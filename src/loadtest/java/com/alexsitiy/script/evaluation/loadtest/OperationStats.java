@@ -0,0 +1,99 @@
+package com.alexsitiy.script.evaluation.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class collects the latencies and the outcomes of one operation. The latencies are recorded
+ * in microseconds by {@link Recorder}, so the users record them without locking.
+ */
+final class OperationStats {
+
+    private static final long MAX_LATENCY = TimeUnit.MINUTES.toMicros(1);
+
+    private final Recorder latencies = new Recorder(MAX_LATENCY, 3);
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder conflicts = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+
+    /**
+     * The way the request was answered.
+     */
+    enum Outcome {
+        /**
+         * 2xx status.
+         */
+        OK,
+        /**
+         * 429 or 503 status, the app had no capacity for the request.
+         */
+        REJECTED,
+        /**
+         * 404, 405 or 410 status, the script was deleted, expired or not finished yet.
+         * It's expected, since the scripts are chosen randomly.
+         */
+        CONFLICT,
+        /**
+         * Any other status or a failed request.
+         */
+        ERROR;
+
+        static Outcome of(int status) {
+            if (status >= 200 && status < 300)
+                return OK;
+            if (status == 429 || status == 503)
+                return REJECTED;
+            if (status == 404 || status == 405 || status == 410)
+                return CONFLICT;
+
+            return ERROR;
+        }
+    }
+
+    void record(long latencyNanos, Outcome outcome) {
+        latencies.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(latencyNanos), MAX_LATENCY));
+
+        switch (outcome) {
+            case REJECTED -> rejected.increment();
+            case CONFLICT -> conflicts.increment();
+            case ERROR -> errors.increment();
+        }
+    }
+
+    /**
+     * Discards everything recorded so far, it's invoked once the warmup is over.
+     */
+    void reset() {
+        latencies.reset();
+        rejected.reset();
+        conflicts.reset();
+        errors.reset();
+    }
+
+    OperationReport report(Operation operation, Duration duration) {
+        Histogram histogram = latencies.getIntervalHistogram();
+        long count = histogram.getTotalCount();
+        long rejected = this.rejected.sum();
+
+        return new OperationReport(operation,
+                count,
+                count / (duration.toMillis() / 1000.0),
+                rejected,
+                count == 0 ? 0 : (double) rejected / count,
+                conflicts.sum(),
+                errors.sum(),
+                millisOf(histogram.getValueAtPercentile(50)),
+                millisOf(histogram.getValueAtPercentile(90)),
+                millisOf(histogram.getValueAtPercentile(99)),
+                millisOf(histogram.getValueAtPercentile(99.9)),
+                millisOf(histogram.getMaxValue()));
+    }
+
+    private static double millisOf(long micros) {
+        return micros / 1000.0;
+    }
+}
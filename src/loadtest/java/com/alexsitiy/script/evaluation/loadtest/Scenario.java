@@ -0,0 +1,39 @@
+package com.alexsitiy.script.evaluation.loadtest;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The scenario of the load test. Every scenario is run against a freshly started app.
+ *
+ * @param name       the name of the scenario in the report.
+ * @param warmup     the time the load is applied before the measurement.
+ * @param duration   the time the load is measured.
+ * @param users      the number of users, every user sends the next request once the previous one is answered.
+ * @param tenants    the number of tenants the users are spread over.
+ * @param mix        the weights of the operations, the operation of every request is chosen randomly by them.
+ * @param scripts    the scripts that are submitted, one of them is chosen randomly.
+ * @param sorts      the sorts the list of scripts is requested with, one of them is chosen randomly.
+ * @param properties the properties the app is started with, for example, the ones of the scheduler.
+ * @throws IllegalArgumentException if the scenario has no users or no scripts.
+ */
+public record Scenario(String name,
+                       Duration warmup,
+                       Duration duration,
+                       int users,
+                       int tenants,
+                       Map<Operation, Integer> mix,
+                       List<String> scripts,
+                       List<List<String>> sorts,
+                       Map<String, String> properties) {
+
+    public Scenario {
+        if (users < 1 || scripts == null || scripts.isEmpty())
+            throw new IllegalArgumentException("Scenario %s must have users and scripts".formatted(name));
+
+        tenants = Math.max(1, tenants);
+        sorts = sorts == null || sorts.isEmpty() ? List.of(List.of()) : sorts;
+        properties = properties == null ? Map.of() : properties;
+    }
+}
@@ -0,0 +1,19 @@
+package com.alexsitiy.script.evaluation.loadtest;
+
+import java.util.List;
+
+/**
+ * The measured results of the scenario.
+ *
+ * @param name            the name of the scenario.
+ * @param throughput      the number of requests of all the operations answered per second.
+ * @param operations      the results of every operation.
+ * @param peakHeapUsed    the max heap usage in bytes sampled during the measurement.
+ * @param heapUsedAfterGc the heap usage in bytes after GC once the measurement is over.
+ */
+public record ScenarioReport(String name,
+                             double throughput,
+                             List<OperationReport> operations,
+                             long peakHeapUsed,
+                             long heapUsedAfterGc) {
+}
@@ -0,0 +1,5 @@
+/**
+ * Includes the load generator that starts the app against a local JWT issuer and drives
+ * mixes of requests to the REST API. It's compiled and run only with the loadtest build profile.
+ */
+package com.alexsitiy.script.evaluation.loadtest;
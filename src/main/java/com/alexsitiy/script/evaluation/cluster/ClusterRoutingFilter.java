@@ -0,0 +1,57 @@
+package com.alexsitiy.script.evaluation.cluster;
+
+import com.alexsitiy.script.evaluation.exception.NodeUnavailableException;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerExceptionResolver;
+
+import java.io.IOException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * This filter routes the requests for a specific script to its owner via {@link ScriptCluster}
+ * before they reach the controller. The requests sent by other nodes are never routed.
+ * <br/>
+ * {@link NodeUnavailableException} is passed to {@link HandlerExceptionResolver}, so it's handled
+ * the same way as the exceptions thrown by the controller.
+ */
+public class ClusterRoutingFilter extends OncePerRequestFilter {
+
+    private static final Pattern SCRIPT_PATH = Pattern.compile("^/scripts/(\\d{1,18})(/.*)?$");
+
+    private final ScriptCluster scriptCluster;
+    private final HandlerExceptionResolver exceptionResolver;
+
+    public ClusterRoutingFilter(ScriptCluster scriptCluster, HandlerExceptionResolver exceptionResolver) {
+        this.scriptCluster = scriptCluster;
+        this.exceptionResolver = exceptionResolver;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !scriptCluster.isClusterWide(request);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        Matcher matcher = SCRIPT_PATH.matcher(request.getRequestURI().substring(request.getContextPath().length()));
+
+        if (matcher.matches()) {
+            try {
+                if (scriptCluster.route(Long.parseLong(matcher.group(1)), request, response))
+                    return;
+            } catch (NodeUnavailableException e) {
+                exceptionResolver.resolveException(request, response, null, e);
+                return;
+            }
+        }
+
+        filterChain.doFilter(request, response);
+    }
+}
@@ -0,0 +1,210 @@
+package com.alexsitiy.script.evaluation.cluster;
+
+import com.alexsitiy.script.evaluation.dto.ScriptReadDto;
+import com.alexsitiy.script.evaluation.exception.NodeUnavailableException;
+import com.alexsitiy.script.evaluation.model.Status;
+import com.alexsitiy.script.evaluation.repository.ScriptPage;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.hateoas.MediaTypes;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * This class sends the requests of clients to other nodes of the cluster over HTTP. The Authorization header
+ * is passed as is, so every node authenticates the client itself. X-Forwarded headers describe the original request,
+ * so the links built by the node point to the node the client has called.
+ * <br/>
+ * Every request is marked by {@link #HOP_HEADER}, the node that receives it serves it locally and never routes it further.
+ */
+public class PeerClient {
+
+    /**
+     * The header with the id of the node that has sent the request.
+     */
+    public static final String HOP_HEADER = "X-Script-Cluster-Hop";
+
+    private static final int BUFFER_SIZE = 8192;
+    private static final Set<String> SKIPPED_HEADERS = Set.of("connection", "keep-alive", "transfer-encoding", "te",
+            "trailer", "upgrade", "proxy-authorization", "proxy-authenticate", "host", "content-length", "expect",
+            "forwarded", "x-forwarded-host", "x-forwarded-proto", "x-forwarded-port", "x-forwarded-prefix",
+            "x-forwarded-for", HOP_HEADER.toLowerCase());
+
+    private final int nodeId;
+    private final Duration timeout;
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * @param nodeId       the id of this node.
+     * @param timeout      the max time of connecting to a node and waiting for the headers of its response.
+     * @param objectMapper the mapper the lists of scripts are read with.
+     */
+    public PeerClient(int nodeId, Duration timeout, ObjectMapper objectMapper) {
+        this.nodeId = nodeId;
+        this.timeout = timeout;
+        this.objectMapper = objectMapper;
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(timeout)
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .build();
+    }
+
+    /**
+     * Sends a given request to the node and copies its response to a given one. The body of the response
+     * is flushed as soon as it's received, so the streams of events are forwarded as they go.
+     *
+     * @param peerId   the id of the node.
+     * @param peer     the base URL of the node.
+     * @param request  the request of the client.
+     * @param response the response to the client.
+     * @throws NodeUnavailableException if the node couldn't be reached.
+     * @throws IOException              if the response couldn't be written to the client.
+     */
+    public void forward(int peerId, URI peer, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        byte[] body = request.getInputStream().readAllBytes();
+        HttpRequest.Builder builder = HttpRequest.newBuilder(targetOf(peer, request))
+                .timeout(timeout)
+                .method(request.getMethod(), body.length == 0
+                        ? HttpRequest.BodyPublishers.noBody()
+                        : HttpRequest.BodyPublishers.ofByteArray(body));
+
+        for (String name : Collections.list(request.getHeaderNames())) {
+            if (SKIPPED_HEADERS.contains(name.toLowerCase()))
+                continue;
+
+            for (String value : Collections.list(request.getHeaders(name))) {
+                builder.header(name, value);
+            }
+        }
+
+        HttpResponse<InputStream> peerResponse = send(peerId, markForwarded(builder, request).build());
+
+        try (InputStream peerBody = peerResponse.body()) {
+            response.setStatus(peerResponse.statusCode());
+            peerResponse.headers().map().forEach((name, values) -> {
+                if (!SKIPPED_HEADERS.contains(name.toLowerCase()))
+                    values.forEach(value -> response.addHeader(name, value));
+            });
+
+            OutputStream out = response.getOutputStream();
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = peerBody.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+                out.flush();
+            }
+        }
+    }
+
+    /**
+     * Finds the scripts of the node with the same query the client has sent to this node.
+     *
+     * @param peerId  the id of the node.
+     * @param peer    the base URL of the node.
+     * @param request the request of the client for the list of scripts.
+     * @return {@link CompletableFuture} of {@link ScriptPage} of the node without links, the cursors are null
+     * if the list is not paged. It's completed with {@link NodeUnavailableException} if the node couldn't be reached
+     * or has failed.
+     */
+    public CompletableFuture<ScriptPage<ScriptReadDto>> findPage(int peerId, URI peer, HttpServletRequest request) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(targetOf(peer, request))
+                .timeout(timeout)
+                .header(HttpHeaders.ACCEPT, MediaTypes.HAL_JSON_VALUE)
+                .GET();
+
+        String authorization = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (authorization != null)
+            builder.header(HttpHeaders.AUTHORIZATION, authorization);
+
+        return httpClient.sendAsync(markForwarded(builder, request).build(), HttpResponse.BodyHandlers.ofByteArray())
+                .handle((response, e) -> {
+                    if (e != null)
+                        throw new NodeUnavailableException("Node %d couldn't be reached".formatted(peerId), peerId, e);
+                    if (response.statusCode() != HttpServletResponse.SC_OK)
+                        throw new NodeUnavailableException("Node %d has responded with %d status"
+                                .formatted(peerId, response.statusCode()), peerId, null);
+
+                    return readPage(peerId, response.body());
+                });
+    }
+
+    private HttpResponse<InputStream> send(int peerId, HttpRequest request) {
+        try {
+            return httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+        } catch (IOException e) {
+            throw new NodeUnavailableException("Node %d couldn't be reached".formatted(peerId), peerId, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new NodeUnavailableException("The request to node %d was interrupted".formatted(peerId), peerId, e);
+        }
+    }
+
+    private HttpRequest.Builder markForwarded(HttpRequest.Builder builder, HttpServletRequest request) {
+        builder.header(HOP_HEADER, String.valueOf(nodeId))
+                .header("X-Forwarded-Proto", request.getScheme())
+                .header("X-Forwarded-Host", request.getServerName())
+                .header("X-Forwarded-Port", String.valueOf(request.getServerPort()));
+        if (!request.getContextPath().isEmpty())
+            builder.header("X-Forwarded-Prefix", request.getContextPath());
+
+        return builder;
+    }
+
+    private static URI targetOf(URI peer, HttpServletRequest request) {
+        return UriComponentsBuilder.fromUri(peer)
+                .path(request.getRequestURI().substring(request.getContextPath().length()))
+                .query(request.getQueryString())
+                .build(true)
+                .toUri();
+    }
+
+    private ScriptPage<ScriptReadDto> readPage(int peerId, byte[] body) {
+        try {
+            JsonNode root = objectMapper.readTree(body);
+            List<ScriptReadDto> scripts = new ArrayList<>();
+
+            for (JsonNode script : root.path("_embedded").path("scripts")) {
+                JsonNode scheduledTime = script.path("scheduledTime");
+
+                scripts.add(new ScriptReadDto(script.path("id").asLong(),
+                        Status.valueOf(script.path("status").asText()),
+                        script.path("executionTime").asLong(),
+                        scheduledTime.isNull() || scheduledTime.isMissingNode()
+                                ? null
+                                : objectMapper.treeToValue(scheduledTime, Instant.class)));
+            }
+
+            JsonNode links = root.path("_links");
+            return new ScriptPage<>(scripts, cursorOf(links.path("next")), cursorOf(links.path("prev")));
+        } catch (IOException | IllegalArgumentException e) {
+            throw new NodeUnavailableException("Node %d has responded with a malformed list".formatted(peerId), peerId, e);
+        }
+    }
+
+    private static String cursorOf(JsonNode link) {
+        JsonNode href = (link.isArray() ? link.path(0) : link).path("href");
+        if (href.isMissingNode())
+            return null;
+
+        return UriComponentsBuilder.fromUriString(href.asText()).build().getQueryParams().getFirst("cursor");
+    }
+}
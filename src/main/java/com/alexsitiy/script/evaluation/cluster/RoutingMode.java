@@ -0,0 +1,15 @@
+package com.alexsitiy.script.evaluation.cluster;
+
+/**
+ * The Enum with possible ways of routing a request for the script that is owned by another node.
+ */
+public enum RoutingMode {
+    /**
+     * The request is sent to the owner and its response is copied back to the client.
+     */
+    FORWARD,
+    /**
+     * The client is redirected to the owner with 307(TEMPORARY_REDIRECT), so the owner must be reachable by the client.
+     */
+    REDIRECT
+}
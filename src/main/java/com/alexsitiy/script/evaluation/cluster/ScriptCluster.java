@@ -0,0 +1,182 @@
+package com.alexsitiy.script.evaluation.cluster;
+
+import com.alexsitiy.script.evaluation.dto.ScriptReadDto;
+import com.alexsitiy.script.evaluation.exception.NodeUnavailableException;
+import com.alexsitiy.script.evaluation.repository.ScriptPage;
+import com.alexsitiy.script.evaluation.repository.ShardMerger;
+import com.alexsitiy.script.evaluation.service.ScriptIdGenerator;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Collectors;
+
+/**
+ * This class makes the node a part of the cluster with a static list of nodes. Every node owns the scripts
+ * it has created, the owner is taken from the id of the script via {@link ScriptIdGenerator#nodeOf(long)},
+ * so no state is shared between the nodes.
+ * <br/>
+ * The requests for a script of another node are routed to the owner in accordance with {@link RoutingMode}.
+ * The lists of scripts are gathered from all the nodes in parallel and merged by {@link ShardMerger},
+ * so the list fails if any node is unavailable rather than silently missing its scripts.
+ * <br/>
+ * It registers script.cluster.routed metric with "node" and "mode" tags and script.cluster.fanout metric.
+ */
+public class ScriptCluster {
+
+    private static final Logger log = LoggerFactory.getLogger(ScriptCluster.class);
+
+    private final int nodeId;
+    private final boolean enabled;
+    private final RoutingMode routing;
+    private final Map<Integer, URI> peers;
+    private final PeerClient peerClient;
+    private final MeterRegistry meterRegistry;
+    private final Timer fanOut;
+
+    /**
+     * @param nodeId        the id of this node.
+     * @param enabled       whether the node is a part of the cluster, it serves only its own scripts otherwise.
+     * @param routing       {@link RoutingMode} of the requests for scripts of other nodes.
+     * @param peers         the base URLs of the nodes by their ids, this node is ignored.
+     * @param peerClient    the client the requests are sent to other nodes with.
+     * @param meterRegistry the registry the metrics are registered in.
+     */
+    public ScriptCluster(int nodeId,
+                         boolean enabled,
+                         RoutingMode routing,
+                         Map<Integer, URI> peers,
+                         PeerClient peerClient,
+                         MeterRegistry meterRegistry) {
+        this.nodeId = nodeId;
+        this.enabled = enabled;
+        this.routing = routing;
+        this.peers = peers.entrySet().stream()
+                .filter(peer -> peer.getKey() != nodeId)
+                .collect(Collectors.toUnmodifiableMap(Map.Entry::getKey, Map.Entry::getValue));
+        this.peerClient = peerClient;
+        this.meterRegistry = meterRegistry;
+        this.fanOut = meterRegistry.timer("script.cluster.fanout");
+    }
+
+    /**
+     * @param request the request of the client.
+     * @return true if the request may be routed to or gathered from other nodes, false if it was sent
+     * by another node or the node is not a part of the cluster.
+     */
+    public boolean isClusterWide(HttpServletRequest request) {
+        return enabled && request.getHeader(PeerClient.HOP_HEADER) == null;
+    }
+
+    /**
+     * Routes a given request to the owner of the script if it's another node.
+     *
+     * @param id       the id of the script the request is for.
+     * @param request  the request of the client.
+     * @param response the response to the client.
+     * @return true if the request was routed, false if it must be served by this node.
+     * @throws NodeUnavailableException if the owner couldn't be reached.
+     * @throws IOException              if the response couldn't be written to the client.
+     */
+    public boolean route(Long id, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        int owner = ScriptIdGenerator.nodeOf(id);
+        if (owner == nodeId)
+            return false;
+
+        URI peer = peers.get(owner);
+        if (peer == null) {
+            log.debug("Script {} is owned by unknown node {}, it's looked for locally", id, owner);
+            return false;
+        }
+
+        meterRegistry.counter("script.cluster.routed", "node", String.valueOf(owner), "mode", routing.name())
+                .increment();
+
+        if (routing == RoutingMode.REDIRECT) {
+            response.setStatus(HttpServletResponse.SC_TEMPORARY_REDIRECT);
+            response.setHeader(HttpHeaders.LOCATION, UriComponentsBuilder.fromUri(peer)
+                    .path(request.getRequestURI().substring(request.getContextPath().length()))
+                    .query(request.getQueryString())
+                    .build(true)
+                    .toUriString());
+        } else {
+            peerClient.forward(owner, peer, request, response);
+        }
+
+        return true;
+    }
+
+    /**
+     * Gathers all the scripts of the other nodes and merges them with the ones of this node.
+     *
+     * @param local   the scripts found on this node.
+     * @param sorts   the sorts the scripts were found with.
+     * @param request the request of the client for the list of scripts.
+     * @return the merged scripts without links.
+     * @throws NodeUnavailableException if any node couldn't be reached.
+     */
+    public List<ScriptReadDto> findAll(List<ScriptReadDto> local, List<String> sorts, HttpServletRequest request) {
+        return fanOut.record(() -> {
+            List<List<ScriptReadDto>> shards = new ArrayList<>();
+            shards.add(local);
+            gather(request).forEach(page -> shards.add(page.scripts()));
+
+            return ShardMerger.mergeAll(shards, sorts, ScriptCluster::sortValuesOf);
+        });
+    }
+
+    /**
+     * Gathers the pages of the other nodes and merges them with the page of this node.
+     *
+     * @param local   the page found on this node.
+     * @param sorts   the sorts the page was found with.
+     * @param limit   the max number of scripts on the page.
+     * @param cursor  the cursor the page was found with or null for the first page.
+     * @param request the request of the client for the page.
+     * @return the merged page without links.
+     * @throws NodeUnavailableException if any node couldn't be reached.
+     */
+    public ScriptPage<ScriptReadDto> findPage(ScriptPage<ScriptReadDto> local, List<String> sorts, int limit, String cursor,
+                                              HttpServletRequest request) {
+        return fanOut.record(() -> {
+            List<ScriptPage<ScriptReadDto>> pages = new ArrayList<>();
+            pages.add(local);
+            pages.addAll(gather(request));
+
+            return ShardMerger.mergePages(pages, sorts, limit, cursor, ScriptCluster::sortValuesOf);
+        });
+    }
+
+    private List<ScriptPage<ScriptReadDto>> gather(HttpServletRequest request) {
+        List<CompletableFuture<ScriptPage<ScriptReadDto>>> futures = peers.entrySet().stream()
+                .map(peer -> peerClient.findPage(peer.getKey(), peer.getValue(), request))
+                .toList();
+
+        try {
+            return futures.stream()
+                    .map(CompletableFuture::join)
+                    .toList();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof NodeUnavailableException nodeUnavailable)
+                throw nodeUnavailable;
+
+            throw e;
+        }
+    }
+
+    private static ShardMerger.SortValues sortValuesOf(ScriptReadDto script) {
+        return new ShardMerger.SortValues(script.getId(), script.getExecutionTime(), script.getScheduledTime());
+    }
+}
@@ -0,0 +1,5 @@
+/**
+ * Includes classes which let several instances of the app serve the scripts as one cluster,
+ * every node owns the scripts whose ids it has generated.
+ */
+package com.alexsitiy.script.evaluation.cluster;
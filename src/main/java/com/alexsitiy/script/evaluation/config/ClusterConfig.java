@@ -0,0 +1,50 @@
+package com.alexsitiy.script.evaluation.config;
+
+import com.alexsitiy.script.evaluation.cluster.ClusterRoutingFilter;
+import com.alexsitiy.script.evaluation.cluster.PeerClient;
+import com.alexsitiy.script.evaluation.cluster.ScriptCluster;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.HandlerExceptionResolver;
+
+/**
+ * This configuration class makes the instance a node of the cluster in accordance with {@link ClusterProperties}.
+ */
+@Configuration
+@EnableConfigurationProperties(ClusterProperties.class)
+public class ClusterConfig {
+
+    @Bean
+    public ScriptCluster scriptCluster(ClusterProperties properties,
+                                       IdProperties idProperties,
+                                       ObjectMapper objectMapper,
+                                       MeterRegistry meterRegistry) {
+        return new ScriptCluster(idProperties.getNodeId(),
+                properties.isEnabled(),
+                properties.getRouting(),
+                properties.getPeers(),
+                new PeerClient(idProperties.getNodeId(), properties.getTimeout(), objectMapper),
+                meterRegistry);
+    }
+
+    /**
+     * Registers the filter right after the filter of Spring Security, so only authenticated requests are routed.
+     */
+    @Bean
+    public FilterRegistrationBean<ClusterRoutingFilter> clusterRoutingFilter(ScriptCluster scriptCluster,
+                                                                             @Qualifier("handlerExceptionResolver")
+                                                                             HandlerExceptionResolver exceptionResolver) {
+        FilterRegistrationBean<ClusterRoutingFilter> registration =
+                new FilterRegistrationBean<>(new ClusterRoutingFilter(scriptCluster, exceptionResolver));
+        registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER + 1);
+        registration.addUrlPatterns("/scripts/*");
+
+        return registration;
+    }
+}
@@ -0,0 +1,69 @@
+package com.alexsitiy.script.evaluation.config;
+
+import com.alexsitiy.script.evaluation.cluster.RoutingMode;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * This class holds properties with "script.cluster" prefix that
+ * configure how the instance works as a node of the cluster. The id of the node is "script.id.node-id".
+ */
+@ConfigurationProperties(prefix = "script.cluster")
+public class ClusterProperties {
+
+    /**
+     * Whether the requests for scripts of other nodes are routed to them and the lists of scripts are gathered from all the nodes.
+     */
+    private boolean enabled = false;
+
+    /**
+     * How the requests for scripts of other nodes are routed.
+     */
+    private RoutingMode routing = RoutingMode.FORWARD;
+
+    /**
+     * The base URLs of the nodes by their ids, the own node can be listed too.
+     */
+    private Map<Integer, URI> peers = new HashMap<>();
+
+    /**
+     * The max time of connecting to a node and waiting for its response.
+     */
+    private Duration timeout = Duration.ofSeconds(5);
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public RoutingMode getRouting() {
+        return routing;
+    }
+
+    public void setRouting(RoutingMode routing) {
+        this.routing = routing;
+    }
+
+    public Map<Integer, URI> getPeers() {
+        return peers;
+    }
+
+    public void setPeers(Map<Integer, URI> peers) {
+        this.peers = peers;
+    }
+
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    public void setTimeout(Duration timeout) {
+        this.timeout = timeout;
+    }
+}
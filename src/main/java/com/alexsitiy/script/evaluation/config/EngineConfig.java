@@ -0,0 +1,66 @@
+package com.alexsitiy.script.evaluation.config;
+
+import com.alexsitiy.script.evaluation.engine.ExecutionBudget;
+import com.alexsitiy.script.evaluation.engine.PerScriptEngineContextFactory;
+import com.alexsitiy.script.evaluation.engine.PooledContextFactory;
+import com.alexsitiy.script.evaluation.engine.ScriptContextFactory;
+import com.alexsitiy.script.evaluation.engine.SharedEngineContextFactory;
+import com.alexsitiy.script.evaluation.engine.SourceCache;
+import com.alexsitiy.script.evaluation.model.OutputQuota;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.graalvm.polyglot.ResourceLimitEvent;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.function.Consumer;
+
+/**
+ * This configuration class creates {@link ScriptContextFactory} in accordance
+ * with {@link EngineProperties}. If the pool is enabled, the factory is wrapped
+ * with {@link PooledContextFactory}. It also creates {@link SourceCache},
+ * the default {@link ExecutionBudget} and {@link OutputQuota}.
+ *
+ * @see com.alexsitiy.script.evaluation.engine.EngineMode
+ */
+@Configuration
+@EnableConfigurationProperties(EngineProperties.class)
+public class EngineConfig {
+
+    @Bean
+    public ScriptContextFactory scriptContextFactory(EngineProperties properties,
+                                                     ExecutionBudget defaultExecutionBudget,
+                                                     MeterRegistry meterRegistry) {
+        Counter statementsExceeded = meterRegistry.counter("script.budget.exceeded", "type", "statements");
+        Consumer<ResourceLimitEvent> onLimit = event -> statementsExceeded.increment();
+
+        ScriptContextFactory contextFactory = switch (properties.getMode()) {
+            case PER_SCRIPT -> new PerScriptEngineContextFactory(onLimit);
+            case SHARED -> new SharedEngineContextFactory(onLimit);
+        };
+
+        EngineProperties.Pool pool = properties.getPool();
+        if (!pool.isEnabled())
+            return contextFactory;
+
+        return new PooledContextFactory(contextFactory, defaultExecutionBudget, pool.getSize(), meterRegistry);
+    }
+
+    @Bean
+    public ExecutionBudget defaultExecutionBudget(EngineProperties properties) {
+        EngineProperties.Budget budget = properties.getBudget();
+        return new ExecutionBudget(budget.getStatementLimit(), budget.getTimeLimit());
+    }
+
+    @Bean
+    public SourceCache sourceCache(EngineProperties properties, MeterRegistry meterRegistry) {
+        return new SourceCache(properties.getSourceCache().getMaxSize(), meterRegistry);
+    }
+
+    @Bean
+    public OutputQuota outputQuota(EngineProperties properties) {
+        EngineProperties.Output output = properties.getOutput();
+        return new OutputQuota((int) output.getMaxSize().toBytes(), output.getMaxLines());
+    }
+}
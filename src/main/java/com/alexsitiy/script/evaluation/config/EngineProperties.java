@@ -0,0 +1,181 @@
+package com.alexsitiy.script.evaluation.config;
+
+import com.alexsitiy.script.evaluation.engine.EngineMode;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * This class holds properties with "script.engine" prefix that
+ * configure how GraalVM engines are created for scripts.
+ */
+@ConfigurationProperties(prefix = "script.engine")
+public class EngineProperties {
+
+    /**
+     * Whether every script gets its own engine or all of them share one.
+     */
+    private EngineMode mode = EngineMode.SHARED;
+
+    private final Pool pool = new Pool();
+
+    private final Cache sourceCache = new Cache();
+
+    private final Budget budget = new Budget();
+
+    private final Output output = new Output();
+
+    public EngineMode getMode() {
+        return mode;
+    }
+
+    public void setMode(EngineMode mode) {
+        this.mode = mode;
+    }
+
+    public Pool getPool() {
+        return pool;
+    }
+
+    public Cache getSourceCache() {
+        return sourceCache;
+    }
+
+    public Budget getBudget() {
+        return budget;
+    }
+
+    public Output getOutput() {
+        return output;
+    }
+
+    /**
+     * Properties of the pool with pre-created contexts.
+     */
+    public static class Pool {
+
+        /**
+         * Whether contexts are pre-created in the background.
+         */
+        private boolean enabled = true;
+
+        /**
+         * The max number of ready contexts kept in the pool.
+         */
+        private int size = 4;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getSize() {
+            return size;
+        }
+
+        public void setSize(int size) {
+            this.size = size;
+        }
+    }
+
+    /**
+     * Properties of the cache with parsed sources.
+     */
+    public static class Cache {
+
+        /**
+         * The max number of distinct script bodies kept in the cache.
+         */
+        private int maxSize = 1000;
+
+        public int getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(int maxSize) {
+            this.maxSize = maxSize;
+        }
+    }
+
+    /**
+     * Properties of the default budget every script is allowed to spend.
+     * A request can only lower it.
+     */
+    public static class Budget {
+
+        /**
+         * The max number of statements a script can execute, 0 means no limit.
+         */
+        private long statementLimit = 0;
+
+        /**
+         * The max wall-clock time a script can execute, 0 means no limit.
+         */
+        private Duration timeLimit = Duration.ZERO;
+
+        /**
+         * How often executing scripts are checked for exceeding the time limit.
+         */
+        private Duration checkInterval = Duration.ofMillis(200);
+
+        public long getStatementLimit() {
+            return statementLimit;
+        }
+
+        public void setStatementLimit(long statementLimit) {
+            this.statementLimit = statementLimit;
+        }
+
+        public Duration getTimeLimit() {
+            return timeLimit;
+        }
+
+        public void setTimeLimit(Duration timeLimit) {
+            this.timeLimit = timeLimit;
+        }
+
+        public Duration getCheckInterval() {
+            return checkInterval;
+        }
+
+        public void setCheckInterval(Duration checkInterval) {
+            this.checkInterval = checkInterval;
+        }
+    }
+
+    /**
+     * Properties of the quotas of the output every script keeps.
+     */
+    public static class Output {
+
+        /**
+         * The max size of the retained output of a script.
+         */
+        private DataSize maxSize = DataSize.ofKilobytes(64);
+
+        /**
+         * The max number of the retained lines of a script.
+         */
+        private int maxLines = 100;
+
+        public DataSize getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(DataSize maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        public int getMaxLines() {
+            return maxLines;
+        }
+
+        public void setMaxLines(int maxLines) {
+            this.maxLines = maxLines;
+        }
+    }
+}
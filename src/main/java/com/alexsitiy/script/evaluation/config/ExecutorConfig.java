@@ -0,0 +1,32 @@
+package com.alexsitiy.script.evaluation.config;
+
+import com.alexsitiy.script.evaluation.executor.ExecutorMode;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.ClassUtils;
+
+/**
+ * This configuration class checks that the executor selected via {@link ExecutorProperties}
+ * is available. The PLATFORM executor is created by Spring Boot auto-configuration,
+ * the VIRTUAL one by VirtualThreadExecutorConfig that is compiled only with the java21 build profile.
+ */
+@Configuration
+@EnableConfigurationProperties(ExecutorProperties.class)
+public class ExecutorConfig implements InitializingBean {
+
+    private static final String VIRTUAL_CONFIG_CLASS = "com.alexsitiy.script.evaluation.config.VirtualThreadExecutorConfig";
+
+    private final ExecutorProperties properties;
+
+    public ExecutorConfig(ExecutorProperties properties) {
+        this.properties = properties;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (properties.getMode() == ExecutorMode.VIRTUAL
+            && !ClassUtils.isPresent(VIRTUAL_CONFIG_CLASS, getClass().getClassLoader()))
+            throw new IllegalStateException("VIRTUAL executor mode requires the app to be built with the java21 profile");
+    }
+}
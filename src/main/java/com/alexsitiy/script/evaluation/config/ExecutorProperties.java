@@ -0,0 +1,27 @@
+package com.alexsitiy.script.evaluation.config;
+
+import com.alexsitiy.script.evaluation.executor.ExecutorMode;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * This class holds properties with "script.executor" prefix that
+ * configure the executor scripts are run by.
+ * <br/>
+ * The executor of either mode is sized by {@link SchedulerProperties}.
+ */
+@ConfigurationProperties(prefix = "script.executor")
+public class ExecutorProperties {
+
+    /**
+     * Whether scripts are run on platform or virtual threads.
+     */
+    private ExecutorMode mode = ExecutorMode.PLATFORM;
+
+    public ExecutorMode getMode() {
+        return mode;
+    }
+
+    public void setMode(ExecutorMode mode) {
+        this.mode = mode;
+    }
+}
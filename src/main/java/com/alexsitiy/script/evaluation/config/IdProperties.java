@@ -0,0 +1,24 @@
+package com.alexsitiy.script.evaluation.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * This class holds properties with "script.id" prefix that
+ * configure how ids of scripts are generated.
+ */
+@ConfigurationProperties(prefix = "script.id")
+public class IdProperties {
+
+    /**
+     * The id of this instance that is unique among all the instances, from 0 to 63.
+     */
+    private int nodeId = 0;
+
+    public int getNodeId() {
+        return nodeId;
+    }
+
+    public void setNodeId(int nodeId) {
+        this.nodeId = nodeId;
+    }
+}
@@ -0,0 +1,24 @@
+package com.alexsitiy.script.evaluation.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * This class holds properties with "script.memo" prefix that
+ * configure reusing results of deterministic scripts.
+ */
+@ConfigurationProperties(prefix = "script.memo")
+public class MemoProperties {
+
+    /**
+     * The max number of distinct deterministic script bodies whose runs are remembered.
+     */
+    private int maxSize = 1000;
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public void setMaxSize(int maxSize) {
+        this.maxSize = maxSize;
+    }
+}
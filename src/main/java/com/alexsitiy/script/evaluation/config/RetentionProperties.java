@@ -0,0 +1,81 @@
+package com.alexsitiy.script.evaluation.config;
+
+import com.alexsitiy.script.evaluation.service.RetentionSweeper;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * This class holds properties with "script.retention" prefix that
+ * configure how long finished scripts are retained. Zero means no limit,
+ * so finished scripts are retained until they're deleted unless a limit is set.
+ */
+@ConfigurationProperties(prefix = "script.retention")
+public class RetentionProperties {
+
+    /**
+     * The max time a finished script is retained after it was finished.
+     */
+    private Duration maxAge = Duration.ZERO;
+
+    /**
+     * The max number of retained finished scripts.
+     */
+    private int maxCount = 0;
+
+    /**
+     * The max size of the output of all retained finished scripts.
+     */
+    private DataSize maxOutputSize = DataSize.ofBytes(0);
+
+    /**
+     * The order finished scripts are evicted in when there are too many of them.
+     */
+    private RetentionSweeper.Order order = RetentionSweeper.Order.OLDEST;
+
+    /**
+     * The interval of checking finished scripts.
+     */
+    private Duration sweepInterval = Duration.ofSeconds(10);
+
+    public Duration getMaxAge() {
+        return maxAge;
+    }
+
+    public void setMaxAge(Duration maxAge) {
+        this.maxAge = maxAge;
+    }
+
+    public int getMaxCount() {
+        return maxCount;
+    }
+
+    public void setMaxCount(int maxCount) {
+        this.maxCount = maxCount;
+    }
+
+    public DataSize getMaxOutputSize() {
+        return maxOutputSize;
+    }
+
+    public void setMaxOutputSize(DataSize maxOutputSize) {
+        this.maxOutputSize = maxOutputSize;
+    }
+
+    public RetentionSweeper.Order getOrder() {
+        return order;
+    }
+
+    public void setOrder(RetentionSweeper.Order order) {
+        this.order = order;
+    }
+
+    public Duration getSweepInterval() {
+        return sweepInterval;
+    }
+
+    public void setSweepInterval(Duration sweepInterval) {
+        this.sweepInterval = sweepInterval;
+    }
+}
@@ -0,0 +1,136 @@
+package com.alexsitiy.script.evaluation.config;
+
+import com.alexsitiy.script.evaluation.executor.AimdConcurrencyLimiter;
+import com.alexsitiy.script.evaluation.executor.ConcurrencyLimitEndpoint;
+import com.alexsitiy.script.evaluation.executor.ConcurrencyLimiter;
+import com.alexsitiy.script.evaluation.executor.FairScriptScheduler;
+import com.alexsitiy.script.evaluation.executor.FifoScriptScheduler;
+import com.alexsitiy.script.evaluation.executor.ScriptScheduler;
+import com.alexsitiy.script.evaluation.executor.SemaphoreTaskExecutor;
+import com.alexsitiy.script.evaluation.executor.StaticConcurrencyLimiter;
+import com.alexsitiy.script.evaluation.service.TenantResolver;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.task.TaskExecutorCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * This configuration class creates {@link ScriptScheduler} in accordance
+ * with {@link SchedulerProperties} on top of the application's {@link TaskExecutor}.
+ * <br/>
+ * It also creates {@link ConcurrencyLimiter} that is either static or adaptive. The adaptive limit is applied
+ * to the executor: the pool size of {@link ThreadPoolTaskExecutor} or the concurrency of {@link SemaphoreTaskExecutor}
+ * follows the limit. The app fails to start if the adaptive limit is configured with an executor that can't follow it.
+ * <br/>
+ * The executor is sized from {@link SchedulerProperties} only: it runs as many scripts as the concurrency,
+ * and its queue fits the FIFO queue capacity or, with the adaptive limit, the max queue limit, since the capacity
+ * can't be changed once the executor is created.
+ *
+ * @see com.alexsitiy.script.evaluation.executor.SchedulerMode
+ */
+@Configuration
+@EnableConfigurationProperties(SchedulerProperties.class)
+public class SchedulerConfig {
+
+    @Bean
+    public ScriptScheduler scriptScheduler(SchedulerProperties properties,
+                                           TaskExecutor taskExecutor,
+                                           ConcurrencyLimiter concurrencyLimiter,
+                                           MeterRegistry meterRegistry) {
+        if (properties.getLimit().isAdaptive())
+            follow(taskExecutor, concurrencyLimiter);
+
+        return switch (properties.getMode()) {
+            case FIFO -> new FifoScriptScheduler(taskExecutor, concurrencyLimiter, meterRegistry);
+            case FAIR -> new FairScriptScheduler(taskExecutor,
+                    concurrencyLimiter,
+                    properties.getTenantQueueCapacity(),
+                    properties.getWeights(),
+                    properties.getDefaultWeight(),
+                    meterRegistry);
+        };
+    }
+
+    @Bean
+    public ConcurrencyLimiter concurrencyLimiter(SchedulerProperties properties, MeterRegistry meterRegistry) {
+        SchedulerProperties.Limit limit = properties.getLimit();
+
+        if (!limit.isAdaptive())
+            return new StaticConcurrencyLimiter(properties.getConcurrency(), switch (properties.getMode()) {
+                case FIFO -> properties.getQueueCapacity();
+                case FAIR -> Integer.MAX_VALUE;
+            });
+
+        return new AimdConcurrencyLimiter(properties.getConcurrency(),
+                limit.getMin(),
+                limit.getMax(),
+                limit.getQueueRatio(),
+                limit.getBackoffRatio(),
+                limit.getLatencyTolerance(),
+                limit.getCpuTarget(),
+                limit.getWindow(),
+                meterRegistry);
+    }
+
+    /**
+     * Overrides the pool sizes set by spring.task.execution.pool properties with the ones
+     * derived from {@link SchedulerProperties}, so the pool never rejects before the scheduler does.
+     */
+    @Bean
+    public TaskExecutorCustomizer schedulerSizingCustomizer(SchedulerProperties properties) {
+        return pool -> {
+            pool.setMaxPoolSize(properties.getConcurrency());
+            pool.setCorePoolSize(properties.getConcurrency());
+            pool.setQueueCapacity(executorQueueCapacity(properties));
+        };
+    }
+
+    @Bean
+    public ConcurrencyLimitEndpoint concurrencyLimitEndpoint(ConcurrencyLimiter concurrencyLimiter) {
+        return new ConcurrencyLimitEndpoint(concurrencyLimiter);
+    }
+
+    @Bean
+    public TenantResolver tenantResolver(SchedulerProperties properties) {
+        return new TenantResolver(properties.getTenantClaim());
+    }
+
+    /**
+     * Returns the queue capacity of the executor: the max queue limit of the adaptive limiter
+     * or the capacity of the FIFO queue.
+     */
+    static int executorQueueCapacity(SchedulerProperties properties) {
+        SchedulerProperties.Limit limit = properties.getLimit();
+
+        if (limit.isAdaptive())
+            return (int) Math.ceil(limit.getMax() * limit.getQueueRatio());
+
+        return properties.getQueueCapacity();
+    }
+
+    private static void follow(TaskExecutor taskExecutor, ConcurrencyLimiter limiter) {
+        if (taskExecutor instanceof ThreadPoolTaskExecutor pool) {
+            limiter.addListener(newLimit -> resize(pool, newLimit));
+            resize(pool, limiter.getLimit());
+        } else if (taskExecutor instanceof SemaphoreTaskExecutor semaphoreExecutor) {
+            limiter.addListener(semaphoreExecutor::setMaxConcurrency);
+            semaphoreExecutor.setMaxConcurrency(limiter.getLimit());
+        } else {
+            throw new IllegalStateException("The adaptive concurrency limit can't be applied to %s"
+                    .formatted(taskExecutor.getClass().getName()));
+        }
+    }
+
+    private static void resize(ThreadPoolTaskExecutor pool, int limit) {
+        if (limit > pool.getMaxPoolSize()) {
+            pool.setMaxPoolSize(limit);
+            pool.setCorePoolSize(limit);
+        } else {
+            pool.setCorePoolSize(limit);
+            pool.setMaxPoolSize(limit);
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package com.alexsitiy.script.evaluation.config;
+
+import com.alexsitiy.script.evaluation.executor.SchedulerMode;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * This class holds properties with "script.scheduler" prefix that
+ * configure the order in which scripts of different tenants are run.
+ * <br/>
+ * They are the only source of the executor sizing: the pool size and the queue capacity of
+ * the executor are derived from them, and spring.task.execution.pool sizes are overridden.
+ */
+@ConfigurationProperties(prefix = "script.scheduler")
+public class SchedulerProperties {
+
+    /**
+     * Whether all tenants share one FIFO queue or have their own queues served fairly.
+     */
+    private SchedulerMode mode = SchedulerMode.FIFO;
+
+    /**
+     * The JWT claim that identifies a tenant, e.g. sub or azp.
+     */
+    private String tenantClaim = "sub";
+
+    /**
+     * The max number of scripts running at once, the initial limit of the adaptive limiter.
+     */
+    private int concurrency = 2;
+
+    /**
+     * The max number of scripts waiting in the shared queue in the FIFO mode.
+     */
+    private int queueCapacity = 5;
+
+    /**
+     * The max number of scripts waiting in the queue of a single tenant in the FAIR mode.
+     */
+    private int tenantQueueCapacity = 5;
+
+    /**
+     * The weight of a tenant that is not listed in weights.
+     */
+    private int defaultWeight = 1;
+
+    /**
+     * Weights of specific tenants, a tenant gets as many scripts per round as its weight.
+     */
+    private Map<String, Integer> weights = new HashMap<>();
+
+    private final Limit limit = new Limit();
+
+    public SchedulerMode getMode() {
+        return mode;
+    }
+
+    public void setMode(SchedulerMode mode) {
+        this.mode = mode;
+    }
+
+    public String getTenantClaim() {
+        return tenantClaim;
+    }
+
+    public void setTenantClaim(String tenantClaim) {
+        this.tenantClaim = tenantClaim;
+    }
+
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    public void setConcurrency(int concurrency) {
+        this.concurrency = concurrency;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+
+    public int getTenantQueueCapacity() {
+        return tenantQueueCapacity;
+    }
+
+    public void setTenantQueueCapacity(int tenantQueueCapacity) {
+        this.tenantQueueCapacity = tenantQueueCapacity;
+    }
+
+    public int getDefaultWeight() {
+        return defaultWeight;
+    }
+
+    public void setDefaultWeight(int defaultWeight) {
+        this.defaultWeight = defaultWeight;
+    }
+
+    public Map<String, Integer> getWeights() {
+        return weights;
+    }
+
+    public void setWeights(Map<String, Integer> weights) {
+        this.weights = weights;
+    }
+
+    public Limit getLimit() {
+        return limit;
+    }
+
+    /**
+     * Properties of the adaptive concurrency limit.
+     */
+    public static class Limit {
+
+        /**
+         * Whether the concurrency limit and the queue limit are adjusted at runtime.
+         */
+        private boolean adaptive = false;
+
+        private int min = 1;
+
+        private int max = 8;
+
+        /**
+         * The queue limit is the concurrency limit multiplied by this ratio.
+         */
+        private double queueRatio = 2.5;
+
+        /**
+         * The limit is multiplied by this ratio when the executor is overloaded.
+         */
+        private double backoffRatio = 0.9;
+
+        /**
+         * How many times the recent execution latency can exceed the long-term one
+         * before the limit is decreased.
+         */
+        private double latencyTolerance = 2.0;
+
+        /**
+         * CPU load (0..1) of the container at which the limit is decreased.
+         */
+        private double cpuTarget = 0.85;
+
+        /**
+         * How often the limit can be changed.
+         */
+        private Duration window = Duration.ofSeconds(1);
+
+        public boolean isAdaptive() {
+            return adaptive;
+        }
+
+        public void setAdaptive(boolean adaptive) {
+            this.adaptive = adaptive;
+        }
+
+        public int getMin() {
+            return min;
+        }
+
+        public void setMin(int min) {
+            this.min = min;
+        }
+
+        public int getMax() {
+            return max;
+        }
+
+        public void setMax(int max) {
+            this.max = max;
+        }
+
+        public double getQueueRatio() {
+            return queueRatio;
+        }
+
+        public void setQueueRatio(double queueRatio) {
+            this.queueRatio = queueRatio;
+        }
+
+        public double getBackoffRatio() {
+            return backoffRatio;
+        }
+
+        public void setBackoffRatio(double backoffRatio) {
+            this.backoffRatio = backoffRatio;
+        }
+
+        public double getLatencyTolerance() {
+            return latencyTolerance;
+        }
+
+        public void setLatencyTolerance(double latencyTolerance) {
+            this.latencyTolerance = latencyTolerance;
+        }
+
+        public double getCpuTarget() {
+            return cpuTarget;
+        }
+
+        public void setCpuTarget(double cpuTarget) {
+            this.cpuTarget = cpuTarget;
+        }
+
+        public Duration getWindow() {
+            return window;
+        }
+
+        public void setWindow(Duration window) {
+            this.window = window;
+        }
+    }
+}
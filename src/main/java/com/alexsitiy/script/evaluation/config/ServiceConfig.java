@@ -0,0 +1,95 @@
+package com.alexsitiy.script.evaluation.config;
+
+import com.alexsitiy.script.evaluation.engine.ScriptContextFactory;
+import com.alexsitiy.script.evaluation.engine.SourceCache;
+import com.alexsitiy.script.evaluation.executor.ScriptScheduler;
+import com.alexsitiy.script.evaluation.repository.ScriptRepository;
+import com.alexsitiy.script.evaluation.service.BudgetWatchdog;
+import com.alexsitiy.script.evaluation.service.OverflowDispatcher;
+import com.alexsitiy.script.evaluation.service.ResultMemo;
+import com.alexsitiy.script.evaluation.service.ResultStreamer;
+import com.alexsitiy.script.evaluation.service.RetentionSweeper;
+import com.alexsitiy.script.evaluation.service.ScriptIdGenerator;
+import com.alexsitiy.script.evaluation.service.ScriptService;
+import com.alexsitiy.script.evaluation.storage.OutputSpiller;
+import com.alexsitiy.script.evaluation.storage.OverflowQueue;
+import com.alexsitiy.script.evaluation.storage.ScriptJournal;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * This configuration class creates helpers which are used by
+ * {@link com.alexsitiy.script.evaluation.service.ScriptService}.
+ */
+@Configuration
+@EnableConfigurationProperties({MemoProperties.class, StreamProperties.class, RetentionProperties.class, IdProperties.class})
+public class ServiceConfig {
+
+    @Bean
+    public ScriptIdGenerator scriptIdGenerator(IdProperties properties) {
+        return new ScriptIdGenerator(properties.getNodeId());
+    }
+
+    @Bean
+    public ResultMemo resultMemo(MemoProperties properties, ScriptIdGenerator idGenerator, MeterRegistry meterRegistry) {
+        return new ResultMemo(properties.getMaxSize(), idGenerator, meterRegistry);
+    }
+
+    @Bean
+    public BudgetWatchdog budgetWatchdog(EngineProperties properties, MeterRegistry meterRegistry) {
+        return new BudgetWatchdog(properties.getBudget().getCheckInterval(), meterRegistry);
+    }
+
+    @Bean
+    public ResultStreamer resultStreamer(StreamProperties properties, MeterRegistry meterRegistry) {
+        return new ResultStreamer(properties.getTimeout(),
+                properties.getDispatchThreads(),
+                properties.getBufferSize(),
+                meterRegistry);
+    }
+
+    @Bean
+    public RetentionSweeper retentionSweeper(RetentionProperties properties,
+                                             ScriptRepository scriptRepository,
+                                             OutputSpiller outputSpiller,
+                                             ScriptJournal scriptJournal,
+                                             ResultMemo resultMemo,
+                                             MeterRegistry meterRegistry) {
+        return new RetentionSweeper(scriptRepository,
+                outputSpiller,
+                scriptJournal,
+                resultMemo,
+                properties.getMaxAge(),
+                properties.getMaxCount(),
+                properties.getMaxOutputSize().toBytes(),
+                properties.getOrder(),
+                properties.getSweepInterval(),
+                meterRegistry);
+    }
+
+    @Bean
+    public OverflowDispatcher overflowDispatcher(StorageProperties properties,
+                                                 OverflowQueue overflowQueue,
+                                                 ScriptScheduler scriptScheduler,
+                                                 ScriptContextFactory contextFactory,
+                                                 SourceCache sourceCache,
+                                                 MeterRegistry meterRegistry) {
+        return new OverflowDispatcher(overflowQueue,
+                scriptScheduler,
+                contextFactory,
+                sourceCache,
+                properties.getOverflow().getPollInterval(),
+                meterRegistry);
+    }
+
+    /**
+     * Recovers the scripts recorded before the restart once the app is started.
+     */
+    @Bean
+    public ApplicationRunner scriptRecovery(ScriptService scriptService, StorageProperties properties) {
+        return args -> scriptService.recover(properties.getJournal().getRecovery());
+    }
+}
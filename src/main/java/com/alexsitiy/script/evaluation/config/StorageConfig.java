@@ -0,0 +1,50 @@
+package com.alexsitiy.script.evaluation.config;
+
+import com.alexsitiy.script.evaluation.storage.FileScriptJournal;
+import com.alexsitiy.script.evaluation.storage.NoOpScriptJournal;
+import com.alexsitiy.script.evaluation.storage.OutputSpiller;
+import com.alexsitiy.script.evaluation.storage.OverflowQueue;
+import com.alexsitiy.script.evaluation.storage.ScriptJournal;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * This configuration class creates the components which keep the data of scripts
+ * on local disk in accordance with {@link StorageProperties}.
+ */
+@Configuration
+@EnableConfigurationProperties(StorageProperties.class)
+public class StorageConfig {
+
+    @Bean
+    public OutputSpiller outputSpiller(StorageProperties properties, MeterRegistry meterRegistry) {
+        StorageProperties.Output output = properties.getOutput();
+        return new OutputSpiller(properties.getDirectory().resolve("output"),
+                output.getMemoryBudget().toBytes(),
+                output.getSegmentSize().toBytes(),
+                meterRegistry);
+    }
+
+    @Bean
+    public ScriptJournal scriptJournal(StorageProperties properties, MeterRegistry meterRegistry) {
+        StorageProperties.Journal journal = properties.getJournal();
+
+        if (!journal.isEnabled())
+            return new NoOpScriptJournal();
+
+        return new FileScriptJournal(properties.getDirectory().resolve("journal"),
+                journal.getCompactionThreshold().toBytes(),
+                meterRegistry);
+    }
+
+    @Bean
+    public OverflowQueue overflowQueue(StorageProperties properties, MeterRegistry meterRegistry) {
+        StorageProperties.Overflow overflow = properties.getOverflow();
+
+        return new OverflowQueue(properties.getDirectory().resolve("overflow").resolve("queue.bin"),
+                overflow.isEnabled() ? overflow.getMaxDepth() : 0,
+                meterRegistry);
+    }
+}
@@ -0,0 +1,169 @@
+package com.alexsitiy.script.evaluation.config;
+
+import com.alexsitiy.script.evaluation.storage.RecoveryMode;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * This class holds properties with "script.storage" prefix that
+ * configure how the data of scripts is kept on local disk.
+ */
+@ConfigurationProperties(prefix = "script.storage")
+public class StorageProperties {
+
+    /**
+     * The directory the files are kept in.
+     */
+    private Path directory = Path.of(System.getProperty("java.io.tmpdir"), "script-evaluation");
+
+    private final Output output = new Output();
+
+    private final Journal journal = new Journal();
+
+    private final Overflow overflow = new Overflow();
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    public void setDirectory(Path directory) {
+        this.directory = directory;
+    }
+
+    public Output getOutput() {
+        return output;
+    }
+
+    public Journal getJournal() {
+        return journal;
+    }
+
+    public Overflow getOverflow() {
+        return overflow;
+    }
+
+    /**
+     * Properties of spilling the output of finished scripts.
+     */
+    public static class Output {
+
+        /**
+         * The max size of the output of all scripts kept in memory.
+         */
+        private DataSize memoryBudget = DataSize.ofMegabytes(64);
+
+        /**
+         * The max size of a segment file the output is spilled to.
+         */
+        private DataSize segmentSize = DataSize.ofMegabytes(64);
+
+        public DataSize getMemoryBudget() {
+            return memoryBudget;
+        }
+
+        public void setMemoryBudget(DataSize memoryBudget) {
+            this.memoryBudget = memoryBudget;
+        }
+
+        public DataSize getSegmentSize() {
+            return segmentSize;
+        }
+
+        public void setSegmentSize(DataSize segmentSize) {
+            this.segmentSize = segmentSize;
+        }
+    }
+
+    /**
+     * Properties of the journal the scripts are recorded to, so they survive the restart.
+     */
+    public static class Journal {
+
+        /**
+         * Whether the scripts are recorded to the journal.
+         */
+        private boolean enabled = false;
+
+        /**
+         * The way the scripts that were in flight before the restart are recovered.
+         */
+        private RecoveryMode recovery = RecoveryMode.INTERRUPT;
+
+        /**
+         * The size of the journal that triggers writing a snapshot and truncating the journal.
+         */
+        private DataSize compactionThreshold = DataSize.ofMegabytes(64);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public RecoveryMode getRecovery() {
+            return recovery;
+        }
+
+        public void setRecovery(RecoveryMode recovery) {
+            this.recovery = recovery;
+        }
+
+        public DataSize getCompactionThreshold() {
+            return compactionThreshold;
+        }
+
+        public void setCompactionThreshold(DataSize compactionThreshold) {
+            this.compactionThreshold = compactionThreshold;
+        }
+    }
+
+    /**
+     * Properties of the queue the scripts wait in once the queue of the executor is full.
+     */
+    public static class Overflow {
+
+        /**
+         * Whether the scripts wait in the overflow queue instead of being rejected.
+         */
+        private boolean enabled = false;
+
+        /**
+         * The max number of scripts in the overflow queue.
+         */
+        private int maxDepth = 10_000;
+
+        /**
+         * The interval of moving the waiting scripts to the queue of the executor.
+         */
+        private Duration pollInterval = Duration.ofMillis(50);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getMaxDepth() {
+            return maxDepth;
+        }
+
+        public void setMaxDepth(int maxDepth) {
+            this.maxDepth = maxDepth;
+        }
+
+        public Duration getPollInterval() {
+            return pollInterval;
+        }
+
+        public void setPollInterval(Duration pollInterval) {
+            this.pollInterval = pollInterval;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.alexsitiy.script.evaluation.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * This class holds properties with "script.stream" prefix that
+ * configure streaming the output of scripts via Server-Sent Events.
+ */
+@ConfigurationProperties(prefix = "script.stream")
+public class StreamProperties {
+
+    /**
+     * The max time a stream is kept open.
+     */
+    private Duration timeout = Duration.ofMinutes(5);
+
+    /**
+     * The number of threads that send new lines to the streams.
+     */
+    private int dispatchThreads = 2;
+
+    /**
+     * The max number of events waiting to be sent to a single client,
+     * the stream of a client that falls behind further is completed.
+     */
+    private int bufferSize = 256;
+
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    public void setTimeout(Duration timeout) {
+        this.timeout = timeout;
+    }
+
+    public int getDispatchThreads() {
+        return dispatchThreads;
+    }
+
+    public void setDispatchThreads(int dispatchThreads) {
+        this.dispatchThreads = dispatchThreads;
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    public void setBufferSize(int bufferSize) {
+        this.bufferSize = bufferSize;
+    }
+}
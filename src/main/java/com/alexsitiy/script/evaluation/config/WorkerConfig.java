@@ -0,0 +1,32 @@
+package com.alexsitiy.script.evaluation.config;
+
+import com.alexsitiy.script.evaluation.worker.WorkerMain;
+import com.alexsitiy.script.evaluation.worker.WorkerPool;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * This configuration class creates {@link WorkerPool} in accordance with {@link WorkerProperties},
+ * so {@link com.alexsitiy.script.evaluation.service.ScriptService} evaluates the scripts in worker JVMs.
+ * It's applied only when script.worker.enabled is true.
+ */
+@Configuration
+@EnableConfigurationProperties(WorkerProperties.class)
+@ConditionalOnProperty(prefix = "script.worker", name = "enabled", havingValue = "true")
+public class WorkerConfig {
+
+    @Bean
+    public WorkerPool workerPool(WorkerProperties properties, StorageProperties storageProperties, MeterRegistry meterRegistry) {
+        return new WorkerPool(properties.getCount(),
+                WorkerMain.command(properties.getHeapSize().toBytes(), properties.getJvmOptions()),
+                storageProperties.getDirectory().resolve("workers"),
+                properties.getMaxScripts(),
+                properties.getMaxHeapUsage().toBytes(),
+                properties.getStartTimeout(),
+                properties.getCancelTimeout(),
+                meterRegistry);
+    }
+}
@@ -0,0 +1,120 @@
+package com.alexsitiy.script.evaluation.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class holds properties with "script.worker" prefix that
+ * configure the pool of worker JVMs the scripts are evaluated in.
+ */
+@ConfigurationProperties(prefix = "script.worker")
+public class WorkerProperties {
+
+    /**
+     * Whether the scripts are evaluated in worker JVMs rather than in the JVM of the app.
+     */
+    private boolean enabled = false;
+
+    /**
+     * The number of workers, it's also the max number of scripts executing at a time.
+     */
+    private int count = 2;
+
+    /**
+     * The number of scripts after which a worker is restarted.
+     */
+    private int maxScripts = 1000;
+
+    /**
+     * The heap usage of a worker after GC above which it's restarted.
+     */
+    private DataSize maxHeapUsage = DataSize.ofMegabytes(256);
+
+    /**
+     * The max heap size of a worker.
+     */
+    private DataSize heapSize = DataSize.ofMegabytes(512);
+
+    /**
+     * Other options of the worker JVMs.
+     */
+    private List<String> jvmOptions = new ArrayList<>();
+
+    /**
+     * The max time a worker may take to start.
+     */
+    private Duration startTimeout = Duration.ofSeconds(30);
+
+    /**
+     * The max time a worker may take to stop a cancelled script before it's killed.
+     */
+    private Duration cancelTimeout = Duration.ofSeconds(5);
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public void setCount(int count) {
+        this.count = count;
+    }
+
+    public int getMaxScripts() {
+        return maxScripts;
+    }
+
+    public void setMaxScripts(int maxScripts) {
+        this.maxScripts = maxScripts;
+    }
+
+    public DataSize getMaxHeapUsage() {
+        return maxHeapUsage;
+    }
+
+    public void setMaxHeapUsage(DataSize maxHeapUsage) {
+        this.maxHeapUsage = maxHeapUsage;
+    }
+
+    public DataSize getHeapSize() {
+        return heapSize;
+    }
+
+    public void setHeapSize(DataSize heapSize) {
+        this.heapSize = heapSize;
+    }
+
+    public List<String> getJvmOptions() {
+        return jvmOptions;
+    }
+
+    public void setJvmOptions(List<String> jvmOptions) {
+        this.jvmOptions = jvmOptions;
+    }
+
+    public Duration getStartTimeout() {
+        return startTimeout;
+    }
+
+    public void setStartTimeout(Duration startTimeout) {
+        this.startTimeout = startTimeout;
+    }
+
+    public Duration getCancelTimeout() {
+        return cancelTimeout;
+    }
+
+    public void setCancelTimeout(Duration cancelTimeout) {
+        this.cancelTimeout = cancelTimeout;
+    }
+}
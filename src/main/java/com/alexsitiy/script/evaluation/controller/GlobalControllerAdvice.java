@@ -3,9 +3,13 @@ package com.alexsitiy.script.evaluation.controller;
 import com.alexsitiy.script.evaluation.dto.ValidationErrorResponse;
 import com.alexsitiy.script.evaluation.exception.CapacityViolationException;
 import com.alexsitiy.script.evaluation.exception.IllegalScriptStateException;
+import com.alexsitiy.script.evaluation.exception.InvalidCursorException;
 import com.alexsitiy.script.evaluation.exception.NoSuchScriptException;
+import com.alexsitiy.script.evaluation.exception.NodeUnavailableException;
+import com.alexsitiy.script.evaluation.exception.ScriptExpiredException;
 import com.alexsitiy.script.evaluation.exception.ScriptNotValidException;
 import jakarta.validation.ConstraintViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ProblemDetail;
@@ -13,6 +17,9 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
 /**
  * This class is used for handling exceptions which can occur during processing
  * user's request and return an appropriate response with mediaType: application/problem+json.
@@ -22,6 +29,8 @@ import org.springframework.web.bind.annotation.ExceptionHandler;
 @ControllerAdvice
 public class GlobalControllerAdvice {
 
+    private static final double MAX_BACKOFF_JITTER = 0.5;
+
     /**
      * Handles {@linkplain NoSuchScriptException} that can occur when
      * no script was found by a specified id. Returns 404(NOT_FOUND)
@@ -38,6 +47,22 @@ public class GlobalControllerAdvice {
         return problemDetail;
     }
 
+    /**
+     * Handles {@linkplain ScriptExpiredException} that can occur when
+     * the script with a specified id was evicted by the retention policy. Returns 410(GONE)
+     *
+     * @param e ScriptExpiredException that need to be solved.
+     * @return {@linkplain ProblemDetail} - representation of the response with 410 status code.
+     */
+    @ExceptionHandler(ScriptExpiredException.class)
+    public ProblemDetail handleScriptExpiredException(ScriptExpiredException e) {
+        ProblemDetail problemDetail = ProblemDetail.forStatusAndDetail(HttpStatus.GONE, e.getMessage());
+        problemDetail.setTitle("Script Expired");
+        problemDetail.setProperty("scriptId", e.getId());
+
+        return problemDetail;
+    }
+
     /**
      * Handles {@linkplain IllegalStateException} that can occur when
      * user trys to delete script that has not finished yet. Returns 405(METHOD_NOT_ALLOWED).
@@ -56,13 +81,30 @@ public class GlobalControllerAdvice {
     /**
      * Handles {@linkplain CapacityViolationException} that can occur when
      * user makes too many request to evaluating scripts. Returns 429(TOO-MANY_REQUESTS).
+     * <br/>
+     * It sets Retry-After header to the estimated wait in seconds and adds the estimated wait
+     * and a jittered backoff hint in milliseconds to the problem detail, so clients don't retry all at once.
      *
      * @param e CapacityViolationException that need to be solved.
      * @return {@linkplain ProblemDetail} - representation of the response with 429 status code.
      */
     @ExceptionHandler(CapacityViolationException.class)
-    public ProblemDetail handleCapacityViolationException(CapacityViolationException e) {
-        return ProblemDetail.forStatusAndDetail(HttpStatus.TOO_MANY_REQUESTS, e.getMessage());
+    public ResponseEntity<ProblemDetail> handleCapacityViolationException(CapacityViolationException e) {
+        Duration estimatedWait = e.getEstimatedWait();
+        long retryAfterSeconds = Math.max(1, (estimatedWait.toMillis() + 999) / 1000);
+        long backoffMillis = (long) (Math.max(estimatedWait.toMillis(), 1000)
+                                     * (1 + ThreadLocalRandom.current().nextDouble(MAX_BACKOFF_JITTER)));
+
+        ProblemDetail problemDetail = ProblemDetail.forStatusAndDetail(HttpStatus.TOO_MANY_REQUESTS, e.getMessage());
+        problemDetail.setTitle("Too Many Requests");
+        problemDetail.setProperty("estimatedWaitMillis", estimatedWait.toMillis());
+        problemDetail.setProperty("backoffHintMillis", backoffMillis);
+
+        return ResponseEntity
+                .status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                .contentType(MediaType.APPLICATION_PROBLEM_JSON)
+                .body(problemDetail);
     }
 
     /**
@@ -77,6 +119,37 @@ public class GlobalControllerAdvice {
         return ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, e.getMessage());
     }
 
+    /**
+     * Handles {@linkplain InvalidCursorException} that can occur when
+     * user passes a malformed page cursor. Returns 400(BAD_REQUEST).
+     *
+     * @param e InvalidCursorException that need to be solved.
+     * @return {@linkplain ProblemDetail} - representation of the response with 400 status code.
+     */
+    @ExceptionHandler(InvalidCursorException.class)
+    public ProblemDetail handleInvalidCursorException(InvalidCursorException e) {
+        ProblemDetail problemDetail = ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, e.getMessage());
+        problemDetail.setTitle("Invalid Cursor");
+
+        return problemDetail;
+    }
+
+    /**
+     * Handles {@linkplain NodeUnavailableException} that can occur when
+     * another node of the cluster couldn't serve user's request. Returns 503(SERVICE_UNAVAILABLE).
+     *
+     * @param e NodeUnavailableException that need to be solved.
+     * @return {@linkplain ProblemDetail} - representation of the response with 503 status code.
+     */
+    @ExceptionHandler(NodeUnavailableException.class)
+    public ProblemDetail handleNodeUnavailableException(NodeUnavailableException e) {
+        ProblemDetail problemDetail = ProblemDetail.forStatusAndDetail(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage());
+        problemDetail.setTitle("Node Unavailable");
+        problemDetail.setProperty("nodeId", e.getNodeId());
+
+        return problemDetail;
+    }
+
     /**
      * Handles {@linkplain ConstraintViolationException} that can occur when
      * user's request didn't pass the validation. Returns 400(BAD_REQUEST).
@@ -1,17 +1,33 @@
 package com.alexsitiy.script.evaluation.controller;
 
+import com.alexsitiy.script.evaluation.cluster.ScriptCluster;
 import com.alexsitiy.script.evaluation.doc.ScriptController;
+import com.alexsitiy.script.evaluation.doc.annotation.EvaluateAllApiEndpoint;
 import com.alexsitiy.script.evaluation.doc.annotation.EvaluateApiEndpoint;
+import com.alexsitiy.script.evaluation.dto.BatchEvaluationDto;
 import com.alexsitiy.script.evaluation.dto.ScriptReadDto;
+import com.alexsitiy.script.evaluation.exception.CapacityViolationException;
 import com.alexsitiy.script.evaluation.mapper.ScriptReadMapper;
+import com.alexsitiy.script.evaluation.model.OutputLines;
 import com.alexsitiy.script.evaluation.model.Script;
+import com.alexsitiy.script.evaluation.model.SpilledOutput;
 import com.alexsitiy.script.evaluation.model.Status;
+import com.alexsitiy.script.evaluation.repository.ScriptPage;
 import com.alexsitiy.script.evaluation.repository.ScriptRepository;
+import com.alexsitiy.script.evaluation.service.ResultStreamer;
 import com.alexsitiy.script.evaluation.service.ScriptService;
+import com.alexsitiy.script.evaluation.service.ScriptService.Admission;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.PositiveOrZero;
+import jakarta.validation.constraints.Size;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.IanaLinkRelations;
 import org.springframework.hateoas.Link;
 import org.springframework.hateoas.NonComposite;
 import org.springframework.hateoas.server.EntityLinks;
@@ -19,11 +35,17 @@ import org.springframework.hateoas.server.ExposesResourceFor;
 import org.springframework.hateoas.server.mvc.WebMvcLinkBuilder;
 import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.RequestAttributes;
 import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
 
@@ -45,6 +67,10 @@ import java.util.Set;
  * <br/>
  * 7. Deletes already finished script by its id.
  * <br/>
+ * 8. Evaluates a batch of JavaScript codes.
+ * <br/>
+ * 9. Streams script's result by script's id.
+ * <br/>
  * This controller uses {@link EntityLinks} and {@linkplain org.springframework.hateoas.server.mvc.RepresentationModelAssemblerSupport} to
  * build appropriate HATEOAS links in representations and Link headers. It also
  * implements {@link ScriptController} interface for creating Swagger API documentation in declarative way.
@@ -63,15 +89,30 @@ import java.util.Set;
 @Validated
 public class ScriptRestController implements ScriptController {
 
+    private static final int MAX_BATCH_SIZE = 1000;
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final String RESULT_CURSOR_HEADER = "X-Result-Cursor";
+    private static final MediaType TEXT_PLAIN_UTF8 = new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8);
+    private static final String SENDFILE_SUPPORT_ATTRIBUTE = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME_ATTRIBUTE = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START_ATTRIBUTE = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END_ATTRIBUTE = "org.apache.tomcat.sendfile.end";
+
     private final ScriptService scriptService;
     private final ScriptReadMapper scriptReadMapper;
+    private final ResultStreamer resultStreamer;
+    private final ScriptCluster scriptCluster;
 
 
     @Autowired
     public ScriptRestController(ScriptService scriptService,
-                                ScriptReadMapper scriptReadMapper) {
+                                ScriptReadMapper scriptReadMapper,
+                                ResultStreamer resultStreamer,
+                                ScriptCluster scriptCluster) {
         this.scriptService = scriptService;
         this.scriptReadMapper = scriptReadMapper;
+        this.resultStreamer = resultStreamer;
+        this.scriptCluster = scriptCluster;
     }
 
     /**
@@ -92,12 +133,20 @@ public class ScriptRestController implements ScriptController {
      * 6. SCHEDULED - sorts by script's scheduled time (desc).
      * <br/>
      * Filtering available values: COMPLETED,FAILED,INTERRUPTED,EXECUTING,IN_QUEUE.
+     * <br/>
+     * If limit is passed, only one page of at most limit scripts is returned and the order is made total by the id.
+     * The page comes after or before the opaque cursor that is taken from next and prev links of another page.
+     * <br/>
+     * If the app runs as a cluster, the scripts of all the nodes are gathered via {@link ScriptCluster} and merged.
      * <p/>
      * After getting the List of scripts adds HATEOAS link to each of them via {@link ScriptReadMapper}
      * that expands {@link org.springframework.hateoas.server.mvc.RepresentationModelAssemblerSupport}.
      *
      * @param statuses List of {@link Status} that is used for filtering scripts.
      * @param sorts    List of String that is used for sorting scripts.
+     * @param limit    the max number of scripts on the page.
+     * @param cursor   the cursor of the page, it's used only with limit.
+     * @param request  it's used for gathering the scripts from other nodes with the same query.
      * @return {@link CollectionModel} that is used for HATEOAS representation of the collection,
      * it comprises {@link ScriptReadDto}. Also returns 200(OK) status code.
      * @see ScriptRepository
@@ -106,16 +155,43 @@ public class ScriptRestController implements ScriptController {
     public CollectionModel<ScriptReadDto> findAll(@NonComposite
                                                   @RequestParam(value = "statuses", required = false) Set<Status> statuses,
                                                   @NonComposite
-                                                  @RequestParam(value = "sorts", required = false) List<String> sorts) {
+                                                  @RequestParam(value = "sorts", required = false) List<String> sorts,
+                                                  @Positive
+                                                  @Max(MAX_PAGE_SIZE)
+                                                  @RequestParam(value = "limit", required = false) Integer limit,
+                                                  @RequestParam(value = "cursor", required = false) String cursor,
+                                                  HttpServletRequest request) {
+        Link evaluateLink = WebMvcLinkBuilder.linkTo(WebMvcLinkBuilder.methodOn(ScriptRestController.class)
+                .evaluate(null, false, null, null)).withRel("evaluate").withType("POST").withTitle("Evaluates a given JavaScript code");
+
+        if (limit == null) {
+            List<ScriptReadDto> scriptReadDtoList = scriptService.findAll(statuses, sorts).stream()
+                    .map(scriptReadMapper::toModel)
+                    .toList();
+            if (scriptCluster.isClusterWide(request))
+                scriptReadDtoList = withLinks(scriptCluster.findAll(scriptReadDtoList, sorts, request));
+
+            return CollectionModel.of(scriptReadDtoList, evaluateLink);
+        }
 
-        List<ScriptReadDto> scriptReadDtoList = scriptService.findAll(statuses, sorts).stream()
+        ScriptPage<Script> localPage = scriptService.findPage(statuses, sorts, limit, cursor);
+        ScriptPage<ScriptReadDto> page = new ScriptPage<>(localPage.scripts().stream()
                 .map(scriptReadMapper::toModel)
-                .toList();
+                .toList(), localPage.nextCursor(), localPage.prevCursor());
+        if (scriptCluster.isClusterWide(request)) {
+            page = scriptCluster.findPage(page, sorts, limit, cursor, request);
+            page = new ScriptPage<>(withLinks(page.scripts()), page.nextCursor(), page.prevCursor());
+        }
 
-        Link link = WebMvcLinkBuilder.linkTo(WebMvcLinkBuilder.methodOn(ScriptRestController.class)
-                .evaluate(null)).withRel("evaluate").withType("POST").withTitle("Evaluates a given JavaScript code");
+        CollectionModel<ScriptReadDto> collectionModel = CollectionModel.of(page.scripts(), evaluateLink);
+        if (page.nextCursor() != null)
+            collectionModel.add(WebMvcLinkBuilder.linkTo(WebMvcLinkBuilder.methodOn(ScriptRestController.class)
+                    .findAll(statuses, sorts, limit, page.nextCursor(), null)).withRel(IanaLinkRelations.NEXT));
+        if (page.prevCursor() != null)
+            collectionModel.add(WebMvcLinkBuilder.linkTo(WebMvcLinkBuilder.methodOn(ScriptRestController.class)
+                    .findAll(statuses, sorts, limit, page.prevCursor(), null)).withRel(IanaLinkRelations.PREV));
 
-        return CollectionModel.of(scriptReadDtoList, link);
+        return collectionModel;
     }
 
     /**
@@ -133,7 +209,7 @@ public class ScriptRestController implements ScriptController {
      * @see ScriptRepository
      */
     @GetMapping("/{id}")
-    public ResponseEntity<ScriptReadDto> findById(@PathVariable Integer id,
+    public ResponseEntity<ScriptReadDto> findById(@PathVariable Long id,
                                                   WebRequest request) {
         Script script = scriptService.findById(id);
 
@@ -160,7 +236,7 @@ public class ScriptRestController implements ScriptController {
      * @see ScriptRepository
      */
     @GetMapping(value = "/{id}/body", produces = {"text/plain"})
-    public ResponseEntity<String> getBody(@PathVariable Integer id, WebRequest request) {
+    public ResponseEntity<String> getBody(@PathVariable Long id, WebRequest request) {
         Script script = scriptService.findById(id);
 
         if (request.checkNotModified(String.valueOf(script.getBody().hashCode())))
@@ -177,17 +253,34 @@ public class ScriptRestController implements ScriptController {
      * Finds Script's result by script's id. And returns it if exists.
      * It also adds HATEOAS self link to Link header via {@link EntityLinks}.
      * <br/>
+     * The result can be read incrementally: since returns only the lines whose sequence number is not less
+     * than the given one and tail returns at most the given number of the last lines, both can be combined.
+     * X-Result-Cursor header includes the sequence number of the next line, so it can be passed as since
+     * by the next request.
+     * <br/>
      * It includes caching, It caches the response via Cache-Control and Last-Modified headers if script
      * has already finished and validates the cache everytime to ensure that script with a specified id still exists and was not deleted.
+     * If the output of the finished script was spilled to disk, the whole result is sent straight
+     * from the file via the container's sendfile support when it's available.
+     * <br/>
+     * If script is still running, the response is cached via weak ETag that is changed on every write to the result
+     * or status transition, so polling returns 304(NOT_MODIFIED) without reading the result when nothing was written.
      *
      * @param id      script's id
+     * @param since   the sequence number of the first line to be returned.
+     * @param tail    the max number of the last lines to be returned.
      * @param request it's used for cache validation, setting ETag header and returning 304(NOT-MODIFIED)
      *                status if cache is valid.
      * @return {@link String} that is representation of the script's result with 200(OK) or 304(NOT_MODIFIED) if cache is valid.
      * @see ScriptRepository
      */
     @GetMapping(value = "/{id}/result", produces = {"text/plain"})
-    public ResponseEntity<String> getResult(@PathVariable Integer id, WebRequest request) {
+    public ResponseEntity<String> getResult(@PathVariable Long id,
+                                            @PositiveOrZero
+                                            @RequestParam(value = "since", required = false) Long since,
+                                            @Positive
+                                            @RequestParam(value = "tail", required = false) Integer tail,
+                                            WebRequest request) {
         Script script = scriptService.findById(id);
 
         String selfLink = scriptReadMapper.getSelfLink(id);
@@ -195,17 +288,91 @@ public class ScriptRestController implements ScriptController {
             if (request.checkNotModified(script.getLastModified().toEpochMilli()))
                 return null;
 
+            SpilledOutput spilled = script.getSpilledResult();
+            if (spilled != null && since == null && tail == null && isSendfileSupported(request)) {
+                sendfile(spilled, request);
+
+                return ResponseEntity
+                        .ok()
+                        .header(HttpHeaders.LINK, selfLink)
+                        .header(RESULT_CURSOR_HEADER, String.valueOf(spilled.firstSequence() + spilled.lineEnds().length))
+                        .cacheControl(CacheControl.noCache().cachePrivate())
+                        .contentType(TEXT_PLAIN_UTF8)
+                        .contentLength(spilled.length())
+                        .build();
+            }
+
+            OutputLines output = readResult(script, since, tail);
             return ResponseEntity
                     .ok()
                     .header(HttpHeaders.LINK, selfLink)
+                    .header(RESULT_CURSOR_HEADER, String.valueOf(output.nextSequence()))
                     .cacheControl(CacheControl.noCache().cachePrivate())
-                    .body(script.getResult());
+                    .body(output.toText());
         }
 
+        // the version is read before the lines, so the ETag can only be older than the body
+        String eTag = "W/\"%d-%s\"".formatted(script.getResultVersion(), script.getStatus());
+        if (request.checkNotModified(eTag))
+            return null;
+
+        OutputLines output = readResult(script, since, tail);
         return ResponseEntity
                 .ok()
                 .header(HttpHeaders.LINK, selfLink)
-                .body(script.getResult());
+                .header(RESULT_CURSOR_HEADER, String.valueOf(output.nextSequence()))
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .body(output.toText());
+    }
+
+    /**
+     * Adds self links to the scripts that were found on other nodes, the links point to this node.
+     */
+    private List<ScriptReadDto> withLinks(List<ScriptReadDto> scripts) {
+        return scripts.stream()
+                .map(script -> script.hasLinks() ? script : scriptReadMapper.withSelfLink(script))
+                .toList();
+    }
+
+    private static boolean isSendfileSupported(WebRequest request) {
+        return Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST));
+    }
+
+    /**
+     * Asks the servlet container to send the region of the file directly from the file system cache.
+     */
+    private static void sendfile(SpilledOutput spilled, WebRequest request) {
+        request.setAttribute(SENDFILE_FILENAME_ATTRIBUTE, spilled.file().toAbsolutePath().toString(), RequestAttributes.SCOPE_REQUEST);
+        request.setAttribute(SENDFILE_START_ATTRIBUTE, spilled.offset(), RequestAttributes.SCOPE_REQUEST);
+        request.setAttribute(SENDFILE_END_ATTRIBUTE, spilled.offset() + spilled.length(), RequestAttributes.SCOPE_REQUEST);
+    }
+
+    private static OutputLines readResult(Script script, Long since, Integer tail) {
+        if (since == null)
+            return tail == null ? script.getResultSince(0) : script.getResultTail(tail);
+
+        OutputLines output = script.getResultSince(since);
+        return tail == null ? output : output.last(tail);
+    }
+
+    /**
+     * Streams Script's result by script's id via Server-Sent Events, so the new lines are pushed
+     * as the script writes them instead of polling the whole result. The stream ends with
+     * the final status of the script.
+     * <br/>
+     * If Last-Event-ID header is passed, the stream is resumed from the line after the given one.
+     *
+     * @param id          script's id
+     * @param lastEventId the sequence number of the last line the client has received.
+     * @return {@link SseEmitter} that sends "line" events and the final "status" event.
+     * @see ResultStreamer
+     */
+    @GetMapping(value = "/{id}/result/stream", produces = {"text/event-stream"})
+    public SseEmitter streamResult(@PathVariable Long id,
+                                   @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        Script script = scriptService.findById(id);
+
+        return resultStreamer.stream(script, lastEventId == null ? 0 : lastEventId + 1);
     }
 
     /**
@@ -213,8 +380,16 @@ public class ScriptRestController implements ScriptController {
      * {@link NotBlank}.
      * Returns {@link ScriptReadDto} that includes HATEOAS links
      * to related resources.
+     * <br/>
+     * If X-Script-Deterministic header is true, the output of the previous run of the same code
+     * is reused or the script is attached to the run that is still in progress.
+     * <br/>
+     * X-Script-Statement-Limit and X-Script-Time-Limit headers can lower the default budget of the script.
      *
-     * @param jsCode JavaScript code that need to be evaluated.
+     * @param jsCode          JavaScript code that need to be evaluated.
+     * @param deterministic   whether the same code always produces the same output.
+     * @param statementLimit  the max number of statements the script can execute.
+     * @param timeLimitMillis the max time in milliseconds the script can execute.
      * @return {@link ScriptReadDto} - that is a representation with HATEOAS links.
      * It also returns 202(ACCEPTED) status code.
      * @see ScriptService
@@ -223,14 +398,74 @@ public class ScriptRestController implements ScriptController {
     @PostMapping
     @EvaluateApiEndpoint
     public ResponseEntity<ScriptReadDto> evaluate(@NotBlank
-                                                  @RequestBody String jsCode) {
-        Script script = scriptService.evaluate(jsCode);
+                                                  @RequestBody String jsCode,
+                                                  @RequestHeader(value = "X-Script-Deterministic", defaultValue = "false")
+                                                  boolean deterministic,
+                                                  @Positive
+                                                  @RequestHeader(value = "X-Script-Statement-Limit", required = false)
+                                                  Long statementLimit,
+                                                  @Positive
+                                                  @RequestHeader(value = "X-Script-Time-Limit", required = false)
+                                                  Long timeLimitMillis) {
+        Duration timeLimit = timeLimitMillis == null ? null : Duration.ofMillis(timeLimitMillis);
+        Script script = scriptService.evaluate(jsCode, deterministic, statementLimit, timeLimit);
 
         return ResponseEntity
                 .status(202)
                 .body(scriptReadMapper.toModel(script));
     }
 
+    /**
+     * Sends the given JavaScript codes to evaluation in one request. The codes are parsed in parallel and
+     * each of them is admitted on its own, so a script that has syntax errors or doesn't fit the capacity
+     * is reported in its item and doesn't fail the others.
+     * <br/>
+     * Returns compact {@link BatchEvaluationDto} without HATEOAS links. If some scripts were rejected due to
+     * capacity, Retry-After header includes the longest estimated wait in seconds.
+     *
+     * @param jsCodes         JavaScript codes that need to be evaluated, from 1 to 1000.
+     * @param deterministic   whether the same code always produces the same output.
+     * @param statementLimit  the max number of statements each script can execute.
+     * @param timeLimitMillis the max time in milliseconds each script can execute.
+     * @return {@link BatchEvaluationDto} with the items in the order of the given codes.
+     * It also returns 202(ACCEPTED) status code.
+     * @see ScriptService
+     */
+    @PostMapping(value = "/batch", consumes = {"application/json"})
+    @EvaluateAllApiEndpoint
+    public ResponseEntity<BatchEvaluationDto> evaluateAll(@NotEmpty
+                                                          @Size(max = MAX_BATCH_SIZE)
+                                                          @RequestBody List<@NotBlank String> jsCodes,
+                                                          @RequestHeader(value = "X-Script-Deterministic", defaultValue = "false")
+                                                          boolean deterministic,
+                                                          @Positive
+                                                          @RequestHeader(value = "X-Script-Statement-Limit", required = false)
+                                                          Long statementLimit,
+                                                          @Positive
+                                                          @RequestHeader(value = "X-Script-Time-Limit", required = false)
+                                                          Long timeLimitMillis) {
+        Duration timeLimit = timeLimitMillis == null ? null : Duration.ofMillis(timeLimitMillis);
+        List<Admission> admissions = scriptService.evaluateAll(jsCodes, deterministic, statementLimit, timeLimit);
+
+        long retryAfterMillis = -1;
+        List<BatchEvaluationDto.Item> items = new ArrayList<>(admissions.size());
+        for (Admission admission : admissions) {
+            if (admission.error() instanceof CapacityViolationException e)
+                retryAfterMillis = Math.max(retryAfterMillis, e.getEstimatedWait().toMillis());
+
+            Script script = admission.script();
+            items.add(script == null
+                    ? new BatchEvaluationDto.Item(null, null, admission.error().getMessage())
+                    : new BatchEvaluationDto.Item(script.getId(), script.getStatus(), null));
+        }
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(202);
+        if (retryAfterMillis >= 0)
+            response.header(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, (retryAfterMillis + 999) / 1000)));
+
+        return response.body(new BatchEvaluationDto(items));
+    }
+
     /**
      * Terminates the script by its id that is currently running. Returns
      * 204(NOT_CONTENT) with Link header that contains self HATEOAS link.
@@ -242,7 +477,7 @@ public class ScriptRestController implements ScriptController {
      * @see ScriptReadMapper
      */
     @PostMapping("/{id}")
-    public ResponseEntity<?> stop(@PathVariable Integer id) {
+    public ResponseEntity<?> stop(@PathVariable Long id) {
         scriptService.stopById(id);
 
         return ResponseEntity
@@ -261,7 +496,7 @@ public class ScriptRestController implements ScriptController {
      * @see ScriptReadMapper
      */
     @DeleteMapping("/{id}")
-    public ResponseEntity<?> delete(@PathVariable Integer id) {
+    public ResponseEntity<?> delete(@PathVariable Long id) {
         scriptService.delete(id);
 
         return ResponseEntity
@@ -4,9 +4,11 @@ import com.alexsitiy.script.evaluation.doc.annotation.*;
 import com.alexsitiy.script.evaluation.dto.ScriptReadDto;
 import com.alexsitiy.script.evaluation.model.Status;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.hateoas.CollectionModel;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
 import java.util.Set;
@@ -21,20 +23,24 @@ import java.util.Set;
 public interface ScriptController {
 
     @FindAllApiEndpoint
-    CollectionModel<ScriptReadDto> findAll(Set<Status> statuses, List<String> sorts);
+    CollectionModel<ScriptReadDto> findAll(Set<Status> statuses, List<String> sorts, Integer limit, String cursor,
+                                           HttpServletRequest request);
 
     @FindByIdApiEndpoint
-    ResponseEntity<ScriptReadDto> findById(Integer id, WebRequest request);
+    ResponseEntity<ScriptReadDto> findById(Long id, WebRequest request);
 
     @GetBodyApiEndpoint
-    ResponseEntity<String> getBody(Integer id, WebRequest request);
+    ResponseEntity<String> getBody(Long id, WebRequest request);
 
     @GetResultApiEndpoint
-    ResponseEntity<String> getResult(Integer id, WebRequest request);
+    ResponseEntity<String> getResult(Long id, Long since, Integer tail, WebRequest request);
+
+    @StreamResultApiEndpoint
+    SseEmitter streamResult(Long id, Long lastEventId);
 
     @StopApiEndpoint
-    ResponseEntity stop(Integer id);
+    ResponseEntity stop(Long id);
 
     @DeleteApiEndpoint
-    ResponseEntity delete(Integer id);
+    ResponseEntity delete(Long id);
 }
@@ -0,0 +1,81 @@
+package com.alexsitiy.script.evaluation.doc.annotation;
+
+import com.alexsitiy.script.evaluation.dto.BatchEvaluationDto;
+import com.alexsitiy.script.evaluation.dto.ValidationErrorResponse;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.enums.ParameterIn;
+import io.swagger.v3.oas.annotations.headers.Header;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.parameters.RequestBody;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import static java.lang.annotation.ElementType.METHOD;
+
+/**
+ * This annotation is used for creating Swagger API documentation
+ * for evaluateAll() endpoint.
+ *
+ * @see com.alexsitiy.script.evaluation.doc.ScriptController
+ * @see com.alexsitiy.script.evaluation.controller.ScriptRestController
+ */
+@Operation(
+        summary = "Evaluates the given JavaScript codes, every script is validated and admitted on its own",
+        requestBody = @RequestBody(required = true, description = "JSON array of JavaScript codes that will be evaluated",
+                content = {
+                        @Content(mediaType = "application/json", schema = @Schema(example = "[\"console.log('Test');\", \"console.log('Test 2');\"]")),
+                }
+        ),
+        parameters = {
+                @Parameter(name = "X-Script-Deterministic", in = ParameterIn.HEADER,
+                        description = "If true, the output of the previous run of the same code is reused",
+                        schema = @Schema(type = "boolean", defaultValue = "false")),
+                @Parameter(name = "X-Script-Statement-Limit", in = ParameterIn.HEADER,
+                        description = "Lowers the max number of statements each script can execute",
+                        schema = @Schema(type = "integer", format = "int64")),
+                @Parameter(name = "X-Script-Time-Limit", in = ParameterIn.HEADER,
+                        description = "Lowers the max time in milliseconds each script can execute",
+                        schema = @Schema(type = "integer", format = "int64"))
+        }
+)
+@ApiResponses(value = {
+        @ApiResponse(
+                responseCode = "202",
+                description = "ACCEPTED, rejected scripts are reported in their items",
+                headers = @Header(name = "Retry-After", description = "Estimated number of seconds until the capacity frees up, only if some scripts were rejected due to capacity"),
+                content = @Content(
+                        mediaType = "application/json",
+                        schema = @Schema(implementation = BatchEvaluationDto.class)
+                )
+        ),
+        @ApiResponse(
+                responseCode = "401",
+                description = "UNAUTHORIZED",
+                headers = @Header(name = "WWW-Authenticate",schema = @Schema(example = "Bearer error=\"invalid_token\", error_description=\"An error occurred while attempting to decode the Jwt: Jwt expired at 2023-09-19T09:46:31Z\"")),
+                content = @Content(schema = @Schema(hidden = true))
+        ),
+        @ApiResponse(
+                responseCode = "403",
+                description = "FORBIDDEN",
+                headers = @Header(name = "WWW-Authenticate",schema = @Schema(example = "Bearer error=\"insufficient_scope\",error_description=\"The request requires higher privileges than provided by the access token.\"")),
+                content = @Content(schema = @Schema(hidden = true))
+        ),
+        @ApiResponse(
+                responseCode = "400",
+                description = "The batch is empty, too large or contains blank scripts",
+                content = @Content(
+                        mediaType = "application/problem+json",
+                        schema = @Schema(implementation = ValidationErrorResponse.class)
+                )
+        )
+})
+@Target({METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface EvaluateAllApiEndpoint {
+}
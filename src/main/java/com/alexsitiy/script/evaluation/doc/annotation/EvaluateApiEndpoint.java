@@ -3,6 +3,8 @@ package com.alexsitiy.script.evaluation.doc.annotation;
 import com.alexsitiy.script.evaluation.dto.ScriptReadDto;
 import com.alexsitiy.script.evaluation.dto.ValidationErrorResponse;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.enums.ParameterIn;
 import io.swagger.v3.oas.annotations.headers.Header;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
@@ -30,7 +32,18 @@ import static java.lang.annotation.ElementType.METHOD;
                 content = {
                         @Content(mediaType = "text/plain", schema = @Schema(example = "console.log('Test');")),
                 }
-        )
+        ),
+        parameters = {
+                @Parameter(name = "X-Script-Deterministic", in = ParameterIn.HEADER,
+                        description = "If true, the output of the previous run of the same code is reused",
+                        schema = @Schema(type = "boolean", defaultValue = "false")),
+                @Parameter(name = "X-Script-Statement-Limit", in = ParameterIn.HEADER,
+                        description = "Lowers the max number of statements the script can execute",
+                        schema = @Schema(type = "integer", format = "int64")),
+                @Parameter(name = "X-Script-Time-Limit", in = ParameterIn.HEADER,
+                        description = "Lowers the max time in milliseconds the script can execute",
+                        schema = @Schema(type = "integer", format = "int64"))
+        }
 )
 @ApiResponses(value = {
         @ApiResponse(
@@ -64,6 +77,7 @@ import static java.lang.annotation.ElementType.METHOD;
         @ApiResponse(
                 responseCode = "429",
                 description = "Too Many Requests",
+                headers = @Header(name = "Retry-After", description = "Estimated number of seconds until the capacity frees up"),
                 content = @Content(
                         mediaType = "application/problem+json",
                         schema = @Schema(implementation = ProblemDetail.class)
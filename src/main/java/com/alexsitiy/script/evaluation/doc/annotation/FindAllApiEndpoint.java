@@ -1,5 +1,6 @@
 package com.alexsitiy.script.evaluation.doc.annotation;
 
+import com.alexsitiy.script.evaluation.doc.ErrorResponseSchema;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.enums.ParameterIn;
@@ -42,7 +43,12 @@ import static java.lang.annotation.ElementType.METHOD;
                                 @ExampleObject(name = "Sort scripts by execution time in DESC", value = "TIME", summary = "TIME"),
                                 @ExampleObject(name = "Sort scripts by scheduled time in ASC", value = "scheduled", summary = "scheduled"),
                                 @ExampleObject(name = "Sort scripts by scheduled time in DESC", value = "SCHEDULED", summary = "SCHEDULED")
-                        })
+                        }),
+                @Parameter(name = "limit", in = ParameterIn.QUERY,
+                        description = "The max number of scripts on the page, next and prev links are added if there are other pages",
+                        schema = @Schema(type = "integer", format = "int32", maximum = "1000")),
+                @Parameter(name = "cursor", in = ParameterIn.QUERY,
+                        description = "Opaque cursor taken from next or prev link, it's used only with limit")
         }
 )
 @ApiResponses(value = {
@@ -107,6 +113,14 @@ import static java.lang.annotation.ElementType.METHOD;
                 description = "FORBIDDEN",
                 headers = @Header(name = "WWW-Authenticate",schema = @Schema(example = "Bearer error=\"insufficient_scope\",error_description=\"The request requires higher privileges than provided by the access token.\"")),
                 content = @Content(schema = @Schema(hidden = true))
+        ),
+        @ApiResponse(
+                responseCode = "503",
+                description = "Other node of the cluster couldn't serve the request",
+                content = @Content(
+                        mediaType = "application/problem+json",
+                        schema = @Schema(implementation = ErrorResponseSchema.class)
+                )
         )
 })
 @Target({METHOD})
@@ -71,6 +71,22 @@ import static java.lang.annotation.ElementType.METHOD;
                         mediaType = "application/problem+json",
                         schema = @Schema(implementation = ErrorResponseSchema.class)
                 )
+        ),
+        @ApiResponse(
+                responseCode = "410",
+                description = "Script was evicted by the retention policy",
+                content = @Content(
+                        mediaType = "application/problem+json",
+                        schema = @Schema(implementation = ErrorResponseSchema.class)
+                )
+        ),
+        @ApiResponse(
+                responseCode = "503",
+                description = "Other node of the cluster couldn't serve the request",
+                content = @Content(
+                        mediaType = "application/problem+json",
+                        schema = @Schema(implementation = ErrorResponseSchema.class)
+                )
         )
 })
 @Target({METHOD})
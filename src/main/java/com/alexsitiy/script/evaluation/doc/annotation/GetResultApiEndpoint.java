@@ -27,10 +27,18 @@ import static java.lang.annotation.ElementType.METHOD;
         summary = """
                 Obtains script's result by its id.
                 It also includes caching via Last-Modified header for scripts which status is one of INTERRUPTED,FAILED,COMPLETED
+                and via weak ETag header for scripts which are still running,
                 and gzip compression if the size is more than 1KB.
+                The result can be read incrementally via since and tail parameters.
                 """,
         parameters = {
-                @Parameter(name = "id", in = ParameterIn.PATH, required = true)
+                @Parameter(name = "id", in = ParameterIn.PATH, required = true),
+                @Parameter(name = "since", in = ParameterIn.QUERY,
+                        description = "Returns only the lines whose sequence number is not less than the given one",
+                        schema = @Schema(type = "integer", format = "int64")),
+                @Parameter(name = "tail", in = ParameterIn.QUERY,
+                        description = "Returns at most the given number of the last lines",
+                        schema = @Schema(type = "integer", format = "int32"))
         })
 @ApiResponses(value = {
         @ApiResponse(
@@ -38,6 +46,8 @@ import static java.lang.annotation.ElementType.METHOD;
                 description = "OK",
                 headers = {
                         @Header(name = "Last-Modified", description = "Returned when script is finished and can be cached"),
+                        @Header(name = "ETag", description = "Weak ETag returned when script is still running"),
+                        @Header(name = "X-Result-Cursor", description = "The sequence number of the next line that can be passed as since"),
                         @Header(name = "Cache-Control: no-cache", description = "It's used for caching"),
                 },
                 content = @Content(
@@ -80,6 +90,22 @@ import static java.lang.annotation.ElementType.METHOD;
                         mediaType = "application/problem+json",
                         schema = @Schema(implementation = ErrorResponseSchema.class)
                 )
+        ),
+        @ApiResponse(
+                responseCode = "410",
+                description = "Script was evicted by the retention policy",
+                content = @Content(
+                        mediaType = "application/problem+json",
+                        schema = @Schema(implementation = ErrorResponseSchema.class)
+                )
+        ),
+        @ApiResponse(
+                responseCode = "503",
+                description = "Other node of the cluster couldn't serve the request",
+                content = @Content(
+                        mediaType = "application/problem+json",
+                        schema = @Schema(implementation = ErrorResponseSchema.class)
+                )
         )
 })
 @Target({METHOD})
@@ -59,6 +59,14 @@ import static java.lang.annotation.ElementType.METHOD;
                         mediaType = "application/problem+json",
                         schema = @Schema(implementation = ErrorResponseSchema.class)
                 )
+        ),
+        @ApiResponse(
+                responseCode = "503",
+                description = "Other node of the cluster couldn't serve the request",
+                content = @Content(
+                        mediaType = "application/problem+json",
+                        schema = @Schema(implementation = ErrorResponseSchema.class)
+                )
         )
 })
 @Target({METHOD})
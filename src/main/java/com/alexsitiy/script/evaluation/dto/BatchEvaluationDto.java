@@ -0,0 +1,82 @@
+package com.alexsitiy.script.evaluation.dto;
+
+import com.alexsitiy.script.evaluation.model.Status;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+/**
+ * The representation of the outcome of batch evaluation. Unlike {@link ScriptReadDto}
+ * it doesn't include HATEOAS links, every item holds only the id and the status of the admitted
+ * script or the error the script was rejected with. Items are in the order of the submitted scripts.
+ * <br/>
+ * It includes {@link Schema} annotation to show a possible example in Swagger API documentation.
+ *
+ * @see com.alexsitiy.script.evaluation.controller.ScriptRestController
+ */
+@Schema(example = """
+        {
+           "accepted": 1,
+           "rejected": 1,
+           "items": [
+             {
+               "id": 1,
+               "status": "IN_QUEUE",
+               "error": null
+             },
+             {
+               "id": null,
+               "status": null,
+               "error": "There is no free space in the pool"
+             }
+           ]
+        }
+        """)
+@SuppressWarnings({"unused"})
+public class BatchEvaluationDto {
+    private final int accepted;
+    private final int rejected;
+    private final List<Item> items;
+
+    public BatchEvaluationDto(List<Item> items) {
+        this.items = items;
+        this.rejected = (int) items.stream().filter(item -> item.getError() != null).count();
+        this.accepted = items.size() - rejected;
+    }
+
+    public int getAccepted() {
+        return accepted;
+    }
+
+    public int getRejected() {
+        return rejected;
+    }
+
+    public List<Item> getItems() {
+        return items;
+    }
+
+    public static class Item {
+        private final Long id;
+        private final Status status;
+        private final String error;
+
+        public Item(Long id, Status status, String error) {
+            this.id = id;
+            this.status = status;
+            this.error = error;
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        public String getError() {
+            return error;
+        }
+    }
+}
@@ -34,20 +34,20 @@ import java.time.Instant;
 @Relation(collectionRelation = "scripts", itemRelation = "script")
 @SuppressWarnings({"unused"})
 public class ScriptReadDto extends RepresentationModel<ScriptReadDto> {
-    private final Integer id;
+    private final Long id;
     private final Status status;
     private final Long executionTime;
     private final Instant scheduledTime;
 
 
-    public ScriptReadDto(Integer id, Status status, Long executionTime, Instant scheduledTime) {
+    public ScriptReadDto(Long id, Status status, Long executionTime, Instant scheduledTime) {
         this.id = id;
         this.status = status;
         this.executionTime = executionTime;
         this.scheduledTime = scheduledTime;
     }
 
-    public Integer getId() {
+    public Long getId() {
         return id;
     }
 
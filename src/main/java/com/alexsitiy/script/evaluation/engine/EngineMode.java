@@ -0,0 +1,16 @@
+package com.alexsitiy.script.evaluation.engine;
+
+/**
+ * The Enum with possible strategies of creating {@link org.graalvm.polyglot.Engine}
+ * for scripts' contexts.
+ */
+public enum EngineMode {
+    /**
+     * Every script gets its own engine, nothing is shared between scripts.
+     */
+    PER_SCRIPT,
+    /**
+     * All scripts share one engine, so parsed ASTs and compiled code are reused.
+     */
+    SHARED
+}
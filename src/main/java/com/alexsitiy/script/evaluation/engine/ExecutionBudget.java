@@ -0,0 +1,69 @@
+package com.alexsitiy.script.evaluation.engine;
+
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.ResourceLimitEvent;
+import org.graalvm.polyglot.ResourceLimits;
+
+import java.time.Duration;
+import java.util.function.Consumer;
+
+/**
+ * The budget a script is allowed to spend while it's executing.
+ * <br/>
+ * The statement limit is enforced inside the engine via {@link ResourceLimits}, the time limit
+ * is enforced by {@link com.alexsitiy.script.evaluation.service.BudgetWatchdog}.
+ * A non-positive value means there is no limit.
+ *
+ * @param statementLimit the max number of statements the script can execute.
+ * @param timeLimit      the max wall-clock time the script can execute.
+ */
+public record ExecutionBudget(long statementLimit, Duration timeLimit) {
+
+    public static final ExecutionBudget UNLIMITED = new ExecutionBudget(0, Duration.ZERO);
+
+    public boolean hasStatementLimit() {
+        return statementLimit > 0;
+    }
+
+    public boolean hasTimeLimit() {
+        return !timeLimit.isNegative() && !timeLimit.isZero();
+    }
+
+    /**
+     * Creates a budget that is not bigger than this one, the requested limits
+     * can only lower the current ones.
+     *
+     * @param statementLimit the requested statement limit, can be null.
+     * @param timeLimit      the requested time limit, can be null.
+     * @return {@link ExecutionBudget} with the lowest limits.
+     */
+    public ExecutionBudget lowerTo(Long statementLimit, Duration timeLimit) {
+        long statements = this.statementLimit;
+        if (statementLimit != null && (!hasStatementLimit() || statementLimit < statements))
+            statements = statementLimit;
+
+        Duration time = this.timeLimit;
+        if (timeLimit != null && (!hasTimeLimit() || timeLimit.compareTo(time) < 0))
+            time = timeLimit;
+
+        return new ExecutionBudget(statements, time);
+    }
+
+    /**
+     * Applies the statement limit to a given {@link Context.Builder} via {@link ResourceLimits}
+     * if there is any.
+     *
+     * @param builder the builder of the script's context.
+     * @param onLimit the callback that is invoked when the limit is exceeded.
+     * @return the given builder.
+     */
+    public Context.Builder applyTo(Context.Builder builder, Consumer<ResourceLimitEvent> onLimit) {
+        if (!hasStatementLimit())
+            return builder;
+
+        return builder.resourceLimits(ResourceLimits.newBuilder()
+                .statementLimit(statementLimit, null)
+                .onLimit(onLimit)
+                .build());
+    }
+}
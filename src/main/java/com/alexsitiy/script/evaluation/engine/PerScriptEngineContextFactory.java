@@ -0,0 +1,48 @@
+package com.alexsitiy.script.evaluation.engine;
+
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.Engine;
+import org.graalvm.polyglot.ResourceLimitEvent;
+import org.graalvm.polyglot.SandboxPolicy;
+
+import java.io.OutputStream;
+import java.util.function.Consumer;
+
+/**
+ * This class is an implementation of {@link ScriptContextFactory} that builds
+ * a new {@link Engine} for every {@link Context}. Nothing is shared between scripts,
+ * so each of them pays the full cost of the engine bootstrap.
+ * <br/>
+ * The engine is not passed to the context explicitly, so the context owns it
+ * and closes it together with itself.
+ *
+ * @see EngineMode#PER_SCRIPT
+ */
+public class PerScriptEngineContextFactory implements ScriptContextFactory {
+
+    private final Consumer<ResourceLimitEvent> onLimit;
+
+    /**
+     * @param onLimit the callback that is invoked when a script exceeds its statement limit.
+     */
+    public PerScriptEngineContextFactory(Consumer<ResourceLimitEvent> onLimit) {
+        this.onLimit = onLimit;
+    }
+
+    /**
+     * Creates an instance of {@link Context} with its own {@link Engine} that is closed with the context.
+     * <br/>
+     * It also includes {@link SandboxPolicy} as a CONSTRAINED in order to restrict
+     * the running JavaScript code and make the app more independent.
+     */
+    @Override
+    public Context createContext(OutputStream out, ExecutionBudget budget) {
+        Context.Builder builder = Context.newBuilder("js")
+                .option("engine.WarnInterpreterOnly", "false")
+                .sandbox(SandboxPolicy.CONSTRAINED)
+                .out(out)
+                .err(out);
+
+        return budget.applyTo(builder, onLimit).build();
+    }
+}
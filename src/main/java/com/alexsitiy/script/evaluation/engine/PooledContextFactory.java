@@ -0,0 +1,141 @@
+package com.alexsitiy.script.evaluation.engine;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.graalvm.polyglot.Context;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.OutputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * This class is an implementation of {@link ScriptContextFactory} that keeps a bounded
+ * pool of pre-created and initialized contexts, so a script doesn't have to wait
+ * for the context to be built on the request thread.
+ * <br/>
+ * Contexts are created by a delegate {@link ScriptContextFactory} in a background thread
+ * with {@link RedirectableOutputStream} as stdout and stderr, which is redirected to the
+ * script's stream once the context is handed out. A context is never given out twice,
+ * the script closes it after run()/stop() because JavaScript globals can't be reset,
+ * and the pool is refilled in the background. If the pool is empty, the context
+ * is created synchronously and counted as a miss.
+ * <br/>
+ * Pooled contexts are created with the default {@link ExecutionBudget}, a script with
+ * a lowered statement limit always gets a new context.
+ * <br/>
+ * It registers the following metrics: script.context.pool.size, script.context.pool.misses
+ * and script.context.creation.
+ */
+public class PooledContextFactory implements ScriptContextFactory, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(PooledContextFactory.class);
+
+    private final ScriptContextFactory delegate;
+    private final ExecutionBudget defaultBudget;
+    private final BlockingQueue<PooledContext> pool;
+    private final ExecutorService refillExecutor;
+    private final AtomicBoolean refilling = new AtomicBoolean();
+    private final Counter misses;
+    private final Timer creationTimer;
+    private volatile boolean closed;
+
+    public PooledContextFactory(ScriptContextFactory delegate, ExecutionBudget defaultBudget,
+                                int size, MeterRegistry meterRegistry) {
+        if (size < 1)
+            throw new IllegalArgumentException("The size of the context pool must be positive");
+
+        this.delegate = delegate;
+        this.defaultBudget = defaultBudget;
+        this.pool = new ArrayBlockingQueue<>(size);
+        this.refillExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "context-pool-refill");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        meterRegistry.gauge("script.context.pool.size", pool, BlockingQueue::size);
+        this.misses = meterRegistry.counter("script.context.pool.misses");
+        this.creationTimer = meterRegistry.timer("script.context.creation");
+
+        scheduleRefill();
+    }
+
+    /**
+     * Takes a ready context from the pool and redirects its output to a given stream.
+     * Creates a new one if the pool is empty or the budget differs from the default one.
+     */
+    @Override
+    public Context createContext(OutputStream out, ExecutionBudget budget) {
+        if (budget.statementLimit() != defaultBudget.statementLimit())
+            return creationTimer.record(() -> delegate.createContext(out, budget));
+
+        PooledContext pooled = pool.poll();
+        scheduleRefill();
+
+        if (pooled == null) {
+            misses.increment();
+            return creationTimer.record(() -> delegate.createContext(out, budget));
+        }
+
+        pooled.out().redirectTo(out);
+        return pooled.context();
+    }
+
+    /**
+     * Closes all the contexts that are left in the pool and the delegate
+     * if it holds any resources.
+     */
+    @Override
+    public void close() throws Exception {
+        closed = true;
+        refillExecutor.shutdownNow();
+
+        PooledContext pooled;
+        while ((pooled = pool.poll()) != null) {
+            pooled.context().close(true);
+        }
+
+        if (delegate instanceof AutoCloseable closeable)
+            closeable.close();
+    }
+
+    private void scheduleRefill() {
+        if (!closed && pool.remainingCapacity() > 0 && refilling.compareAndSet(false, true)) {
+            refillExecutor.execute(this::refill);
+        }
+    }
+
+    private void refill() {
+        try {
+            while (!closed && pool.remainingCapacity() > 0) {
+                PooledContext pooled = creationTimer.record(this::createPooledContext);
+
+                if (!pool.offer(pooled)) {
+                    pooled.context().close();
+                    break;
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Context pool couldn't be refilled", e);
+        } finally {
+            refilling.set(false);
+        }
+    }
+
+    private PooledContext createPooledContext() {
+        RedirectableOutputStream out = new RedirectableOutputStream();
+        Context context = delegate.createContext(out, defaultBudget);
+        context.initialize("js");
+
+        return new PooledContext(context, out);
+    }
+
+    private record PooledContext(Context context, RedirectableOutputStream out) {
+    }
+}
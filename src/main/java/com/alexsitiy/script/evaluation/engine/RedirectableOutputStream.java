@@ -0,0 +1,46 @@
+package com.alexsitiy.script.evaluation.engine;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * This class is an implementation of {@link OutputStream} that delegates all
+ * the writes to a target stream which can be set after creation. It allows
+ * to build {@link org.graalvm.polyglot.Context} in advance, before it is known
+ * which script is going to use it.
+ * <br/>
+ * Until the target is set all the written bytes are discarded.
+ */
+public class RedirectableOutputStream extends OutputStream {
+
+    private volatile OutputStream target = OutputStream.nullOutputStream();
+
+    /**
+     * Sets a stream all the subsequent writes will be delegated to.
+     *
+     * @param target the stream that collects the output.
+     */
+    public void redirectTo(OutputStream target) {
+        this.target = target;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        target.write(b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        target.write(b, off, len);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        target.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        target.close();
+    }
+}
@@ -0,0 +1,25 @@
+package com.alexsitiy.script.evaluation.engine;
+
+import org.graalvm.polyglot.Context;
+
+import java.io.OutputStream;
+
+/**
+ * This interface is used for creating {@link Context} instances in which
+ * scripts are parsed and evaluated. Every created context is owned by a single script
+ * and has to be closed by it when the script is finished.
+ *
+ * @see EngineMode
+ */
+public interface ScriptContextFactory {
+
+    /**
+     * Creates a new sandboxed {@link Context} that writes stdout and stderr
+     * to the given {@link OutputStream} and enforces the statement limit of a given budget.
+     *
+     * @param out    the stream that collects stdout and stderr of the script.
+     * @param budget {@link ExecutionBudget} of the script.
+     * @return {@link Context} that is ready to parse and evaluate JavaScript code.
+     */
+    Context createContext(OutputStream out, ExecutionBudget budget);
+}
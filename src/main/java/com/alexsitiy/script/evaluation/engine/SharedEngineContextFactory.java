@@ -0,0 +1,68 @@
+package com.alexsitiy.script.evaluation.engine;
+
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.Engine;
+import org.graalvm.polyglot.ResourceLimitEvent;
+import org.graalvm.polyglot.SandboxPolicy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.OutputStream;
+import java.util.function.Consumer;
+
+/**
+ * This class is an implementation of {@link ScriptContextFactory} that creates
+ * all contexts on top of one shared {@link Engine}. It allows scripts to reuse
+ * parsed ASTs and compiled code that were warmed up by the previous ones.
+ * <br/>
+ * stdout and stderr are configured per {@link Context}, so the output of every script
+ * still goes to its own stream. The engine is closed when the factory is closed.
+ *
+ * @see EngineMode#SHARED
+ */
+public class SharedEngineContextFactory implements ScriptContextFactory, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(SharedEngineContextFactory.class);
+
+    private final Engine engine;
+    private final Consumer<ResourceLimitEvent> onLimit;
+
+    /**
+     * @param onLimit the callback that is invoked when a script exceeds its statement limit.
+     */
+    public SharedEngineContextFactory(Consumer<ResourceLimitEvent> onLimit) {
+        this.onLimit = onLimit;
+        this.engine = Engine.newBuilder("js")
+                .option("engine.WarnInterpreterOnly", "false")
+                .sandbox(SandboxPolicy.CONSTRAINED)
+                .out(OutputStream.nullOutputStream())
+                .err(OutputStream.nullOutputStream())
+                .build();
+    }
+
+    /**
+     * Creates an instance of {@link Context} bound to the shared {@link Engine}.
+     * <br/>
+     * The context uses the same CONSTRAINED {@link SandboxPolicy} as the engine and
+     * writes its stdout and stderr to the given stream.
+     */
+    @Override
+    public Context createContext(OutputStream out, ExecutionBudget budget) {
+        Context.Builder builder = Context.newBuilder("js")
+                .engine(engine)
+                .sandbox(SandboxPolicy.CONSTRAINED)
+                .out(out)
+                .err(out);
+
+        return budget.applyTo(builder, onLimit).build();
+    }
+
+    /**
+     * Closes the shared {@link Engine} and cancels all the contexts that are still running.
+     */
+    @Override
+    public void close() {
+        engine.close(true);
+        log.debug("Shared engine was closed");
+    }
+}
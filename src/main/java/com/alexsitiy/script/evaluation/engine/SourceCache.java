@@ -0,0 +1,120 @@
+package com.alexsitiy.script.evaluation.engine;
+
+import com.alexsitiy.script.evaluation.exception.ScriptNotValidException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.PolyglotException;
+import org.graalvm.polyglot.Source;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * This class is a bounded content-addressed cache of {@link Source} objects and
+ * their validation outcome. The key is a SHA-256 hash of the script's body.
+ * <br/>
+ * A known-good body skips the syntax check and its {@link Source} is reused, so
+ * the shared engine can also reuse the parsed AST. A known-bad body is rejected
+ * without parsing it again. The least recently used entries are evicted once
+ * the max size is reached.
+ * <br/>
+ * It registers the following metrics: source.cache.items, source.cache.hits,
+ * source.cache.misses and source.cache.evictions.
+ */
+public class SourceCache {
+
+    private static final String LANGUAGE = "js";
+    private static final String NOT_VALID_MESSAGE = "The script has some syntax errors";
+
+    private final Map<String, CachedSource> cache;
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+
+    public SourceCache(int maxSize, MeterRegistry meterRegistry) {
+        if (maxSize < 1)
+            throw new IllegalArgumentException("The max size of the source cache must be positive");
+
+        this.hits = meterRegistry.counter("source.cache.hits");
+        this.misses = meterRegistry.counter("source.cache.misses");
+        this.evictions = meterRegistry.counter("source.cache.evictions");
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedSource> eldest) {
+                boolean evict = size() > maxSize;
+                if (evict)
+                    evictions.increment();
+
+                return evict;
+            }
+        };
+
+        meterRegistry.gauge("source.cache.items", this, SourceCache::size);
+    }
+
+    /**
+     * Returns {@link Source} for a given body. If the body is not cached yet,
+     * it's parsed in a given {@link Context} to check its syntax and the outcome is cached.
+     *
+     * @param body    JavaScript code of the script.
+     * @param context {@link Context} that is used to parse the body on a cache miss.
+     * @return {@link Source} that can be evaluated.
+     * @throws ScriptNotValidException if the body has some syntax errors.
+     */
+    public Source getValidated(String body, Context context) {
+        String key = hash(body);
+        CachedSource cached = get(key);
+
+        if (cached != null && body.contentEquals(cached.source().getCharacters())) {
+            hits.increment();
+
+            if (!cached.valid())
+                throw new ScriptNotValidException(NOT_VALID_MESSAGE);
+
+            return cached.source();
+        }
+
+        misses.increment();
+        Source source = Source.create(LANGUAGE, body);
+        try {
+            context.parse(source);
+            put(key, new CachedSource(source, true));
+
+            return source;
+        } catch (PolyglotException e) {
+            if (e.isSyntaxError())
+                put(key, new CachedSource(source, false));
+
+            throw new ScriptNotValidException(NOT_VALID_MESSAGE);
+        }
+    }
+
+    private synchronized CachedSource get(String key) {
+        return cache.get(key);
+    }
+
+    private synchronized void put(String key, CachedSource cachedSource) {
+        cache.put(key, cachedSource);
+    }
+
+    private synchronized int size() {
+        return cache.size();
+    }
+
+    private static String hash(String body) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(body.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private record CachedSource(Source source, boolean valid) {
+    }
+}
@@ -0,0 +1,5 @@
+/**
+ * Includes classes which are used for creating and managing GraalVM
+ * polyglot engines and contexts that run JavaScript code.
+ */
+package com.alexsitiy.script.evaluation.engine;
@@ -2,12 +2,23 @@ package com.alexsitiy.script.evaluation.exception;
 
 import com.alexsitiy.script.evaluation.controller.GlobalControllerAdvice;
 
+import java.time.Duration;
+
 /**
  * This class extends {@link RuntimeException} says that
  * there is free place in the thread pool. It processed by {@link GlobalControllerAdvice}
+ * <br/>
+ * It carries the estimated wait until the capacity frees up.
  */
 public class CapacityViolationException extends RuntimeException {
-    public CapacityViolationException(String message) {
+    private final Duration estimatedWait;
+
+    public CapacityViolationException(String message, Duration estimatedWait) {
         super(message);
+        this.estimatedWait = estimatedWait;
+    }
+
+    public Duration getEstimatedWait() {
+        return estimatedWait;
     }
 }
@@ -0,0 +1,13 @@
+package com.alexsitiy.script.evaluation.exception;
+
+import com.alexsitiy.script.evaluation.controller.GlobalControllerAdvice;
+
+/**
+ * This class extends {@link RuntimeException} says that a given page cursor
+ * is malformed or was created for another sort. It processed by {@link GlobalControllerAdvice}
+ */
+public class InvalidCursorException extends RuntimeException {
+    public InvalidCursorException(String message) {
+        super(message);
+    }
+}
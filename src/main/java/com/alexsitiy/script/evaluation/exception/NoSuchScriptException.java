@@ -7,14 +7,14 @@ import com.alexsitiy.script.evaluation.controller.GlobalControllerAdvice;
  * there is no script with a given id. It processed by {@link GlobalControllerAdvice}
  */
 public class NoSuchScriptException extends RuntimeException {
-    private final Integer id;
+    private final Long id;
 
-    public NoSuchScriptException(String message, Integer id) {
+    public NoSuchScriptException(String message, Long id) {
         super(message);
         this.id = id;
     }
 
-    public Integer getId() {
+    public Long getId() {
         return id;
     }
 }
@@ -0,0 +1,20 @@
+package com.alexsitiy.script.evaluation.exception;
+
+import com.alexsitiy.script.evaluation.controller.GlobalControllerAdvice;
+
+/**
+ * This class extends {@link RuntimeException} says that another node of the cluster
+ * couldn't serve the request. It processed by {@link GlobalControllerAdvice}
+ */
+public class NodeUnavailableException extends RuntimeException {
+    private final int nodeId;
+
+    public NodeUnavailableException(String message, int nodeId, Throwable cause) {
+        super(message, cause);
+        this.nodeId = nodeId;
+    }
+
+    public int getNodeId() {
+        return nodeId;
+    }
+}
@@ -0,0 +1,13 @@
+package com.alexsitiy.script.evaluation.exception;
+
+import com.alexsitiy.script.evaluation.controller.GlobalControllerAdvice;
+
+/**
+ * This class extends {@link NoSuchScriptException} says that the script with a given id
+ * existed, but was evicted by the retention policy. It processed by {@link GlobalControllerAdvice}
+ */
+public class ScriptExpiredException extends NoSuchScriptException {
+    public ScriptExpiredException(String message, Long id) {
+        super(message, id);
+    }
+}
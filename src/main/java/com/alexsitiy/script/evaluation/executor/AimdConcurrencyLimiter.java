@@ -0,0 +1,212 @@
+package com.alexsitiy.script.evaluation.executor;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+import java.util.function.IntSupplier;
+
+/**
+ * This class is an implementation of {@link ConcurrencyLimiter} that adjusts the limit
+ * with additive-increase/multiplicative-decrease in the style of Netflix concurrency-limits.
+ * <br/>
+ * At most once per window it decides using the samples collected so far:
+ * <br/>
+ * 1. The limit is multiplied by the backoff ratio if CPU load of the container is above the target
+ * or the recent execution latency is worse than the long-term one by more than the tolerance.
+ * <br/>
+ * 2. Otherwise the limit is increased by one if scripts were waiting in the queue or all the
+ * slots were busy.
+ * <br/>
+ * The decision is also made by a timer at the end of every window, so the limit recovers
+ * even while no script finishes. The timer looks at the load reported by the scheduler
+ * and ignores the latency, since there are no fresh samples of it.
+ * <br/>
+ * The queue limit is the limit multiplied by the queue ratio. CPU load is taken from
+ * {@link com.sun.management.OperatingSystemMXBean#getCpuLoad()} that respects cgroup limits.
+ * <br/>
+ * It registers the following metrics: script.executor.limit, script.executor.queue.limit
+ * and script.executor.cpu.load.
+ */
+public class AimdConcurrencyLimiter implements ConcurrencyLimiter, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(AimdConcurrencyLimiter.class);
+    private static final double RECENT_ALPHA = 0.3;
+    private static final double BASELINE_ALPHA = 0.02;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double queueRatio;
+    private final double backoffRatio;
+    private final double latencyTolerance;
+    private final double cpuTarget;
+    private final long windowNanos;
+    private final List<IntConsumer> listeners = new CopyOnWriteArrayList<>();
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "concurrency-limiter");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile IntSupplier inFlightSource = () -> 0;
+    private volatile IntSupplier queuedSource = () -> 0;
+    private volatile int limit;
+    private volatile double cpuLoad;
+    private double recentLatency;
+    private double baselineLatency;
+    private boolean queued;
+    private boolean saturated;
+    private int samples;
+    private long windowStart = System.nanoTime();
+
+    public AimdConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit,
+                                  double queueRatio, double backoffRatio, double latencyTolerance,
+                                  double cpuTarget, Duration window, MeterRegistry meterRegistry) {
+        if (minLimit < 1 || minLimit > maxLimit)
+            throw new IllegalArgumentException("The limits must satisfy 1 <= min <= max");
+
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        this.queueRatio = queueRatio;
+        this.backoffRatio = backoffRatio;
+        this.latencyTolerance = latencyTolerance;
+        this.cpuTarget = cpuTarget;
+        this.windowNanos = window.toNanos();
+
+        meterRegistry.gauge("script.executor.limit", this, AimdConcurrencyLimiter::getLimit);
+        meterRegistry.gauge("script.executor.queue.limit", this, AimdConcurrencyLimiter::getQueueLimit);
+        meterRegistry.gauge("script.executor.cpu.load", this, AimdConcurrencyLimiter::getCpuLoad);
+
+        timer.scheduleWithFixedDelay(this::onTick, windowNanos, windowNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public int getLimit() {
+        return limit;
+    }
+
+    @Override
+    public int getQueueLimit() {
+        return (int) Math.ceil(limit * queueRatio);
+    }
+
+    public double getCpuLoad() {
+        return cpuLoad;
+    }
+
+    @Override
+    public void onSample(long queueWaitNanos, long executionNanos, int inFlight) {
+        int newLimit;
+
+        synchronized (this) {
+            recentLatency = recentLatency == 0 ? executionNanos : ewma(recentLatency, executionNanos, RECENT_ALPHA);
+            baselineLatency = baselineLatency == 0 ? executionNanos : ewma(baselineLatency, executionNanos, BASELINE_ALPHA);
+            queued |= queueWaitNanos > 0 && queueWaitNanos > executionNanos / 10;
+            saturated |= inFlight >= limit;
+            samples++;
+
+            newLimit = adjust(System.nanoTime());
+        }
+
+        notifyListeners(newLimit);
+    }
+
+    @Override
+    public void addListener(IntConsumer listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void watch(IntSupplier inFlight, IntSupplier queued) {
+        this.inFlightSource = inFlight;
+        this.queuedSource = queued;
+    }
+
+    @Override
+    public void close() {
+        timer.shutdownNow();
+    }
+
+    private void onTick() {
+        try {
+            int newLimit;
+
+            synchronized (this) {
+                queued |= queuedSource.getAsInt() > 0;
+                saturated |= inFlightSource.getAsInt() >= limit;
+
+                newLimit = adjust(System.nanoTime());
+            }
+
+            notifyListeners(newLimit);
+        } catch (RuntimeException e) {
+            log.warn("Concurrency limit couldn't be adjusted", e);
+        }
+    }
+
+    /**
+     * Decides on the new limit if the window is over and starts a new window.
+     *
+     * @return the new limit or 0 if the limit hasn't changed.
+     */
+    private int adjust(long now) {
+        if (now - windowStart < windowNanos)
+            return 0;
+
+        int newLimit = nextLimit();
+        windowStart = now;
+        queued = false;
+        saturated = false;
+        samples = 0;
+
+        if (newLimit == limit)
+            return 0;
+
+        log.debug("Concurrency limit is changed from {} to {}", limit, newLimit);
+        limit = newLimit;
+        return newLimit;
+    }
+
+    private void notifyListeners(int newLimit) {
+        if (newLimit > 0)
+            listeners.forEach(listener -> listener.accept(newLimit));
+    }
+
+    private int nextLimit() {
+        cpuLoad = readCpuLoad();
+
+        boolean slower = samples > 0 && recentLatency > baselineLatency * latencyTolerance;
+        if (cpuLoad >= cpuTarget || slower)
+            return Math.max(minLimit, (int) (limit * backoffRatio));
+
+        if (queued || saturated)
+            return Math.min(maxLimit, limit + 1);
+
+        return limit;
+    }
+
+    private static double ewma(double average, double sample, double alpha) {
+        return average + alpha * (sample - average);
+    }
+
+    private static double readCpuLoad() {
+        OperatingSystemMXBean bean = ManagementFactory.getOperatingSystemMXBean();
+
+        if (bean instanceof com.sun.management.OperatingSystemMXBean osBean) {
+            double load = osBean.getCpuLoad();
+            return load < 0 ? 0 : load;
+        }
+
+        return 0;
+    }
+}
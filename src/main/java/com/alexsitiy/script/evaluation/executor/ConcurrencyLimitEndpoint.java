@@ -0,0 +1,34 @@
+package com.alexsitiy.script.evaluation.executor;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Actuator endpoint that shows the current limits of {@link ConcurrencyLimiter}
+ * at /actuator/concurrency.
+ */
+@Endpoint(id = "concurrency")
+public class ConcurrencyLimitEndpoint {
+
+    private final ConcurrencyLimiter limiter;
+
+    public ConcurrencyLimitEndpoint(ConcurrencyLimiter limiter) {
+        this.limiter = limiter;
+    }
+
+    @ReadOperation
+    public Map<String, Object> limits() {
+        Map<String, Object> limits = new LinkedHashMap<>();
+        limits.put("adaptive", limiter instanceof AimdConcurrencyLimiter);
+        limits.put("limit", limiter.getLimit());
+        limits.put("queueLimit", limiter.getQueueLimit());
+
+        if (limiter instanceof AimdConcurrencyLimiter aimdLimiter)
+            limits.put("cpuLoad", aimdLimiter.getCpuLoad());
+
+        return limits;
+    }
+}
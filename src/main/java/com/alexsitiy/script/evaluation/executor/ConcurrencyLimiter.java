@@ -0,0 +1,46 @@
+package com.alexsitiy.script.evaluation.executor;
+
+import java.util.function.IntConsumer;
+import java.util.function.IntSupplier;
+
+/**
+ * This interface is used by {@link ScriptScheduler} implementations to find out
+ * how many scripts can run at once and how many can wait in the queue.
+ * Schedulers report every finished script, so an implementation can adjust the limit.
+ */
+public interface ConcurrencyLimiter {
+
+    /**
+     * @return the max number of scripts running at once.
+     */
+    int getLimit();
+
+    /**
+     * @return the max number of scripts waiting to be run.
+     */
+    int getQueueLimit();
+
+    /**
+     * Records a finished script.
+     *
+     * @param queueWaitNanos time the script waited in the queue.
+     * @param executionNanos time the script was running.
+     * @param inFlight       the number of scripts that were running when it finished, including itself.
+     */
+    void onSample(long queueWaitNanos, long executionNanos, int inFlight);
+
+    /**
+     * Registers a listener that is invoked with the new limit every time the limit changes.
+     */
+    void addListener(IntConsumer listener);
+
+    /**
+     * Gives the implementation access to the current load of the scheduler, so it can adjust
+     * the limit while no script finishes. It's ignored by default.
+     *
+     * @param inFlight supplies the number of scripts running right now.
+     * @param queued   supplies the number of scripts waiting in the queue.
+     */
+    default void watch(IntSupplier inFlight, IntSupplier queued) {
+    }
+}
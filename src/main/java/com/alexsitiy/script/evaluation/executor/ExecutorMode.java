@@ -0,0 +1,16 @@
+package com.alexsitiy.script.evaluation.executor;
+
+/**
+ * The Enum with possible kinds of threads scripts are run on.
+ */
+public enum ExecutorMode {
+    /**
+     * Scripts are run by the fixed pool of platform threads sized by script.scheduler properties.
+     */
+    PLATFORM,
+    /**
+     * Every script is run on its own virtual thread, the number of running scripts is limited
+     * by a semaphore. Requires the java21 build profile.
+     */
+    VIRTUAL
+}
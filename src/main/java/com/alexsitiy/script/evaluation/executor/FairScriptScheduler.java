@@ -0,0 +1,273 @@
+package com.alexsitiy.script.evaluation.executor;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * This class is an implementation of {@link ScriptScheduler} that keeps a bounded
+ * queue per tenant and serves them in deficit round-robin order, so a tenant that
+ * floods the API only fills its own queue and the others keep their share of the executor.
+ * <br/>
+ * Every tenant gets a number of tasks equal to its weight per round. A dispatcher thread
+ * takes the next task whenever one of the slots is free and passes it to {@link TaskExecutor},
+ * so the executor's own queue stays empty. The number of slots and the total number of queued
+ * tasks are limited by {@link ConcurrencyLimiter}, every finished task is reported to it
+ * and to {@link WaitEstimator}. A task that was cancelled while it waited in the queue
+ * only frees its slot, since it has never started.
+ * <br/>
+ * The queue of a tenant is dropped once it's empty, so only the tenants with waiting tasks take memory.
+ * <br/>
+ * It registers the following metrics: script.scheduler.queued and script.scheduler.queue.wait
+ * with "tenant" tag. The tag is the tenant only for the tenants with their own weight,
+ * the others share the "other" tag, so the number of meters doesn't grow with the number of users.
+ *
+ * @see SchedulerMode#FAIR
+ */
+public class FairScriptScheduler implements ScriptScheduler, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(FairScriptScheduler.class);
+    private static final long REJECTION_BACKOFF_MILLIS = 10;
+    private static final String OTHER_TENANTS_TAG = "other";
+
+    private final TaskExecutor taskExecutor;
+    private final ConcurrencyLimiter limiter;
+    private final ResizableSemaphore slots;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final int tenantQueueCapacity;
+    private final Map<String, Integer> weights;
+    private final int defaultWeight;
+    private final MeterRegistry meterRegistry;
+    private final WaitEstimator waitEstimator;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Map<String, TenantQueue> tenants = new HashMap<>();
+    private final Deque<TenantQueue> activeTenants = new ArrayDeque<>();
+    private int queued;
+
+    private final Thread dispatcher;
+
+    public FairScriptScheduler(TaskExecutor taskExecutor, ConcurrencyLimiter limiter, int tenantQueueCapacity,
+                               Map<String, Integer> weights, int defaultWeight, MeterRegistry meterRegistry) {
+        if (tenantQueueCapacity < 1 || defaultWeight < 1)
+            throw new IllegalArgumentException("Queue capacity and weight must be positive");
+
+        this.taskExecutor = taskExecutor;
+        this.limiter = limiter;
+        this.slots = new ResizableSemaphore(limiter.getLimit());
+        limiter.addListener(slots::resize);
+        this.tenantQueueCapacity = tenantQueueCapacity;
+        this.weights = Map.copyOf(weights);
+        this.defaultWeight = defaultWeight;
+        this.meterRegistry = meterRegistry;
+        this.waitEstimator = new WaitEstimator(this::getQueued, limiter::getLimit, meterRegistry);
+        limiter.watch(inFlight::get, this::getQueued);
+
+        meterRegistry.gauge("script.scheduler.queued", this, FairScriptScheduler::getQueued);
+
+        this.dispatcher = new Thread(this::dispatch, "fair-scheduler-dispatcher");
+        this.dispatcher.setDaemon(true);
+        this.dispatcher.start();
+    }
+
+    /**
+     * Puts a given task to the queue of the tenant.
+     *
+     * @throws TaskRejectedException if the queue of the tenant is full or the queue limit is reached.
+     */
+    @Override
+    public void submit(String tenant, Runnable task) {
+        lock.lock();
+        try {
+            TenantQueue queue = tenants.computeIfAbsent(tenant, this::createQueue);
+
+            if (queue.tasks.size() >= tenantQueueCapacity)
+                throw new TaskRejectedException("The queue of the tenant %s is full".formatted(tenant));
+
+            if (queued >= limiter.getQueueLimit())
+                throw new TaskRejectedException("The queue limit of %d is reached".formatted(limiter.getQueueLimit()));
+
+            queue.tasks.addLast(new QueuedTask(queue, task, System.nanoTime()));
+            activate(queue);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Duration estimateWait() {
+        return waitEstimator.estimate(getQueued(), limiter.getLimit());
+    }
+
+    @Override
+    public void close() {
+        dispatcher.interrupt();
+    }
+
+    private TenantQueue createQueue(String tenant) {
+        String tag = weights.containsKey(tenant) ? tenant : OTHER_TENANTS_TAG;
+
+        return new TenantQueue(tenant, weights.getOrDefault(tenant, defaultWeight),
+                meterRegistry.timer("script.scheduler.queue.wait", "tenant", tag));
+    }
+
+    private void dispatch() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                slots.acquire();
+                QueuedTask next = takeNext();
+
+                try {
+                    taskExecutor.execute(() -> runAndRelease(next));
+                    // the wait is recorded once, after the task has left the queue for good
+                    next.queue().waitTimer.record(System.nanoTime() - next.queuedAt(), TimeUnit.NANOSECONDS);
+                } catch (TaskRejectedException e) {
+                    slots.release();
+                    requeue(next);
+                    log.warn("Executor rejected the dispatched task, it's put back to the queue");
+                    TimeUnit.MILLISECONDS.sleep(REJECTION_BACKOFF_MILLIS);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void runAndRelease(QueuedTask queuedTask) {
+        if (queuedTask.task() instanceof Future<?> future && future.isDone()) {
+            slots.release();
+            return;
+        }
+
+        int running = inFlight.incrementAndGet();
+        long startedAt = System.nanoTime();
+
+        try {
+            queuedTask.task().run();
+        } finally {
+            inFlight.decrementAndGet();
+            slots.release();
+            long executionNanos = System.nanoTime() - startedAt;
+            waitEstimator.record(executionNanos);
+            limiter.onSample(startedAt - queuedTask.queuedAt(), executionNanos, running);
+        }
+    }
+
+    /**
+     * Takes the next task in deficit round-robin order. The tenant at the head of
+     * the active tenants gets its weight added to the deficit at the beginning of its turn
+     * and is served until the deficit is spent or its queue is empty.
+     */
+    private QueuedTask takeNext() throws InterruptedException {
+        lock.lock();
+        try {
+            while (queued == 0) {
+                notEmpty.await();
+            }
+
+            while (true) {
+                TenantQueue queue = activeTenants.peekFirst();
+
+                if (!queue.inTurn) {
+                    queue.deficit += queue.weight;
+                    queue.inTurn = true;
+                }
+
+                if (queue.deficit < 1 || queue.tasks.isEmpty()) {
+                    endTurn(queue);
+                    continue;
+                }
+
+                queue.deficit--;
+                queued--;
+                QueuedTask next = queue.tasks.poll();
+
+                if (queue.deficit < 1 || queue.tasks.isEmpty())
+                    endTurn(queue);
+
+                return next;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void requeue(QueuedTask queuedTask) {
+        lock.lock();
+        try {
+            // the queue could have been dropped after it was emptied
+            TenantQueue queue = tenants.computeIfAbsent(queuedTask.queue().tenant, tenant -> queuedTask.queue());
+            queue.tasks.addFirst(queuedTask);
+            // the task hasn't been run, so the deficit spent on it is given back
+            queue.deficit++;
+            activate(queue);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void activate(TenantQueue queue) {
+        if (!queue.active) {
+            queue.active = true;
+            activeTenants.addLast(queue);
+        }
+        queued++;
+        notEmpty.signal();
+    }
+
+    private void endTurn(TenantQueue queue) {
+        activeTenants.pollFirst();
+        queue.inTurn = false;
+
+        if (queue.tasks.isEmpty()) {
+            queue.deficit = 0;
+            queue.active = false;
+            tenants.remove(queue.tenant, queue);
+        } else {
+            activeTenants.addLast(queue);
+        }
+    }
+
+    private int getQueued() {
+        lock.lock();
+        try {
+            return queued;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static final class TenantQueue {
+        private final String tenant;
+        private final int weight;
+        private final Timer waitTimer;
+        private final Deque<QueuedTask> tasks = new ArrayDeque<>();
+        private int deficit;
+        private boolean inTurn;
+        private boolean active;
+
+        private TenantQueue(String tenant, int weight, Timer waitTimer) {
+            this.tenant = tenant;
+            this.weight = weight;
+            this.waitTimer = waitTimer;
+        }
+    }
+
+    private record QueuedTask(TenantQueue queue, Runnable task, long queuedAt) {
+    }
+}
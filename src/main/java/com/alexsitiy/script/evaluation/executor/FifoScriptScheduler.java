@@ -0,0 +1,74 @@
+package com.alexsitiy.script.evaluation.executor;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+
+import java.time.Duration;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This class is an implementation of {@link ScriptScheduler} that passes all the
+ * tasks directly to {@link TaskExecutor}, so all tenants share its FIFO queue.
+ * <br/>
+ * It rejects a task if the number of waiting tasks reached the queue limit of
+ * {@link ConcurrencyLimiter} and reports every finished task to it and to {@link WaitEstimator}.
+ * A task that was cancelled while it waited in the queue isn't reported, since it has never started.
+ *
+ * @see SchedulerMode#FIFO
+ */
+public class FifoScriptScheduler implements ScriptScheduler {
+
+    private final TaskExecutor taskExecutor;
+    private final ConcurrencyLimiter limiter;
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final WaitEstimator waitEstimator;
+
+    public FifoScriptScheduler(TaskExecutor taskExecutor, ConcurrencyLimiter limiter, MeterRegistry meterRegistry) {
+        this.taskExecutor = taskExecutor;
+        this.limiter = limiter;
+        this.waitEstimator = new WaitEstimator(queued::get, limiter::getLimit, meterRegistry);
+        limiter.watch(inFlight::get, queued::get);
+    }
+
+    @Override
+    public void submit(String tenant, Runnable task) {
+        if (queued.incrementAndGet() > limiter.getQueueLimit()) {
+            queued.decrementAndGet();
+            throw new TaskRejectedException("The queue limit of %d is reached".formatted(limiter.getQueueLimit()));
+        }
+
+        long queuedAt = System.nanoTime();
+        try {
+            taskExecutor.execute(() -> run(task, queuedAt));
+        } catch (TaskRejectedException e) {
+            queued.decrementAndGet();
+            throw e;
+        }
+    }
+
+    @Override
+    public Duration estimateWait() {
+        return waitEstimator.estimate(queued.get(), limiter.getLimit());
+    }
+
+    private void run(Runnable task, long queuedAt) {
+        queued.decrementAndGet();
+        if (task instanceof Future<?> future && future.isDone())
+            return;
+
+        int running = inFlight.incrementAndGet();
+        long startedAt = System.nanoTime();
+
+        try {
+            task.run();
+        } finally {
+            inFlight.decrementAndGet();
+            long executionNanos = System.nanoTime() - startedAt;
+            waitEstimator.record(executionNanos);
+            limiter.onSample(startedAt - queuedAt, executionNanos, running);
+        }
+    }
+}
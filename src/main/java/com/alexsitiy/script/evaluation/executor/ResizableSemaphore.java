@@ -0,0 +1,38 @@
+package com.alexsitiy.script.evaluation.executor;
+
+import java.util.concurrent.Semaphore;
+
+/**
+ * This class is an extension of {@link Semaphore} whose total number of permits
+ * can be changed at runtime. Reducing the permits doesn't affect the holders,
+ * new permits are just not given out until enough of them are released.
+ */
+public class ResizableSemaphore extends Semaphore {
+
+    private int permits;
+
+    public ResizableSemaphore(int permits) {
+        this(permits, false);
+    }
+
+    public ResizableSemaphore(int permits, boolean fair) {
+        super(permits, fair);
+        this.permits = permits;
+    }
+
+    /**
+     * Changes the total number of permits.
+     *
+     * @param newPermits the new total number of permits.
+     */
+    public synchronized void resize(int newPermits) {
+        int delta = newPermits - permits;
+
+        if (delta > 0)
+            release(delta);
+        else if (delta < 0)
+            reducePermits(-delta);
+
+        permits = newPermits;
+    }
+}
@@ -0,0 +1,15 @@
+package com.alexsitiy.script.evaluation.executor;
+
+/**
+ * The Enum with possible policies of ordering scripts waiting to be run.
+ */
+public enum SchedulerMode {
+    /**
+     * All tenants share one FIFO queue of the executor.
+     */
+    FIFO,
+    /**
+     * Every tenant has its own queue, the queues are served in weighted deficit round-robin order.
+     */
+    FAIR
+}
@@ -0,0 +1,31 @@
+package com.alexsitiy.script.evaluation.executor;
+
+import org.springframework.core.task.TaskRejectedException;
+
+import java.time.Duration;
+
+/**
+ * This interface is used for scheduling scripts' tasks on behalf
+ * of a tenant (a client that submitted the script).
+ *
+ * @see SchedulerMode
+ */
+public interface ScriptScheduler {
+
+    /**
+     * Schedules a given task to be run asynchronously. If the task is a {@link java.util.concurrent.Future}
+     * that is done by the time its turn comes, it's skipped and not counted as a finished task.
+     *
+     * @param tenant the tenant that submitted the task.
+     * @param task   the task to be run.
+     * @throws TaskRejectedException if there is no free place for the task.
+     */
+    void submit(String tenant, Runnable task);
+
+    /**
+     * Estimates how long a task submitted right now would wait before it's run.
+     *
+     * @return {@link Duration} of the estimated wait.
+     */
+    Duration estimateWait();
+}
@@ -0,0 +1,119 @@
+package com.alexsitiy.script.evaluation.executor;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This class is an implementation of {@link TaskExecutor} that starts every task
+ * on its own thread obtained from a launcher and limits the number of concurrently
+ * running tasks with {@link Semaphore}. Tasks that wait for a permit form the queue,
+ * when the queue is full new tasks are rejected with {@link TaskRejectedException}.
+ * <br/>
+ * It's meant to be used with a launcher that creates cheap threads (e.g. virtual ones),
+ * so a waiting or blocked task doesn't occupy a platform thread.
+ * <br/>
+ * The max number of running tasks can be changed at runtime, the queue capacity stays the same.
+ * <br/>
+ * It registers the following metrics: script.executor.active, script.executor.queued
+ * and script.executor.queue.wait.
+ */
+public class SemaphoreTaskExecutor implements TaskExecutor, AutoCloseable {
+
+    private final ExecutorService launcher;
+    private final ResizableSemaphore permits;
+    private final int queueCapacity;
+    private volatile int capacity;
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicInteger active = new AtomicInteger();
+    private final Timer queueWait;
+
+    /**
+     * @param launcher       {@link ExecutorService} that starts a new thread for every task.
+     * @param maxConcurrency the max number of tasks running at once.
+     * @param queueCapacity  the max number of tasks waiting for a permit.
+     * @param meterRegistry  the registry metrics are registered in.
+     */
+    public SemaphoreTaskExecutor(ExecutorService launcher, int maxConcurrency, int queueCapacity, MeterRegistry meterRegistry) {
+        if (maxConcurrency < 1 || queueCapacity < 0)
+            throw new IllegalArgumentException("Concurrency must be positive and queue capacity must not be negative");
+
+        this.launcher = launcher;
+        this.permits = new ResizableSemaphore(maxConcurrency, true);
+        this.queueCapacity = queueCapacity;
+        this.capacity = maxConcurrency + queueCapacity;
+        this.queueWait = meterRegistry.timer("script.executor.queue.wait");
+
+        meterRegistry.gauge("script.executor.active", active, AtomicInteger::get);
+        meterRegistry.gauge("script.executor.queued", this, executor -> Math.max(0, executor.pending.get() - executor.active.get()));
+    }
+
+    /**
+     * Starts a given task if there is a free place in the queue.
+     *
+     * @throws TaskRejectedException if the queue is full.
+     */
+    @Override
+    public void execute(Runnable task) {
+        if (pending.incrementAndGet() > capacity) {
+            pending.decrementAndGet();
+            throw new TaskRejectedException("The queue of the executor is full");
+        }
+
+        long queuedAt = System.nanoTime();
+        try {
+            launcher.execute(() -> runWithPermit(task, queuedAt));
+        } catch (RuntimeException e) {
+            pending.decrementAndGet();
+            throw new TaskRejectedException("The task couldn't be started", e);
+        }
+    }
+
+    /**
+     * Changes the max number of tasks running at once. The running tasks are not affected.
+     *
+     * @param maxConcurrency the new max number of tasks running at once.
+     */
+    public synchronized void setMaxConcurrency(int maxConcurrency) {
+        if (maxConcurrency < 1)
+            throw new IllegalArgumentException("Concurrency must be positive");
+
+        permits.resize(maxConcurrency);
+        this.capacity = maxConcurrency + queueCapacity;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    @Override
+    public void close() {
+        launcher.shutdownNow();
+    }
+
+    private void runWithPermit(Runnable task, long queuedAt) {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            pending.decrementAndGet();
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        active.incrementAndGet();
+        queueWait.record(System.nanoTime() - queuedAt, TimeUnit.NANOSECONDS);
+        try {
+            task.run();
+        } finally {
+            active.decrementAndGet();
+            pending.decrementAndGet();
+            permits.release();
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.alexsitiy.script.evaluation.executor;
+
+import java.util.function.IntConsumer;
+
+/**
+ * This class is an implementation of {@link ConcurrencyLimiter} with limits
+ * that never change.
+ */
+public class StaticConcurrencyLimiter implements ConcurrencyLimiter {
+
+    private final int limit;
+    private final int queueLimit;
+
+    public StaticConcurrencyLimiter(int limit, int queueLimit) {
+        this.limit = limit;
+        this.queueLimit = queueLimit;
+    }
+
+    @Override
+    public int getLimit() {
+        return limit;
+    }
+
+    @Override
+    public int getQueueLimit() {
+        return queueLimit;
+    }
+
+    @Override
+    public void onSample(long queueWaitNanos, long executionNanos, int inFlight) {
+    }
+
+    @Override
+    public void addListener(IntConsumer listener) {
+    }
+}
@@ -0,0 +1,56 @@
+package com.alexsitiy.script.evaluation.executor;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntSupplier;
+
+/**
+ * This class estimates how long a new script would wait before it's run. It keeps
+ * an exponentially weighted moving average of the execution time of finished scripts
+ * and assumes the queued scripts are spread evenly over the running slots.
+ * <br/>
+ * It registers script.admission.estimated.wait gauge in milliseconds.
+ */
+public class WaitEstimator {
+
+    private static final double ALPHA = 0.2;
+
+    private volatile double averageExecutionNanos;
+
+    /**
+     * @param queued        supplies the current number of queued scripts.
+     * @param concurrency   supplies the current number of slots.
+     * @param meterRegistry the registry the gauge is registered in.
+     */
+    public WaitEstimator(IntSupplier queued, IntSupplier concurrency, MeterRegistry meterRegistry) {
+        meterRegistry.gauge("script.admission.estimated.wait", this,
+                estimator -> estimator.estimate(queued.getAsInt(), concurrency.getAsInt()).toMillis());
+    }
+
+    /**
+     * Records the execution time of a finished script.
+     */
+    public synchronized void record(long executionNanos) {
+        averageExecutionNanos = averageExecutionNanos == 0
+                ? executionNanos
+                : averageExecutionNanos + ALPHA * (executionNanos - averageExecutionNanos);
+    }
+
+    /**
+     * Estimates the wait of a script that would be put to the queue right now.
+     *
+     * @param queued      the number of scripts waiting in the queue.
+     * @param concurrency the number of scripts running at once.
+     * @return {@link Duration} the script would wait until it's run.
+     */
+    public Duration estimate(int queued, int concurrency) {
+        double rounds = (double) (queued + 1) / Math.max(1, concurrency);
+        return Duration.ofNanos((long) (rounds * averageExecutionNanos));
+    }
+
+    public long getAverageExecutionMillis() {
+        return TimeUnit.NANOSECONDS.toMillis((long) averageExecutionNanos);
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * Includes executors which are used to run scripts asynchronously.
+ */
+package com.alexsitiy.script.evaluation.executor;
@@ -48,6 +48,17 @@ public class ScriptReadMapper extends RepresentationModelAssemblerSupport<Script
         return createModelWithId(entity.getId(), entity);
     }
 
+    /**
+     * Adds a self link to the representation of the script that was found on another node of the cluster.
+     * The link points to this node, so the requests are routed to the owner of the script.
+     *
+     * @param model {@link ScriptReadDto} without links.
+     * @return the given {@link ScriptReadDto} with a self link.
+     */
+    public ScriptReadDto withSelfLink(ScriptReadDto model) {
+        return model.add(entityLinks.linkToItemResource(MODEL_CLASS, model.getId()).withSelfRel());
+    }
+
     /**
      * Creates HATEOAS links to related resources. Utilizes toModel() method
      * to create an instance of {@link ScriptReadDto} and add a self link.
@@ -64,7 +75,7 @@ public class ScriptReadMapper extends RepresentationModelAssemblerSupport<Script
                 .add(entityLinks.linkForItemResource(MODEL_CLASS, entity.getId())
                         .slash("result").withSelfRel().withTitle("Gets the result of the script"))
                 .add(WebMvcLinkBuilder.linkTo(WebMvcLinkBuilder.methodOn(CONTROLLER_CLASS)
-                        .findAll(Set.of(Status.COMPLETED, Status.EXECUTING), List.of("TIME", "scheduled"))).withRel("allScripts"))
+                        .findAll(Set.of(Status.COMPLETED, Status.EXECUTING), List.of("TIME", "scheduled"), null, null, null)).withRel("allScripts"))
                 .add(entityLinks.linkToItemResource(MODEL_CLASS, entity.getId())
                         .withRel("stop").withType("POST").withTitle("Terminates the running script"))
                 .add(entityLinks.linkToItemResource(MODEL_CLASS, entity.getId())
@@ -77,7 +88,7 @@ public class ScriptReadMapper extends RepresentationModelAssemblerSupport<Script
      * @param id id to a specific resource.
      * @return {@link String} - representation of Link.
      */
-    public String getSelfLink(Integer id) {
+    public String getSelfLink(Long id) {
         return entityLinks.linkToItemResource(MODEL_CLASS, id).toString();
     }
 
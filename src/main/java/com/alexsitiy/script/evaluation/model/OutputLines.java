@@ -0,0 +1,48 @@
+package com.alexsitiy.script.evaluation.model;
+
+import java.util.List;
+
+/**
+ * This class is a snapshot of consecutive lines of the script's output.
+ * Every line ever written gets a sequence number starting from 0, so
+ * the snapshot knows the sequence number of its first line.
+ *
+ * @param firstSequence the sequence number of the first line.
+ * @param lines         the lines in the order they were written.
+ */
+public record OutputLines(long firstSequence, List<String> lines) {
+
+    /**
+     * @return the sequence number of the line that will be written next.
+     */
+    public long nextSequence() {
+        return firstSequence + lines.size();
+    }
+
+    /**
+     * Gets at most a given number of the last lines of this snapshot.
+     *
+     * @param count the max number of lines.
+     * @return {@link OutputLines} with the last lines.
+     */
+    public OutputLines last(int count) {
+        if (count >= lines.size())
+            return this;
+
+        return new OutputLines(nextSequence() - count, lines.subList(lines.size() - count, lines.size()));
+    }
+
+    /**
+     * Joins the lines, every line ends with \n.
+     */
+    public String toText() {
+        StringBuilder builder = new StringBuilder();
+
+        for (String line : lines) {
+            builder.append(line);
+            builder.append('\n');
+        }
+
+        return builder.toString();
+    }
+}
@@ -0,0 +1,10 @@
+package com.alexsitiy.script.evaluation.model;
+
+/**
+ * This class holds the quotas of the script's output that is kept in {@link OutputRingBuffer}.
+ *
+ * @param maxBytes the max number of bytes of the retained lines.
+ * @param maxLines the max number of the retained lines.
+ */
+public record OutputQuota(int maxBytes, int maxLines) {
+}
@@ -0,0 +1,443 @@
+package com.alexsitiy.script.evaluation.model;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.invoke.VarHandle;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * This class is an implementation of {@link OutputStream} that keeps the raw UTF-8 bytes of
+ * the script's output in a fixed-size ring. Line boundaries are kept in the index of line starts,
+ * so bytes are decoded only when lines are read. If either the byte quota or the line quota
+ * is exceeded - the oldest lines are overwritten. A line longer than the byte quota is wrapped.
+ * <br/>
+ * Every line gets a sequence number starting from 0. A line is readable once it's terminated
+ * by \n or the stream is closed, the unterminated tail is kept until then.
+ * <br/>
+ * Writers are serialized, but readers never take the writer's lock. They copy the lines optimistically
+ * and validate afterwards that the copied bytes and line starts were not overwritten in the meantime,
+ * the read is retried otherwise. Only a reader that keeps losing to the writer falls back to the lock.
+ * <br/>
+ * Once the output is complete, it can be spilled via {@link SpillTarget}. The ring is released then
+ * and the lines are read from {@link SpilledOutput}, writes are ignored.
+ * <br/>
+ * The ring is allocated on the first write, so a script that waits in the queue takes almost no memory.
+ * The ring and the index of line starts start small and are doubled up to the quotas as the output grows,
+ * so a script that prints a few lines doesn't take the whole quota. They're doubled before the ring wraps,
+ * so the bytes keep their positions and readers only have to check that they've copied the current arrays.
+ * <br/>
+ * Listeners are notified whenever new lines are written, they're invoked in the writing thread and must not block.
+ */
+public class OutputRingBuffer extends OutputStream {
+
+    private static final int OPTIMISTIC_READ_ATTEMPTS = 3;
+    private static final int INITIAL_BYTES = 256;
+    private static final int INITIAL_LINE_STARTS = 8;
+    private static final byte[] UNALLOCATED_BYTES = new byte[0];
+    private static final long[] UNALLOCATED_LINE_STARTS = new long[0];
+
+    private volatile byte[] bytes = UNALLOCATED_BYTES;
+    private volatile long[] lineStarts = UNALLOCATED_LINE_STARTS;
+    private final int maxBytes;
+    private final int maxLines;
+    private volatile SpilledOutput spilled;
+
+    /**
+     * The number of bytes that are published to readers.
+     */
+    private volatile long writtenBytes;
+    /**
+     * The number of bytes that are being written, readers validate their copies against it.
+     */
+    private volatile long reservedBytes;
+    /**
+     * The number of terminated lines.
+     */
+    private volatile long lineCount;
+    private volatile long version;
+
+    private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * @param maxBytes the max number of bytes of the retained lines.
+     * @param maxLines the max number of the retained lines.
+     */
+    public OutputRingBuffer(int maxBytes, int maxLines) {
+        if (maxBytes < 1 || maxLines < 1)
+            throw new IllegalArgumentException();
+
+        this.maxBytes = maxBytes;
+        this.maxLines = maxLines;
+    }
+
+    public OutputRingBuffer(OutputQuota quota) {
+        this(quota.maxBytes(), quota.maxLines());
+    }
+
+    /**
+     * Delegates the method to {@code write(byte[],int,int)}.
+     */
+    @Override
+    public void write(int b) {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    /**
+     * Delegates the method to {@code write(byte[],int,int)}.
+     */
+    @Override
+    public void write(byte[] b) {
+        write(b, 0, b.length);
+    }
+
+    /**
+     * Writes the array of bytes according to the given {@code off} and {@code len}.
+     * The bytes are copied to the ring as is, every \n terminates the current line.
+     *
+     * @param b   the data.
+     * @param off the start offset in the data.
+     * @param len the number of bytes to write.
+     */
+    @Override
+    public void write(byte[] b, int off, int len) {
+        boolean terminated;
+
+        synchronized (this) {
+            if (spilled != null)
+                return;
+
+            allocate();
+            long lines = this.lineCount;
+            int end = off + len;
+            int segmentStart = off;
+
+            for (int i = off; i < end; i++) {
+                if (b[i] == '\n') {
+                    append(b, segmentStart, i - segmentStart);
+                    terminateLine();
+                    segmentStart = i + 1;
+                }
+            }
+            append(b, segmentStart, end - segmentStart);
+            version++;
+            terminated = this.lineCount != lines;
+        }
+
+        if (terminated)
+            notifyListeners();
+    }
+
+    /**
+     * Terminates the unterminated tail, so it becomes readable.
+     */
+    @Override
+    public void close() {
+        boolean terminated;
+
+        synchronized (this) {
+            terminated = spilled == null && writtenBytes > 0 && writtenBytes > lineStart(lineStarts, lineCount);
+            if (terminated) {
+                terminateLine();
+                version++;
+            }
+        }
+
+        if (terminated)
+            notifyListeners();
+    }
+
+    /**
+     * Moves the retained lines to a given {@link SpillTarget} and releases the ring.
+     * The unterminated tail is dropped, so the output has to be closed before.
+     *
+     * @param target the target the lines are written to.
+     * @return the number of bytes released from memory, 0 if the output has already been spilled
+     * or nothing has been written.
+     * @throws IOException if the lines couldn't be written.
+     */
+    public synchronized long spill(SpillTarget target) throws IOException {
+        if (spilled != null || bytes == UNALLOCATED_BYTES)
+            return 0;
+
+        byte[] ring = this.bytes;
+        long[] starts = this.lineStarts;
+        long lines = this.lineCount;
+        long first = firstRetained(ring, starts, Math.max(0, lines - maxLines), lines, writtenBytes);
+
+        int[] lineEnds = new int[(int) (lines - first)];
+        int length = (int) (lineStart(starts, lines) - lineStart(starts, first)) + lineEnds.length;
+        byte[] text = new byte[length];
+
+        int position = 0;
+        for (long s = first; s < lines; s++) {
+            long start = lineStart(starts, s);
+            int lineLength = (int) (lineStart(starts, s + 1) - start);
+
+            copy(ring, start, text, position, lineLength);
+            position += lineLength;
+            text[position++] = '\n';
+            lineEnds[(int) (s - first)] = position;
+        }
+
+        long footprint = getFootprint();
+        this.spilled = target.write(text, lineEnds, first);
+        this.bytes = null;
+        this.lineStarts = null;
+
+        return footprint;
+    }
+
+    /**
+     * @return {@link SpilledOutput} if the output has been spilled, otherwise null.
+     */
+    public SpilledOutput getSpilled() {
+        return spilled;
+    }
+
+    /**
+     * @return the number of bytes the ring takes in memory, 0 if the output has been spilled.
+     */
+    public long getFootprint() {
+        byte[] ring = this.bytes;
+        long[] starts = this.lineStarts;
+
+        return ring == null || starts == null ? 0 : ring.length + (long) starts.length * Long.BYTES;
+    }
+
+    /**
+     * @return the number of bytes of the retained output, it's the size of the spilled text if the output has been spilled.
+     */
+    public long getSize() {
+        byte[] ring = this.bytes;
+        if (ring == null)
+            return spilled.length();
+
+        return Math.min(writtenBytes, ring.length);
+    }
+
+    /**
+     * Gets the retained lines whose sequence number is not less than a given one.
+     * If the lines have already been overwritten, the snapshot starts from the oldest retained line.
+     *
+     * @param sequence the sequence number of the first line to be read.
+     * @return {@link OutputLines} that can be empty if there are no new lines.
+     */
+    public OutputLines getLinesSince(long sequence) {
+        for (int i = 0; i < OPTIMISTIC_READ_ATTEMPTS; i++) {
+            OutputLines lines = readLinesSince(sequence, true);
+
+            if (lines != null)
+                return lines;
+        }
+
+        synchronized (this) {
+            return readLinesSince(sequence, false);
+        }
+    }
+
+    /**
+     * Gets at most a given number of the last retained lines.
+     *
+     * @param count the max number of lines.
+     * @return {@link OutputLines} that can be empty if there are no lines.
+     */
+    public OutputLines getLastLines(int count) {
+        return getLinesSince(lineCount - count);
+    }
+
+    /**
+     * @return the number of lines written so far, that is the sequence number of the next line.
+     */
+    public long getLineCount() {
+        return lineCount;
+    }
+
+    /**
+     * @return the number that is changed on every write, so readers can tell whether anything was written.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    public void addListener(Runnable listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Runnable listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Joins all the retained lines, every line ends with \n.
+     */
+    @Override
+    public String toString() {
+        return getLinesSince(0).toText();
+    }
+
+    /**
+     * Reads the lines without the lock, but returns null if they were overwritten while being read.
+     */
+    private OutputLines readLinesSince(long sequence, boolean validate) {
+        // the ring is taken before checking the spilled output, because it's released after the output is spilled
+        byte[] ring = this.bytes;
+        long[] starts = this.lineStarts;
+        if (ring == null || starts == null)
+            return spilled.getLinesSince(sequence);
+        // the line starts are allocated before the ring, so nothing has been written if the ring is not allocated
+        if (ring == UNALLOCATED_BYTES)
+            return new OutputLines(0, List.of());
+
+        long lines = this.lineCount;
+        long written = this.writtenBytes;
+
+        long from = Math.min(lines, Math.max(sequence, Math.max(0, lines - maxLines)));
+        long first = firstRetained(ring, starts, from, lines, written);
+        List<String> result = new ArrayList<>((int) (lines - first));
+
+        for (long s = first; s < lines; s++) {
+            long start = lineStart(starts, s);
+            long end = lineStart(starts, s + 1);
+
+            // the starts can be torn by the writer, the read is validated below anyway
+            if (end < start || end - start > ring.length)
+                return null;
+
+            byte[] line = new byte[(int) (end - start)];
+            copy(ring, start, line, 0, line.length);
+            result.add(new String(line, StandardCharsets.UTF_8));
+        }
+
+        if (validate) {
+            VarHandle.acquireFence();
+            if (this.bytes != ring || this.lineStarts != starts || this.lineCount - maxLines > first || this.reservedBytes - ring.length > lineStart(starts, first))
+                return null;
+        }
+
+        return new OutputLines(first, result);
+    }
+
+    /**
+     * Finds the first line from a given one whose bytes have not been overwritten.
+     */
+    private static long firstRetained(byte[] ring, long[] starts, long from, long lines, long written) {
+        long low = from;
+        long high = lines;
+        long oldestByte = written - ring.length;
+
+        while (low < high) {
+            long middle = (low + high) >>> 1;
+
+            if (lineStart(starts, middle) < oldestByte)
+                low = middle + 1;
+            else
+                high = middle;
+        }
+
+        return low;
+    }
+
+    private static void copy(byte[] ring, long start, byte[] destination, int position, int length) {
+        int offset = (int) (start % ring.length);
+        int head = Math.min(length, ring.length - offset);
+
+        System.arraycopy(ring, offset, destination, position, head);
+        System.arraycopy(ring, 0, destination, position + head, length - head);
+    }
+
+    private void allocate() {
+        if (bytes != UNALLOCATED_BYTES)
+            return;
+
+        this.lineStarts = new long[Math.min(maxLineStarts(), INITIAL_LINE_STARTS)];
+        this.bytes = new byte[Math.min(maxBytes, INITIAL_BYTES)];
+    }
+
+    /**
+     * Doubles the ring until it fits a given number of written bytes or reaches the byte quota.
+     */
+    private void growRing(long required) {
+        byte[] ring = this.bytes;
+        if (ring.length == maxBytes || required <= ring.length)
+            return;
+
+        int length = ring.length;
+        while (length < required && length < maxBytes) {
+            length = (int) Math.min(maxBytes, length * 2L);
+        }
+        this.bytes = Arrays.copyOf(ring, length);
+    }
+
+    /**
+     * Doubles the index of line starts until it fits a given sequence number or reaches the line quota.
+     */
+    private void growLineStarts(long sequence) {
+        long[] starts = this.lineStarts;
+        if (starts.length == maxLineStarts() || sequence < starts.length)
+            return;
+
+        int length = starts.length;
+        while (length <= sequence && length < maxLineStarts()) {
+            length = (int) Math.min(maxLineStarts(), length * 2L);
+        }
+        this.lineStarts = Arrays.copyOf(starts, length);
+    }
+
+    /**
+     * One extra start for the unterminated tail and one for the line that is being terminated.
+     */
+    private int maxLineStarts() {
+        return maxLines + 2;
+    }
+
+    private void append(byte[] b, int off, int len) {
+        while (len > 0) {
+            long written = this.writtenBytes;
+            long lineLength = written - lineStart(lineStarts, lineCount);
+
+            growRing(written + len);
+            byte[] ring = this.bytes;
+
+            if (lineLength == ring.length) {
+                terminateLine();
+                continue;
+            }
+
+            int chunk = (int) Math.min(len, ring.length - lineLength);
+            this.reservedBytes = written + chunk;
+            VarHandle.storeStoreFence();
+
+            int offset = (int) (written % ring.length);
+            int head = Math.min(chunk, ring.length - offset);
+            System.arraycopy(b, off, ring, offset, head);
+            System.arraycopy(b, off + head, ring, 0, chunk - head);
+
+            this.writtenBytes = written + chunk;
+            off += chunk;
+            len -= chunk;
+        }
+    }
+
+    private void terminateLine() {
+        long lines = this.lineCount;
+        growLineStarts(lines + 1);
+        long[] starts = this.lineStarts;
+
+        starts[(int) ((lines + 1) % starts.length)] = this.writtenBytes;
+        this.lineCount = lines + 1;
+    }
+
+    private static long lineStart(long[] starts, long sequence) {
+        return starts[(int) (sequence % starts.length)];
+    }
+
+    private void notifyListeners() {
+        for (Runnable listener : listeners) {
+            listener.run();
+        }
+    }
+}
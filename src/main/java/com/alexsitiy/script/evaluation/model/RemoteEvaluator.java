@@ -0,0 +1,40 @@
+package com.alexsitiy.script.evaluation.model;
+
+import com.alexsitiy.script.evaluation.engine.ExecutionBudget;
+
+import java.io.OutputStream;
+
+/**
+ * This interface describes where the code of {@link Script} is evaluated if it's not evaluated
+ * in the current JVM, so the garbage the script makes doesn't pause the rest of the app.
+ */
+@FunctionalInterface
+public interface RemoteEvaluator {
+
+    /**
+     * Evaluates the code and blocks until it's finished. If the calling thread is interrupted,
+     * the evaluation is cancelled and the method still returns once it's stopped.
+     *
+     * @param id     the id of the script.
+     * @param body   the JavaScript code that has been validated already.
+     * @param budget {@link ExecutionBudget} whose statement limit is enforced by the evaluator.
+     * @param out    the stream the output is written to as soon as it's received.
+     * @return {@link Outcome} of the evaluation.
+     */
+    Outcome evaluate(Long id, String body, ExecutionBudget budget, OutputStream out);
+
+    /**
+     * The way the evaluation was finished.
+     */
+    enum Kind {COMPLETED, FAILED, STATEMENT_LIMIT, CANCELLED}
+
+    /**
+     * The outcome of the evaluation.
+     *
+     * @param kind          the way the evaluation was finished.
+     * @param executionTime the time the code was executing in milliseconds.
+     * @param error         the description of the error, it's null if the evaluation was completed.
+     */
+    record Outcome(Kind kind, long executionTime, String error) {
+    }
+}
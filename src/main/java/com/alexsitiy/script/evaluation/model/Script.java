@@ -1,19 +1,25 @@
 package com.alexsitiy.script.evaluation.model;
 
+import com.alexsitiy.script.evaluation.engine.ExecutionBudget;
+import com.alexsitiy.script.evaluation.engine.ScriptContextFactory;
+import com.alexsitiy.script.evaluation.engine.SourceCache;
 import com.alexsitiy.script.evaluation.exception.ScriptNotValidException;
 import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.graalvm.polyglot.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.OutputStream;
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.FutureTask;
-import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
 
 /**
  * The main model of the app that is used to run JavaScript code and to
@@ -21,68 +27,194 @@ import java.util.concurrent.atomic.AtomicReference;
  * that allows to run script in async way.
  * <br/>
  * It utilizes {@link Context} for running JavaScript code.
+ * <br/>
+ * A script can also be a follower of another one that is still running the same code.
+ * In this case it doesn't run anything itself, but mirrors the status and the output
+ * of its leader until the leader is finished.
+ * <br/>
+ * Listeners can subscribe to the script to be notified of status transitions and new lines
+ * of the output. They're invoked in the thread that changes the script and must not block.
+ * <br/>
+ * An isolated script is evaluated by {@link RemoteEvaluator} outside this JVM, it holds no context
+ * and its output is written as it's received.
  */
 public final class Script {
 
     private static final Logger log = LoggerFactory.getLogger(Script.class);
-    private static final AtomicInteger idGenerator = new AtomicInteger();
 
-    private final Integer id;
+    private final Long id;
     private final AtomicReference<Status> status;
     private volatile Duration executionTime;
     private volatile Instant lastModified;
+    private volatile Instant lastRead;
     private volatile Instant scheduledTime;
-    private final String body;
-    private final CircularLineBuffer result;
+    private volatile String body;
+    private volatile Supplier<String> bodyLoader;
+    private volatile OutputRingBuffer result;
+    private final ExecutionBudget budget;
+    private volatile String interruptReason;
+
+    private volatile Source source;
+    private volatile Context context;
+    private volatile FutureTask<Void> task;
+    private volatile RemoteEvaluator evaluator;
 
-    private Value parsedCode;
-    private Context context;
-    private FutureTask<Void> task;
+    private final List<Script> followers = new CopyOnWriteArrayList<>();
+    private volatile Script leader;
+
+    private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+    private final List<Runnable> statusListeners = new CopyOnWriteArrayList<>();
 
     /**
-     * Creates an instance of {@link Script} with generated id. It also
+     * Creates an instance of {@link Script} with a given id. It also
      * initializes the following fields: status,result,context.
      *
      * @param body the JavaScript code that is needed to be executed.
      */
-    private Script(String body, CircularLineBuffer result, Value parsedCode, Context context) {
-        this.id = idGenerator.incrementAndGet();
+    private Script(Long id, String body, OutputRingBuffer result, ExecutionBudget budget, Source source, Context context) {
+        this.id = id;
         this.status = new AtomicReference<>(Status.IN_QUEUE);
         this.executionTime = Duration.ZERO;
         this.lastModified = Instant.now();
         this.body = body;
         this.result = result;
-        this.parsedCode = parsedCode;
+        this.budget = budget;
+        this.source = source;
         this.context = context;
         this.task = new FutureTask<>(this::run, null);
     }
 
+    /**
+     * Creates an instance of {@link Script} with a given id that doesn't run
+     * anything itself, but shares the output of another script.
+     */
+    private Script(Long id, String body, OutputRingBuffer result, ExecutionBudget budget,
+                   Status status, Duration executionTime, Instant scheduledTime) {
+        this.id = id;
+        this.status = new AtomicReference<>(status);
+        this.executionTime = executionTime;
+        this.lastModified = Instant.now();
+        this.scheduledTime = scheduledTime;
+        this.body = body;
+        this.result = result;
+        this.budget = budget;
+    }
+
     /**
      * Creates an instance of {@link Script}, but validates the given JavaScript code
-     * before.
+     * before. The validation is skipped if {@link SourceCache} already knows the code.
      *
-     * @param jsCode JavaScript that will be evaluated.
+     * @param id             the id of the script.
+     * @param jsCode         JavaScript that will be evaluated.
+     * @param contextFactory {@link ScriptContextFactory} that creates {@link Context} for the script.
+     * @param sourceCache    {@link SourceCache} that holds the parsed sources.
+     * @param budget         {@link ExecutionBudget} the script is allowed to spend.
+     * @param outputQuota    {@link OutputQuota} of the output the script keeps.
      * @return {@link Script}
      * @throws ScriptNotValidException if the given JavaScript code has some syntax errors and can't be executed.
      */
-    public static Script create(String jsCode) {
+    public static Script create(Long id, String jsCode, ScriptContextFactory contextFactory,
+                                SourceCache sourceCache, ExecutionBudget budget, OutputQuota outputQuota) {
+        OutputRingBuffer outStream = new OutputRingBuffer(outputQuota);
+        Context context = contextFactory.createContext(outStream, budget);
+
         try {
-            CircularLineBuffer outStream = new CircularLineBuffer(10, 100);
-            Context context = createContext(outStream);
+            Source source = sourceCache.getValidated(jsCode, context);
 
-            Value parsed = context.parse("js", jsCode);
+            return new Script(id, jsCode, outStream, budget, source, context);
+        } catch (ScriptNotValidException e) {
+            closeContext(context, false);
+            throw e;
+        }
+    }
 
-            return new Script(jsCode, outStream, parsed, context);
-        } catch (PolyglotException e) {
-            throw new ScriptNotValidException("The script has some syntax errors");
+    /**
+     * Creates a new COMPLETED {@link Script} that reuses the output of a given
+     * completed script instead of running the same code again.
+     *
+     * @param id        the id of the copy.
+     * @param completed the script whose output is reused.
+     * @return {@link Script} with a given id and the COMPLETED status.
+     * @throws IllegalStateException if the given script is not COMPLETED.
+     */
+    public static Script copyOf(Long id, Script completed) {
+        if (completed.getStatus() != Status.COMPLETED)
+            throw new IllegalStateException("Only completed script can be copied");
+
+        return new Script(id, completed.body, completed.result, completed.budget,
+                Status.COMPLETED, completed.executionTime, completed.scheduledTime);
+    }
+
+    /**
+     * Creates a finished {@link Script} that was recorded before the restart,
+     * it doesn't run anything.
+     *
+     * @param id            the id of the script.
+     * @param body          the JavaScript code of the script.
+     * @param budget        {@link ExecutionBudget} the script was given.
+     * @param status        the status the script was finished with.
+     * @param executionTime the time the script was executing.
+     * @param scheduledTime the time the script was started, can be null.
+     * @param lastModified  the time the script was finished.
+     * @param output        the retained lines of the output.
+     * @return {@link Script} with the given id and status.
+     * @throws IllegalArgumentException if the given status is not a finished one.
+     */
+    public static Script restore(Long id, String body, ExecutionBudget budget, Status status, Duration executionTime,
+                                 Instant scheduledTime, Instant lastModified, List<String> output) {
+        if (!Status.isFinished(status))
+            throw new IllegalArgumentException("Only finished script can be restored");
+
+        byte[][] lines = output.stream()
+                .map(line -> (line + "\n").getBytes(StandardCharsets.UTF_8))
+                .toArray(byte[][]::new);
+        int size = Arrays.stream(lines).mapToInt(line -> line.length).sum();
+
+        OutputRingBuffer result = new OutputRingBuffer(Math.max(1, size), Math.max(1, lines.length));
+        for (byte[] line : lines) {
+            result.write(line);
         }
+
+        Script script = new Script(id, body, result, budget, status, executionTime, scheduledTime);
+        script.lastModified = lastModified;
+
+        return script;
+    }
+
+    /**
+     * Creates a new {@link Script} that follows this one while it's IN_QUEUE or EXECUTING.
+     * The follower shares the output of this script and gets the same status
+     * on every status transition.
+     *
+     * @param id the id of the follower.
+     * @return {@link Script} follower or null if this script has already finished.
+     */
+    public synchronized Script attachFollower(Long id) {
+        if (Status.isFinished(getStatus()))
+            return null;
+
+        Script follower = new Script(id, getBody(), result, budget,
+                getStatus(), executionTime, scheduledTime);
+        follower.leader = this;
+        followers.add(follower);
+
+        return follower;
     }
 
     /**
-     * Runs a given JavaScript code via {@link Value} and changes
+     * Runs a given JavaScript code via {@link Context} and changes
      * script's status, executionTime, lastModified fields during execution.
+     * <br/>
+     * If the script is cancelled because it exceeded its {@link ExecutionBudget} or was interrupted,
+     * it gets the INTERRUPTED status and the reason is written to the result.
      */
     public void run() {
+        RemoteEvaluator evaluator = this.evaluator;
+        if (evaluator != null) {
+            runIn(evaluator);
+            return;
+        }
+
         long start = 0;
 
         try {
@@ -91,29 +223,72 @@ public final class Script {
             this.scheduledTime = Instant.now();
 
             start = System.currentTimeMillis();
-            this.parsedCode.executeVoid();
+            this.context.eval(this.source);
             setExecutionTime(System.currentTimeMillis() - start);
 
+            this.result.close();
             setStatus(Status.EXECUTING, Status.COMPLETED);
             log.debug("Script {} is completed successfully", this);
         } catch (PolyglotException e) {
             setExecutionTime(System.currentTimeMillis() - start);
 
-            if (e.isGuestException()) {
-                if (e.isInterrupted() || e.isCancelled()) {
-                    setStatus(Status.EXECUTING, Status.INTERRUPTED);
-                    log.debug("Script {} was interrupted", this);
-                } else {
-                    setStatus(Status.EXECUTING, Status.FAILED);
-                    log.debug("Script {} is failed", this);
+            if (e.isResourceExhausted())
+                finishOnStatementLimit();
+            else if (e.isInterrupted() || e.isCancelled())
+                finishOnInterruption(ExceptionUtils.getStackTrace(e));
+            else
+                finishOnFailure(ExceptionUtils.getStackTrace(e));
+        } finally {
+            releaseResources();
+        }
+    }
+
+    /**
+     * Runs the code via a given {@link RemoteEvaluator} the same way as {@link #run()} does.
+     */
+    private void runIn(RemoteEvaluator evaluator) {
+        try {
+            log.debug("Script {} is started remotely", this);
+            setStatus(Status.IN_QUEUE, Status.EXECUTING);
+            this.scheduledTime = Instant.now();
+
+            RemoteEvaluator.Outcome outcome = evaluator.evaluate(id, getBody(), budget, result);
+            setExecutionTime(outcome.executionTime());
+
+            switch (outcome.kind()) {
+                case COMPLETED -> {
+                    this.result.close();
+                    setStatus(Status.EXECUTING, Status.COMPLETED);
+                    log.debug("Script {} is completed successfully", this);
                 }
+                case STATEMENT_LIMIT -> finishOnStatementLimit();
+                case CANCELLED -> finishOnInterruption(outcome.error());
+                case FAILED -> finishOnFailure(outcome.error());
             }
-            this.result.write(("Error: " + ExceptionUtils.getStackTrace(e)).getBytes(StandardCharsets.UTF_8));
         } finally {
             releaseResources();
         }
     }
 
+    private void finishOnStatementLimit() {
+        writeError("Script exceeded the statement limit of %d statements".formatted(budget.statementLimit()));
+        setStatus(Status.EXECUTING, Status.INTERRUPTED);
+        log.debug("Script {} exceeded the statement limit", this);
+    }
+
+    private void finishOnInterruption(String error) {
+        String reason = this.interruptReason;
+        writeError(reason != null ? reason : error);
+        setStatus(Status.EXECUTING, Status.INTERRUPTED);
+        log.debug("Script {} was interrupted", this);
+    }
+
+    private void finishOnFailure(String error) {
+        writeError(error);
+        setStatus(Status.EXECUTING, Status.FAILED);
+        log.debug("Script {} is failed", this);
+    }
+
 
     /**
      * Terminates JavaScript code from executing or deletes it from
@@ -124,13 +299,22 @@ public final class Script {
      * the task was deleted from the queue.
      */
     public void stop() {
+        Script leader = this.leader;
+        if (leader != null) {
+            detachFrom(leader);
+            return;
+        }
+
+        FutureTask<Void> task = this.task;
         if (task != null && !task.isDone() && !task.isCancelled()) {
             task.cancel(true);
-            context.close(true);
+            closeContext(this.context, true);
 
             if (this.status.compareAndSet(Status.IN_QUEUE, Status.INTERRUPTED)) {
                 this.lastModified = Instant.now();
-                this.result.write("Error: Script was deleted from the queue without execution".getBytes(StandardCharsets.UTF_8));
+                writeError("Script was deleted from the queue without execution");
+                notifyFollowers();
+                notifyListeners();
                 releaseResources();
                 log.debug("Script {} was deleted from the queue", this);
             }
@@ -139,24 +323,119 @@ public final class Script {
 
 
     /**
-     * Creates an instance of {@link Context} that will be used to
-     * run JavaCode.
-     * <br/>
-     * It also includes {@link SandboxPolicy} as a CONSTRAINED in order to restrict
-     * the running JavaScript code and make the app more independent.
-     * <br/>
-     * It utilizes {@link CircularLineBuffer} as a stdout and stderr that
-     * ensures max capacity in order to alleviate the load on the heap.
+     * Releases the context of the script that waits in the queue, so it takes almost no memory
+     * until it's resumed. The script keeps the IN_QUEUE status and can be stopped as usual.
+     */
+    public void park() {
+        Context context = this.context;
+        this.context = null;
+        this.source = null;
+        closeContext(context, false);
+    }
+
+    /**
+     * Parks the script the same way as {@link #park()} does and releases its body too.
+     * Until the body is given back via {@link #unpark(String)}, it's read via a given loader.
+     *
+     * @param bodyLoader supplies the body of the script, it returns null if the body can't be read.
+     */
+    public void park(Supplier<String> bodyLoader) {
+        this.bodyLoader = bodyLoader;
+        this.body = null;
+        park();
+    }
+
+    /**
+     * Gives the body back to the script parked via {@link #park(Supplier)}, so it can be resumed.
+     *
+     * @param body the JavaScript code of the script.
+     */
+    public void unpark(String body) {
+        this.body = body;
+        this.bodyLoader = null;
+    }
+
+    /**
+     * Makes the script evaluated by a given {@link RemoteEvaluator} instead of its context.
+     * The context is released, since the code has been validated already.
+     *
+     * @param evaluator {@link RemoteEvaluator} the code is evaluated by.
+     */
+    public void isolate(RemoteEvaluator evaluator) {
+        park();
+        this.evaluator = evaluator;
+    }
+
+    /**
+     * Creates the context of the parked script, parses the code and runs it the same way as {@link #run()} does.
+     * Nothing is run if the script has been stopped meanwhile. An isolated script is run as is.
+     *
+     * @param contextFactory {@link ScriptContextFactory} that creates {@link Context} for the script.
+     * @param sourceCache    {@link SourceCache} that holds the parsed sources.
+     */
+    public void resume(ScriptContextFactory contextFactory, SourceCache sourceCache) {
+        FutureTask<Void> task = this.task;
+        if (task == null || getStatus() != Status.IN_QUEUE)
+            return;
+        if (this.evaluator != null) {
+            task.run();
+            return;
+        }
+
+        Context context = contextFactory.createContext(this.result, budget);
+        try {
+            this.source = sourceCache.getValidated(getBody(), context);
+        } catch (ScriptNotValidException e) {
+            closeContext(context, false);
+            if (this.status.compareAndSet(Status.IN_QUEUE, Status.FAILED)) {
+                this.lastModified = Instant.now();
+                writeError(e.getMessage());
+                notifyFollowers();
+                notifyListeners();
+                releaseResources();
+            }
+            return;
+        }
+
+        this.context = context;
+        task.run();
+        // the task does nothing if it was cancelled while the context was being created
+        closeContext(context, false);
+    }
+
+    /**
+     * Cancels the executing JavaScript code, so the script gets the INTERRUPTED status
+     * and a given reason is written to its result.
+     *
+     * @param reason the reason of interruption.
+     */
+    public void interrupt(String reason) {
+        this.interruptReason = reason;
+        closeContext(this.context, true);
+
+        // the thread waiting for the remote evaluation is interrupted, so the evaluator cancels it
+        FutureTask<Void> task = this.task;
+        if (this.evaluator != null && task != null)
+            task.cancel(true);
+        log.debug("Script {} is being interrupted: {}", this, reason);
+    }
+
+    /**
+     * Closes a given {@link Context} in order to release its resources in the engine.
+     * It ignores the context that has been already closed or is being closed by another thread.
+     *
+     * @param context           the context to be closed, can be null.
+     * @param cancelIfExecuting whether the running code has to be cancelled.
      */
-    private static Context createContext(OutputStream result) {
-        return Context.newBuilder("js")
-                .engine(Engine.newBuilder("js")
-                        .option("engine.WarnInterpreterOnly", "false")
-                        .sandbox(SandboxPolicy.CONSTRAINED)
-                        .out(result)
-                        .err(result)
-                        .build())
-                .build();
+    private static void closeContext(Context context, boolean cancelIfExecuting) {
+        if (context == null)
+            return;
+
+        try {
+            context.close(cancelIfExecuting);
+        } catch (IllegalStateException | PolyglotException e) {
+            log.debug("Context couldn't be closed: {}", e.getMessage());
+        }
     }
 
     private void setStatus(Status expected, Status newStatus) {
@@ -167,14 +446,130 @@ public final class Script {
                     .formatted(expected.name(), newStatus.name()));
 
         this.lastModified = Instant.now();
+        notifyFollowers();
+        notifyListeners();
+    }
+
+    /**
+     * Subscribes a given listener to status transitions and new lines of the output.
+     *
+     * @param listener the listener that is invoked on every change.
+     */
+    public void subscribe(Runnable listener) {
+        listeners.add(listener);
+        result.addListener(listener);
+    }
+
+    /**
+     * Unsubscribes a given listener, so it's no longer invoked.
+     *
+     * @param listener the listener that was subscribed before.
+     */
+    public void unsubscribe(Runnable listener) {
+        listeners.remove(listener);
+        result.removeListener(listener);
+    }
+
+    /**
+     * Subscribes a given listener to status transitions only.
+     *
+     * @param listener the listener that is invoked on every status transition.
+     */
+    public void subscribeToStatus(Runnable listener) {
+        statusListeners.add(listener);
+    }
+
+    /**
+     * Unsubscribes a given listener of status transitions, so it's no longer invoked.
+     *
+     * @param listener the listener that was subscribed before.
+     */
+    public void unsubscribeFromStatus(Runnable listener) {
+        statusListeners.remove(listener);
+    }
+
+    private void notifyListeners() {
+        for (Runnable listener : statusListeners) {
+            listener.run();
+        }
+
+        for (Runnable listener : listeners) {
+            listener.run();
+        }
+    }
+
+    /**
+     * Passes the current state to all the followers and forgets
+     * them once this script is finished.
+     */
+    private synchronized void notifyFollowers() {
+        for (Script follower : followers) {
+            follower.mirror(this);
+        }
+
+        if (Status.isFinished(getStatus()))
+            followers.clear();
+    }
+
+    private void mirror(Script leader) {
+        Status current = this.status.get();
+        if (Status.isFinished(current))
+            return;
+
+        this.executionTime = leader.executionTime;
+        this.scheduledTime = leader.scheduledTime;
+        if (this.status.compareAndSet(current, leader.getStatus())) {
+            this.lastModified = leader.lastModified;
+
+            if (Status.isFinished(leader.getStatus()))
+                this.leader = null;
+
+            notifyListeners();
+        }
+    }
+
+    /**
+     * Stops following a given leader. The leader keeps running, but this script
+     * gets the INTERRUPTED status and its own output with an error.
+     */
+    private void detachFrom(Script leader) {
+        leader.followers.remove(this);
+
+        Status current = this.status.get();
+        if (!Status.isFinished(current) && this.status.compareAndSet(current, Status.INTERRUPTED)) {
+            OutputRingBuffer detachedResult = new OutputRingBuffer(256, 1);
+            detachedResult.write("Error: Script was detached from the run it was attached to\n".getBytes(StandardCharsets.UTF_8));
+
+            OutputRingBuffer sharedResult = this.result;
+            for (Runnable listener : listeners) {
+                sharedResult.removeListener(listener);
+                detachedResult.addListener(listener);
+            }
+
+            this.result = detachedResult;
+            this.leader = null;
+            this.lastModified = Instant.now();
+            notifyListeners();
+            log.debug("Script {} was detached from {}", this, leader);
+        }
     }
 
     private void releaseResources() {
-        this.parsedCode = null;
+        closeContext(this.context, false);
+        this.source = null;
         this.context = null;
         this.task = null;
     }
 
+    /**
+     * Writes a given error as a separate line and terminates the output.
+     */
+    private void writeError(String message) {
+        this.result.close();
+        this.result.write(("Error: " + message).getBytes(StandardCharsets.UTF_8));
+        this.result.close();
+    }
+
     private void setExecutionTime(long millis) {
         this.executionTime = Duration.of(millis, ChronoUnit.MILLIS);
     }
@@ -183,11 +578,15 @@ public final class Script {
         return this.task;
     }
 
+    public ExecutionBudget getBudget() {
+        return budget;
+    }
+
     public Instant getScheduledTime() {
         return scheduledTime;
     }
 
-    public Integer getId() {
+    public Long getId() {
         return id;
     }
 
@@ -199,19 +598,109 @@ public final class Script {
         return executionTime.toMillis();
     }
 
+    /**
+     * @return the JavaScript code of the script, it's read via the loader if the body is parked
+     * and is empty if it can't be read anymore.
+     */
     public String getBody() {
-        return body;
+        String body = this.body;
+        if (body != null)
+            return body;
+
+        Supplier<String> loader = this.bodyLoader;
+        String loaded = loader == null ? null : loader.get();
+        if (loaded != null)
+            return loaded;
+
+        // the body could be given back while it was being loaded
+        body = this.body;
+        return body == null ? "" : body;
     }
 
     public String getResult() {
         return result.toString();
     }
 
+    /**
+     * Gets the lines of the output whose sequence number is not less than a given one.
+     *
+     * @param sequence the sequence number of the first line to be read.
+     * @return {@link OutputLines} that can be empty if there are no new lines.
+     */
+    public OutputLines getResultSince(long sequence) {
+        return result.getLinesSince(sequence);
+    }
+
+    /**
+     * @return the number of bytes the output takes in memory.
+     */
+    public long getResultFootprint() {
+        return result.getFootprint();
+    }
+
+    /**
+     * Moves the output to a given {@link SpillTarget} to release the memory. The output of the followers and
+     * copies is moved too, because they share it.
+     *
+     * @param target the target the output is written to.
+     * @return the number of bytes released from memory.
+     * @throws IOException if the output couldn't be written.
+     */
+    public long spillResult(SpillTarget target) throws IOException {
+        return result.spill(target);
+    }
+
+    /**
+     * @return {@link SpilledOutput} if the output has been spilled, otherwise null.
+     */
+    public SpilledOutput getSpilledResult() {
+        return result.getSpilled();
+    }
+
+    /**
+     * @return the number that is changed on every write to the output.
+     */
+    public long getResultVersion() {
+        return result.getVersion();
+    }
+
+    /**
+     * Gets at most a given number of the last lines of the output.
+     *
+     * @param count the max number of lines.
+     * @return {@link OutputLines} that can be empty if there are no lines.
+     */
+    public OutputLines getResultTail(int count) {
+        return result.getLastLines(count);
+    }
+
 
     public Instant getLastModified() {
         return lastModified;
     }
 
+    /**
+     * Remembers that the script was read by a user.
+     */
+    public void markRead() {
+        this.lastRead = Instant.now();
+    }
+
+    /**
+     * @return the time the script was last read by a user or the time it was last modified if it was never read.
+     */
+    public Instant getLastAccessed() {
+        Instant lastRead = this.lastRead;
+        return lastRead != null && lastRead.isAfter(lastModified) ? lastRead : lastModified;
+    }
+
+    /**
+     * @return the number of bytes of the retained output.
+     */
+    public long getResultSize() {
+        return result.getSize();
+    }
+
     @Override
     public String toString() {
         return "Script{" +
@@ -0,0 +1,22 @@
+package com.alexsitiy.script.evaluation.model;
+
+import java.io.IOException;
+
+/**
+ * This interface describes where the complete output of {@link OutputRingBuffer} is moved to
+ * in order to release the memory.
+ */
+@FunctionalInterface
+public interface SpillTarget {
+
+    /**
+     * Writes the text of the output.
+     *
+     * @param text          the lines, every line ends with \n.
+     * @param lineEnds      the offset right after every line in the text.
+     * @param firstSequence the sequence number of the first line.
+     * @return {@link SpilledOutput} that reads the lines back.
+     * @throws IOException if the text couldn't be written.
+     */
+    SpilledOutput write(byte[] text, int[] lineEnds, long firstSequence) throws IOException;
+}
@@ -0,0 +1,60 @@
+package com.alexsitiy.script.evaluation.model;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class is the output of the script that was moved to a region of a file by {@link SpillTarget}.
+ * Only the line index stays in memory, the lines are read back via memory-mapped {@link java.nio.ByteBuffer}.
+ * The whole text can also be served straight from the file region.
+ *
+ * @param file          the file the text is written to.
+ * @param offset        the offset of the text in the file.
+ * @param length        the number of bytes of the text.
+ * @param lineEnds      the offset right after every line in the text.
+ * @param firstSequence the sequence number of the first line.
+ */
+public record SpilledOutput(Path file, long offset, int length, int[] lineEnds, long firstSequence) {
+
+    /**
+     * Gets the lines whose sequence number is not less than a given one.
+     *
+     * @param sequence the sequence number of the first line to be read.
+     * @return {@link OutputLines} that can be empty if there are no new lines.
+     * @throws UncheckedIOException if the file couldn't be read.
+     */
+    public OutputLines getLinesSince(long sequence) {
+        long next = firstSequence + lineEnds.length;
+        long first = Math.min(next, Math.max(sequence, firstSequence));
+        List<String> lines = new ArrayList<>((int) (next - first));
+
+        if (first == next)
+            return new OutputLines(first, lines);
+
+        MappedByteBuffer text = map();
+        for (int i = (int) (first - firstSequence); i < lineEnds.length; i++) {
+            int start = i == 0 ? 0 : lineEnds[i - 1];
+            byte[] line = new byte[lineEnds[i] - start - 1];
+
+            text.get(start, line);
+            lines.add(new String(line, StandardCharsets.UTF_8));
+        }
+
+        return new OutputLines(first, lines);
+    }
+
+    private MappedByteBuffer map() {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.alexsitiy.script.evaluation.repository;
+
+import com.alexsitiy.script.evaluation.exception.InvalidCursorException;
+import com.alexsitiy.script.evaluation.model.Script;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * This class is a total order of scripts that is used for keyset pagination. The sort key of a script
+ * consists of the values of the given sorts followed by the id, so two scripts are never equal.
+ * <br/>
+ * The key is also encoded to an opaque cursor that includes the sorts it was created for and whether
+ * the page goes after or before the key.
+ */
+final class ScriptOrder implements Comparator<long[]> {
+
+    private enum Field {ID, TIME, SCHEDULED}
+
+    private record Sort(Field field, boolean descending) {
+    }
+
+    /**
+     * The decoded cursor.
+     *
+     * @param before whether the page goes before the key.
+     * @param key    the sort key of the last seen script.
+     */
+    record Cursor(boolean before, long[] key) {
+    }
+
+    /**
+     * The script with its sort key.
+     */
+    record Keyed<T>(long[] key, T script) {
+    }
+
+    private final List<Sort> sorts;
+    private final String signature;
+
+    private ScriptOrder(List<Sort> sorts, String signature) {
+        this.sorts = sorts;
+        this.signature = signature;
+    }
+
+    /**
+     * Creates the order from the sorts that are accepted by {@link ScriptRepository#findAll}, unknown sorts are ignored.
+     */
+    static ScriptOrder of(List<String> sortValues) {
+        List<Sort> sorts = new ArrayList<>();
+        List<String> known = new ArrayList<>();
+
+        if (sortValues != null) {
+            for (String sortValue : sortValues) {
+                Sort sort = switch (sortValue) {
+                    case "id" -> new Sort(Field.ID, false);
+                    case "ID" -> new Sort(Field.ID, true);
+                    case "time" -> new Sort(Field.TIME, false);
+                    case "TIME" -> new Sort(Field.TIME, true);
+                    case "scheduled" -> new Sort(Field.SCHEDULED, false);
+                    case "SCHEDULED" -> new Sort(Field.SCHEDULED, true);
+                    default -> null;
+                };
+
+                if (sort != null) {
+                    sorts.add(sort);
+                    known.add(sortValue);
+                }
+            }
+        }
+
+        return new ScriptOrder(sorts, String.join(",", known));
+    }
+
+    /**
+     * Gets the sort key of a given script. Scripts that have not been scheduled yet go last.
+     */
+    long[] keyOf(Script script) {
+        return keyOf(script.getId(), script.getExecutionTime(), script.getScheduledTime());
+    }
+
+    /**
+     * Gets the sort key of a script from its values, so scripts can be ordered by their representations too.
+     */
+    long[] keyOf(long id, long executionTime, Instant scheduledTime) {
+        long[] key = new long[sorts.size() + 1];
+
+        for (int i = 0; i < sorts.size(); i++) {
+            key[i] = switch (sorts.get(i).field()) {
+                case ID -> id;
+                case TIME -> executionTime;
+                case SCHEDULED -> scheduledTime == null ? Long.MAX_VALUE : scheduledTime.toEpochMilli();
+            };
+        }
+        key[sorts.size()] = id;
+
+        return key;
+    }
+
+    @Override
+    public int compare(long[] first, long[] second) {
+        for (int i = 0; i < sorts.size(); i++) {
+            int result = Long.compare(first[i], second[i]);
+
+            if (result != 0)
+                return sorts.get(i).descending() ? -result : result;
+        }
+
+        return Long.compare(first[sorts.size()], second[sorts.size()]);
+    }
+
+    String encode(long[] key, boolean before) {
+        StringBuilder builder = new StringBuilder()
+                .append(before ? 'b' : 'a')
+                .append('|')
+                .append(signature);
+
+        for (long value : key) {
+            builder.append('|').append(value);
+        }
+
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(builder.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws InvalidCursorException if the cursor is malformed or was created for other sorts.
+     */
+    Cursor decode(String cursor) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|", -1);
+
+            if (parts.length != sorts.size() + 3 || !parts[1].equals(signature) || !(parts[0].equals("a") || parts[0].equals("b")))
+                throw new InvalidCursorException("The cursor doesn't match the requested sorts");
+
+            long[] key = new long[sorts.size() + 1];
+            for (int i = 0; i < key.length; i++) {
+                key[i] = Long.parseLong(parts[i + 2]);
+            }
+
+            return new Cursor(parts[0].equals("b"), key);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException("The cursor is malformed");
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.alexsitiy.script.evaluation.repository;
+
+import java.util.List;
+
+/**
+ * This class is a page of scripts found by {@link ScriptRepository#findPage} or merged by {@link ShardMerger}.
+ *
+ * @param scripts    the scripts of the page.
+ * @param nextCursor the cursor of the next page or null if this page is the last one.
+ * @param prevCursor the cursor of the previous page or null if this page is the first one.
+ * @param <T>        the type of the scripts.
+ */
+public record ScriptPage<T>(List<T> scripts, String nextCursor, String prevCursor) {
+
+    /**
+     * Creates the page and its cursors.
+     *
+     * @param order    the order the page was selected in.
+     * @param from     the cursor the page was requested with or null for the first page.
+     * @param selected the selected scripts with their sort keys in the order of the page.
+     * @param hasMore  whether there are other scripts in the direction of the page.
+     */
+    static <T> ScriptPage<T> of(ScriptOrder order, ScriptOrder.Cursor from, List<ScriptOrder.Keyed<T>> selected,
+                                boolean hasMore) {
+        boolean backward = from != null && from.before();
+        String nextCursor = null;
+        String prevCursor = null;
+
+        if (!selected.isEmpty()) {
+            long[] firstKey = selected.get(0).key();
+            long[] lastKey = selected.get(selected.size() - 1).key();
+
+            if (backward || hasMore)
+                nextCursor = order.encode(lastKey, false);
+            if (backward ? hasMore : from != null)
+                prevCursor = order.encode(firstKey, true);
+        }
+
+        return new ScriptPage<>(selected.stream().map(ScriptOrder.Keyed::script).toList(), nextCursor, prevCursor);
+    }
+}
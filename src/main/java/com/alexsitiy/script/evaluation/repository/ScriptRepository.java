@@ -1,37 +1,68 @@
 package com.alexsitiy.script.evaluation.repository;
 
 import com.alexsitiy.script.evaluation.exception.NoSuchScriptException;
+import com.alexsitiy.script.evaluation.exception.ScriptExpiredException;
 import com.alexsitiy.script.evaluation.model.Script;
 import com.alexsitiy.script.evaluation.model.Status;
+import com.alexsitiy.script.evaluation.repository.ScriptOrder.Keyed;
 import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.PriorityQueue;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Predicate;
+import java.util.stream.Stream;
 
 /**
  * This class is used for CRUD operations over {@link Script}.
  * It utilizes {@link ConcurrentHashMap} to store scripts.
  * It also includes caching via {@link ConcurrentHashMap} for {@link Comparator} that is used for soring scripts.
+ * <br/>
+ * Scripts are also indexed by their status in {@link EnumMap} of concurrent sets that is updated on every
+ * status transition, so filtered queries only touch the matching scripts and per-status counts are O(1).
+ * It registers script.status.items gauge with "status" tag.
+ * <br/>
+ * The ids of the scripts evicted by the retention policy are remembered in a bounded LRU,
+ * so reads of them can be told apart from reads of the ids that never existed.
  */
 @Component
 public final class ScriptRepository {
 
     private static final Logger log = LoggerFactory.getLogger(ScriptRepository.class);
+    private static final int MAX_EXPIRED_IDS = 100_000;
 
-    private final Map<Integer, Script> scripts = new ConcurrentHashMap<>();
+    private final Map<Long, Script> scripts = new ConcurrentHashMap<>();
     private final Map<List<String>, Comparator<Script>> sortCache = new ConcurrentHashMap<>();
+    private final Map<Status, Set<Script>> statusIndex = new EnumMap<>(Status.class);
+    private final Map<Long, StatusIndexer> indexers = new ConcurrentHashMap<>();
+    private final Map<Long, Boolean> expiredIds = Collections.synchronizedMap(new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Boolean> eldest) {
+            return size() > MAX_EXPIRED_IDS;
+        }
+    });
 
 
     public ScriptRepository(MeterRegistry meterRegistry) {
         meterRegistry.gauge("sort.cache.items", sortCache, Map::size);
         meterRegistry.gauge("script.items", scripts, Map::size);
+
+        for (Status status : Status.values()) {
+            statusIndex.put(status, ConcurrentHashMap.newKeySet());
+            meterRegistry.gauge("script.status.items", Tags.of("status", status.name()), this,
+                    repository -> repository.count(status));
+        }
     }
 
 
@@ -44,23 +75,85 @@ public final class ScriptRepository {
      * @return {@link List<Script>} - the list of the found scripts.
      */
     public List<Script> findAll(Set<Status> statuses, List<String> sorts) {
-        return scripts.values().stream()
+        return candidates(statuses)
                 .filter(filteredBy(statuses))
                 .sorted(sortedBy(sorts))
                 .toList();
     }
 
+    /**
+     * Finds a page of {@link Script} according to passing statuses (filter) and sorts (sort) that goes
+     * after or before a given cursor. The order is made total by the id of the script.
+     * <br/>
+     * It keeps only the best limit + 1 scripts in a bounded heap instead of sorting all the matching scripts.
+     *
+     * @param statuses is used for filtering scripts.
+     * @param sorts    is used for soring scripts.
+     * @param limit    the max number of scripts on the page.
+     * @param cursor   the cursor of the page or null for the first page.
+     * @return {@link ScriptPage} with the cursors of the next and the previous pages.
+     * @throws com.alexsitiy.script.evaluation.exception.InvalidCursorException if the cursor is malformed or
+     *                                                                          was created for other sorts.
+     */
+    public ScriptPage<Script> findPage(Set<Status> statuses, List<String> sorts, int limit, String cursor) {
+        ScriptOrder order = ScriptOrder.of(sorts);
+        ScriptOrder.Cursor from = cursor == null ? null : order.decode(cursor);
+        boolean backward = from != null && from.before();
+        Comparator<long[]> comparator = backward ? order.reversed() : order;
+
+        // the worst of the selected scripts is on the top of the heap
+        PriorityQueue<Keyed<Script>> heap = new PriorityQueue<>(limit + 1, (o1, o2) -> comparator.compare(o2.key(), o1.key()));
+        candidates(statuses)
+                .filter(filteredBy(statuses))
+                .forEach(script -> {
+                    long[] key = order.keyOf(script);
+                    if (from != null && comparator.compare(key, from.key()) <= 0)
+                        return;
+
+                    if (heap.size() <= limit) {
+                        heap.add(new Keyed<>(key, script));
+                    } else if (comparator.compare(key, heap.peek().key()) < 0) {
+                        heap.poll();
+                        heap.add(new Keyed<>(key, script));
+                    }
+                });
+
+        List<Keyed<Script>> selected = new ArrayList<>(heap);
+        selected.sort((o1, o2) -> comparator.compare(o1.key(), o2.key()));
+
+        boolean hasMore = selected.size() > limit;
+        if (hasMore)
+            selected = selected.subList(0, limit);
+        if (backward)
+            Collections.reverse(selected);
+
+        return ScriptPage.of(order, from, selected, hasMore);
+    }
+
+    /**
+     * Counts the scripts with a given status.
+     *
+     * @param status the status of the scripts.
+     * @return the number of the scripts.
+     */
+    public int count(Status status) {
+        return statusIndex.get(status).size();
+    }
+
 
     /**
      * Finds a specific {@link Script} by its id and return it.
      *
      * @param id id of the searching script.
      * @return {@link Script} - found script.
-     * @throws NoSuchScriptException if the script with a given id was not found.
+     * @throws NoSuchScriptException  if the script with a given id was not found.
+     * @throws ScriptExpiredException if the script with a given id was evicted by the retention policy.
      */
-    public Script findById(Integer id) {
+    public Script findById(Long id) {
         Script script = scripts.get(id);
 
+        if (script == null && expiredIds.containsKey(id))
+            throw new ScriptExpiredException("Script with id:%d has expired".formatted(id), id);
         if (script == null)
             throw new NoSuchScriptException("There is no such a Script with id:%d".formatted(id), id);
 
@@ -71,7 +164,16 @@ public final class ScriptRepository {
      * Saves a given {@link Script} to storage.
      */
     public void save(Script script) {
-        scripts.put(script.getId(), script);
+        if (scripts.put(script.getId(), script) == script)
+            return;
+
+        StatusIndexer indexer = new StatusIndexer(script);
+        StatusIndexer replaced = indexers.put(script.getId(), indexer);
+        if (replaced != null)
+            replaced.remove();
+
+        script.subscribeToStatus(indexer);
+        indexer.run();
     }
 
     /**
@@ -79,11 +181,43 @@ public final class ScriptRepository {
      *
      * @param id the id of the script
      */
-    public void delete(Integer id) {
+    public void delete(Long id) {
         scripts.remove(id);
+
+        StatusIndexer indexer = indexers.remove(id);
+        if (indexer != null)
+            indexer.remove();
+
         log.debug("Script with id {} was deleted", id);
     }
 
+    /**
+     * Deletes the script by its id and remembers that it has expired.
+     *
+     * @param id the id of the script
+     */
+    public void evict(Long id) {
+        expiredIds.put(id, Boolean.TRUE);
+        delete(id);
+    }
+
+    /**
+     * Gets the scripts which can have one of the given statuses. It uses the status index, the status
+     * of the script can be changed meanwhile, so the scripts still need to be filtered. A script can also
+     * move from one set to another while they're read, so the duplicates are dropped.
+     */
+    private Stream<Script> candidates(Set<Status> statuses) {
+        if (statuses == null || statuses.isEmpty())
+            return scripts.values().stream();
+
+        if (statuses.size() == 1)
+            return statusIndex.get(statuses.iterator().next()).stream();
+
+        return statuses.stream()
+                .flatMap(status -> statusIndex.get(status).stream())
+                .distinct();
+    }
+
     /**
      * Creates a Predicate for Script.
      *
@@ -128,7 +262,7 @@ public final class ScriptRepository {
     private Comparator<Script> createComparator(String sortValue, Comparator<Script> comparator) {
         return switch (sortValue) {
             case "id" ->
-                    (comparator == null) ? Comparator.comparingInt(Script::getId) : comparator.thenComparingInt(Script::getId);
+                    (comparator == null) ? Comparator.comparingLong(Script::getId) : comparator.thenComparingLong(Script::getId);
             case "ID" ->
                     (comparator == null) ? Comparator.comparing(Script::getId, Comparator.reverseOrder()) : comparator.thenComparing(Script::getId, Comparator.reverseOrder());
             case "time" ->
@@ -142,4 +276,37 @@ public final class ScriptRepository {
             default -> null;
         };
     }
+
+    /**
+     * Moves the script to the set of its current status on every status transition.
+     */
+    private class StatusIndexer implements Runnable {
+        private final Script script;
+        private Status indexed;
+        private boolean removed;
+
+        private StatusIndexer(Script script) {
+            this.script = script;
+        }
+
+        @Override
+        public synchronized void run() {
+            Status current = script.getStatus();
+            if (removed || current == indexed)
+                return;
+
+            if (indexed != null)
+                statusIndex.get(indexed).remove(script);
+            statusIndex.get(current).add(script);
+            indexed = current;
+        }
+
+        private synchronized void remove() {
+            removed = true;
+            script.unsubscribeFromStatus(this);
+
+            if (indexed != null)
+                statusIndex.get(indexed).remove(script);
+        }
+    }
 }
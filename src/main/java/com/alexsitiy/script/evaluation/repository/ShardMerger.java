@@ -0,0 +1,99 @@
+package com.alexsitiy.script.evaluation.repository;
+
+import com.alexsitiy.script.evaluation.repository.ScriptOrder.Keyed;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * This class merges the scripts found on several nodes of the cluster. Every node sorts its own shard
+ * with {@link ScriptRepository}, so the shards are merged in the same total order and the merged pages
+ * can be paged through with the cursors of the single node: a cursor holds only the sort key of a script.
+ */
+public final class ShardMerger {
+
+    private ShardMerger() {
+    }
+
+    /**
+     * Merges all the scripts of the shards, the order is made total by the id.
+     *
+     * @param shards the scripts found on every node.
+     * @param sorts  the sorts the scripts were found with.
+     * @param values the function that gets the values the scripts are sorted by.
+     * @return the merged scripts.
+     */
+    public static <T> List<T> mergeAll(List<List<T>> shards, List<String> sorts, Function<T, SortValues> values) {
+        ScriptOrder order = ScriptOrder.of(sorts);
+
+        return keyed(shards, order, values).stream()
+                .sorted(Comparator.comparing(Keyed<T>::key, order))
+                .map(Keyed::script)
+                .toList();
+    }
+
+    /**
+     * Merges the pages the nodes have found for the same request. Every page holds at most limit scripts,
+     * so the merged page is the best limit scripts among them.
+     *
+     * @param pages  the pages found on every node.
+     * @param sorts  the sorts the pages were found with.
+     * @param limit  the max number of scripts on the page.
+     * @param cursor the cursor the pages were found with or null for the first page.
+     * @param values the function that gets the values the scripts are sorted by.
+     * @return the merged page with the cursors of the next and the previous pages.
+     * @throws com.alexsitiy.script.evaluation.exception.InvalidCursorException if the cursor is malformed or
+     *                                                                          was created for other sorts.
+     */
+    public static <T> ScriptPage<T> mergePages(List<ScriptPage<T>> pages, List<String> sorts, int limit, String cursor,
+                                               Function<T, SortValues> values) {
+        ScriptOrder order = ScriptOrder.of(sorts);
+        ScriptOrder.Cursor from = cursor == null ? null : order.decode(cursor);
+        boolean backward = from != null && from.before();
+        Comparator<long[]> comparator = backward ? order.reversed() : order;
+
+        // a node has more scripts in the direction of the page if it links to the page after its own
+        boolean hasMore = pages.stream()
+                .anyMatch(page -> (backward ? page.prevCursor() : page.nextCursor()) != null);
+
+        List<Keyed<T>> selected = keyed(pages.stream().map(ScriptPage::scripts).toList(), order, values);
+        selected.sort(Comparator.comparing(Keyed<T>::key, comparator));
+
+        if (selected.size() > limit) {
+            hasMore = true;
+            selected = selected.subList(0, limit);
+        }
+        if (backward)
+            Collections.reverse(selected);
+
+        return ScriptPage.of(order, from, selected, hasMore);
+    }
+
+    private static <T> List<Keyed<T>> keyed(List<List<T>> shards, ScriptOrder order, Function<T, SortValues> values) {
+        List<Keyed<T>> keyed = new ArrayList<>();
+
+        for (List<T> shard : shards) {
+            for (T script : shard) {
+                SortValues sortValues = values.apply(script);
+                keyed.add(new Keyed<>(order.keyOf(sortValues.id(), sortValues.executionTime(), sortValues.scheduledTime()),
+                        script));
+            }
+        }
+
+        return keyed;
+    }
+
+    /**
+     * The values of a script the scripts are sorted by.
+     *
+     * @param id            the id of the script.
+     * @param executionTime the execution time of the script.
+     * @param scheduledTime the scheduled time of the script, it can be null.
+     */
+    public record SortValues(long id, long executionTime, Instant scheduledTime) {
+    }
+}
@@ -0,0 +1,89 @@
+package com.alexsitiy.script.evaluation.service;
+
+import com.alexsitiy.script.evaluation.model.Script;
+import com.alexsitiy.script.evaluation.model.Status;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class enforces the time limit of {@link com.alexsitiy.script.evaluation.engine.ExecutionBudget}.
+ * It periodically checks the watched scripts and interrupts the ones that have been
+ * EXECUTING longer than their time limit. Finished scripts are no longer watched.
+ * <br/>
+ * It registers the following metrics: script.budget.watched, script.budget.check
+ * (time spent on every check) and script.budget.exceeded with "type" tag equal to time.
+ */
+public class BudgetWatchdog implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(BudgetWatchdog.class);
+
+    private final Set<Script> watched = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService scheduler;
+    private final Timer checkTimer;
+    private final Counter timeExceeded;
+
+    public BudgetWatchdog(Duration checkInterval, MeterRegistry meterRegistry) {
+        this.checkTimer = meterRegistry.timer("script.budget.check");
+        this.timeExceeded = meterRegistry.counter("script.budget.exceeded", "type", "time");
+        meterRegistry.gauge("script.budget.watched", watched, Set::size);
+
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "budget-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = checkInterval.toMillis();
+        this.scheduler.scheduleWithFixedDelay(() -> checkTimer.record(this::check), interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Starts watching a given script if it has a time limit.
+     */
+    public void watch(Script script) {
+        if (script.getBudget().hasTimeLimit())
+            watched.add(script);
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    private void check() {
+        try {
+            Instant now = Instant.now();
+
+            for (Script script : watched) {
+                Status status = script.getStatus();
+
+                if (Status.isFinished(status)) {
+                    watched.remove(script);
+                } else if (status == Status.EXECUTING && isExceeded(script, now)) {
+                    watched.remove(script);
+                    timeExceeded.increment();
+                    script.interrupt("Script exceeded the time limit of %d ms"
+                            .formatted(script.getBudget().timeLimit().toMillis()));
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Budget check failed", e);
+        }
+    }
+
+    private boolean isExceeded(Script script, Instant now) {
+        Instant scheduledTime = script.getScheduledTime();
+
+        return scheduledTime != null && scheduledTime.plus(script.getBudget().timeLimit()).isBefore(now);
+    }
+}
@@ -0,0 +1,169 @@
+package com.alexsitiy.script.evaluation.service;
+
+import com.alexsitiy.script.evaluation.engine.ScriptContextFactory;
+import com.alexsitiy.script.evaluation.engine.SourceCache;
+import com.alexsitiy.script.evaluation.executor.ScriptScheduler;
+import com.alexsitiy.script.evaluation.model.Script;
+import com.alexsitiy.script.evaluation.model.Status;
+import com.alexsitiy.script.evaluation.storage.OverflowQueue;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.task.TaskRejectedException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class holds the scripts that were rejected by {@link ScriptScheduler} in {@link OverflowQueue}
+ * instead of rejecting them to the client. The scripts are parked, so they keep the IN_QUEUE status
+ * and can be stopped, but hold neither their contexts nor their bodies. The body of a waiting script
+ * is read from the file if it's requested and is given back to the script once it reaches the head.
+ * <br/>
+ * It periodically moves the head scripts to {@link ScriptScheduler} until it rejects again.
+ * A script creates its context and parses its code only once it's about to run.
+ * The scripts that were stopped while waiting are dropped. The scripts whose records were dropped
+ * as corrupted are stopped, so they don't wait forever.
+ * <br/>
+ * It registers script.overflow.offered and script.overflow.dispatched metrics.
+ */
+public class OverflowDispatcher implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(OverflowDispatcher.class);
+
+    private final OverflowQueue queue;
+    private final ScriptScheduler scriptScheduler;
+    private final ScriptContextFactory contextFactory;
+    private final SourceCache sourceCache;
+    /**
+     * The parked scripts in the order of their records, it's guarded by this dispatcher.
+     */
+    private final Map<Long, Script> parked = new LinkedHashMap<>();
+    private final ScheduledExecutorService scheduler;
+    private final Counter offered;
+    private final Counter dispatched;
+
+    public OverflowDispatcher(OverflowQueue queue,
+                              ScriptScheduler scriptScheduler,
+                              ScriptContextFactory contextFactory,
+                              SourceCache sourceCache,
+                              Duration pollInterval,
+                              MeterRegistry meterRegistry) {
+        this.queue = queue;
+        this.scriptScheduler = scriptScheduler;
+        this.contextFactory = contextFactory;
+        this.sourceCache = sourceCache;
+        this.offered = meterRegistry.counter("script.overflow.offered");
+        this.dispatched = meterRegistry.counter("script.overflow.dispatched");
+
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "overflow-dispatcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = pollInterval.toMillis();
+        this.scheduler.scheduleWithFixedDelay(this::dispatch, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Parks a given script and appends it to the overflow queue.
+     *
+     * @param script the script that was rejected by {@link ScriptScheduler}.
+     * @param tenant the tenant that submitted the script.
+     * @return true if the script was appended, false if the overflow queue is full too.
+     */
+    public boolean offer(Script script, String tenant) {
+        Long id = script.getId();
+        OverflowQueue.Entry entry = new OverflowQueue.Entry(id, tenant, script.getBudget(),
+                Instant.now(), script.getBody());
+
+        // the script is parked before it can be dispatched, the caller stops it if it's not appended
+        synchronized (this) {
+            long position = queue.offer(entry);
+            if (position < 0)
+                return false;
+
+            script.park(() -> queue.readBody(position, id));
+            parked.put(id, script);
+        }
+
+        offered.increment();
+        return true;
+    }
+
+    /**
+     * @return true if no script waits in the overflow queue, so new scripts don't overtake the waiting ones.
+     */
+    public boolean isEmpty() {
+        return queue.isEmpty();
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    private void dispatch() {
+        try {
+            while (dispatchHead()) {
+                // the scripts are dispatched until the queue is empty or the scheduler rejects
+            }
+        } catch (RuntimeException e) {
+            log.warn("Overflow dispatch failed", e);
+        }
+    }
+
+    /**
+     * Moves the head script to {@link ScriptScheduler} or drops it if it was stopped.
+     *
+     * @return true if the head entry was removed, false if the queue is empty or the scheduler rejected the script.
+     */
+    private synchronized boolean dispatchHead() {
+        OverflowQueue.Entry entry = queue.peek();
+        stopLost(entry);
+        if (entry == null)
+            return false;
+
+        Script script = parked.get(entry.id());
+        if (script != null) {
+            script.unpark(entry.body());
+
+            if (script.getStatus() == Status.IN_QUEUE) {
+                try {
+                    scriptScheduler.submit(entry.tenant(), () -> script.resume(contextFactory, sourceCache));
+                } catch (TaskRejectedException e) {
+                    return false;
+                }
+                dispatched.increment();
+            }
+        }
+
+        queue.poll();
+        parked.remove(entry.id());
+        return true;
+    }
+
+    /**
+     * Stops the parked scripts that are ahead of a given head entry, their records were dropped as corrupted.
+     */
+    private void stopLost(OverflowQueue.Entry head) {
+        Iterator<Map.Entry<Long, Script>> iterator = parked.entrySet().iterator();
+
+        while (iterator.hasNext()) {
+            Map.Entry<Long, Script> next = iterator.next();
+            if (head != null && next.getKey().equals(head.id()))
+                return;
+
+            iterator.remove();
+            log.warn("Record of script {} was dropped from the overflow queue, the script is stopped", next.getKey());
+            next.getValue().stop();
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.alexsitiy.script.evaluation.service;
+
+import com.alexsitiy.script.evaluation.model.Script;
+import com.alexsitiy.script.evaluation.model.Status;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * This class remembers the last run of every deterministic script body, so
+ * an identical submission doesn't have to occupy the thread pool again.
+ * <br/>
+ * If the remembered run is COMPLETED, a new {@link Script} that reuses its output is returned.
+ * If it's still IN_QUEUE or EXECUTING, a follower attached to that run is returned.
+ * FAILED and INTERRUPTED runs are forgotten. The least recently used bodies are
+ * evicted once the max size is reached, the deleted and expired runs are forgotten by {@link #forget(Script)},
+ * so their output can be collected.
+ * <br/>
+ * It registers the following metrics: script.memo.items, script.memo.hits (with
+ * "type" tag: completed, attached) and script.memo.misses.
+ */
+public class ResultMemo {
+
+    private final Map<String, Script> runs;
+    private final ScriptIdGenerator idGenerator;
+    private final Counter completedHits;
+    private final Counter attachedHits;
+    private final Counter misses;
+
+    public ResultMemo(int maxSize, ScriptIdGenerator idGenerator, MeterRegistry meterRegistry) {
+        if (maxSize < 1)
+            throw new IllegalArgumentException("The max size of the result memo must be positive");
+
+        this.idGenerator = idGenerator;
+        this.runs = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Script> eldest) {
+                return size() > maxSize;
+            }
+        };
+        this.completedHits = meterRegistry.counter("script.memo.hits", "type", "completed");
+        this.attachedHits = meterRegistry.counter("script.memo.hits", "type", "attached");
+        this.misses = meterRegistry.counter("script.memo.misses");
+
+        meterRegistry.gauge("script.memo.items", this, ResultMemo::size);
+    }
+
+    /**
+     * Finds the remembered run of a given body and returns a new {@link Script}
+     * that reuses it.
+     *
+     * @param body JavaScript code of the script.
+     * @return {@link Script} that is either a COMPLETED copy or a follower of the remembered run,
+     * or null if there is no run that can be reused.
+     */
+    public Script reuse(String body) {
+        Script run = get(body);
+
+        if (run != null) {
+            Script follower = run.attachFollower(idGenerator.nextId());
+            if (follower != null) {
+                attachedHits.increment();
+                return follower;
+            }
+
+            if (run.getStatus() == Status.COMPLETED) {
+                completedHits.increment();
+                return Script.copyOf(idGenerator.nextId(), run);
+            }
+
+            remove(body, run);
+        }
+
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * Remembers a given script as the latest run of its body.
+     */
+    public synchronized void remember(Script script) {
+        runs.put(script.getBody(), script);
+    }
+
+    /**
+     * Forgets a given script if it's the remembered run of its body, it's invoked once the script is deleted.
+     */
+    public synchronized void forget(Script script) {
+        runs.remove(script.getBody(), script);
+    }
+
+    private synchronized Script get(String body) {
+        return runs.get(body);
+    }
+
+    private synchronized void remove(String body, Script run) {
+        runs.remove(body, run);
+    }
+
+    private synchronized int size() {
+        return runs.size();
+    }
+}
@@ -0,0 +1,248 @@
+package com.alexsitiy.script.evaluation.service;
+
+import com.alexsitiy.script.evaluation.model.OutputLines;
+import com.alexsitiy.script.evaluation.model.Script;
+import com.alexsitiy.script.evaluation.model.Status;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This class streams the output of scripts via Server-Sent Events. Every line is sent as
+ * a "line" event whose id is the sequence number of the line, so a client can resume the stream
+ * from the line after Last-Event-ID. When the script is finished, a "status" event with its status
+ * is sent and the stream is completed.
+ * <br/>
+ * Streams subscribe to {@link Script} and don't poll it. Notifications only schedule reading of the new lines
+ * on the dispatch threads, so the script is never blocked by a slow client, and notifications that
+ * come while reading is scheduled are coalesced.
+ * <br/>
+ * The dispatch threads never write to a client. They put the events to the bounded buffer of the stream,
+ * the events are sent by a writer thread of its own that exists only while the buffer isn't empty.
+ * So a slow client holds only its own writer. If the client is so slow that its buffer overflows,
+ * the buffered events are dropped and the stream is completed once the pending write is over,
+ * the client can resume it from Last-Event-ID.
+ * <br/>
+ * It registers script.result.streams gauge and script.result.stream.lines counter.
+ */
+public class ResultStreamer implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(ResultStreamer.class);
+
+    private final Duration timeout;
+    private final int bufferSize;
+    private final ExecutorService dispatcher;
+    private final ExecutorService writer;
+    private final AtomicInteger streams = new AtomicInteger();
+    private final Counter sentLines;
+
+    /**
+     * @param timeout         the max time a stream is kept open.
+     * @param dispatchThreads the number of threads that read the new lines of the scripts.
+     * @param bufferSize      the max number of events waiting to be sent to a single client.
+     * @param meterRegistry   the registry the metrics are registered in.
+     */
+    public ResultStreamer(Duration timeout, int dispatchThreads, int bufferSize, MeterRegistry meterRegistry) {
+        if (bufferSize < 1)
+            throw new IllegalArgumentException("Buffer size must be positive");
+
+        this.timeout = timeout;
+        this.bufferSize = bufferSize;
+        this.sentLines = meterRegistry.counter("script.result.stream.lines");
+        meterRegistry.gauge("script.result.streams", streams);
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.dispatcher = Executors.newFixedThreadPool(dispatchThreads, runnable -> {
+            Thread thread = new Thread(runnable, "result-streamer-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        AtomicInteger writerNumber = new AtomicInteger();
+        this.writer = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "result-streamer-writer-" + writerNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Opens a stream of the output of a given script.
+     *
+     * @param script       the script whose output is streamed.
+     * @param fromSequence the sequence number of the first line to be sent.
+     * @return {@link SseEmitter} that sends the lines until the script is finished.
+     */
+    public SseEmitter stream(Script script, long fromSequence) {
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        Subscription subscription = new Subscription(script, emitter, fromSequence);
+
+        emitter.onCompletion(subscription::cancel);
+        emitter.onTimeout(subscription::cancel);
+        emitter.onError(e -> subscription.cancel());
+
+        streams.incrementAndGet();
+        script.subscribe(subscription);
+        subscription.run();
+
+        return emitter;
+    }
+
+    @Override
+    public void close() {
+        dispatcher.shutdownNow();
+        writer.shutdownNow();
+    }
+
+    /**
+     * An event waiting to be sent, the stream is completed after the last one.
+     */
+    private record Event(SseEmitter.SseEventBuilder builder, int lines, boolean last) {
+    }
+
+    private class Subscription implements Runnable {
+        private final Script script;
+        private final SseEmitter emitter;
+        private final Queue<Event> buffer = new ArrayBlockingQueue<>(bufferSize);
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private final AtomicBoolean writing = new AtomicBoolean();
+        private final AtomicBoolean cancelled = new AtomicBoolean();
+        private volatile boolean overflowed;
+        private long nextSequence;
+
+        private Subscription(Script script, SseEmitter emitter, long nextSequence) {
+            this.script = script;
+            this.emitter = emitter;
+            this.nextSequence = nextSequence;
+        }
+
+        /**
+         * Schedules reading of the new lines unless it's already scheduled.
+         */
+        @Override
+        public void run() {
+            if (cancelled.get() || !scheduled.compareAndSet(false, true))
+                return;
+
+            try {
+                dispatcher.execute(this::collect);
+            } catch (RejectedExecutionException e) {
+                overflow();
+            }
+        }
+
+        /**
+         * Puts the new lines and the final status to the buffer, it never blocks.
+         */
+        private synchronized void collect() {
+            scheduled.set(false);
+            if (cancelled.get() || overflowed)
+                return;
+
+            // the status is read before the lines, so the lines written before finishing are not missed
+            Status status = script.getStatus();
+            OutputLines output = script.getResultSince(nextSequence);
+
+            long sequence = output.firstSequence();
+            for (String line : output.lines()) {
+                SseEmitter.SseEventBuilder event = SseEmitter.event().id(String.valueOf(sequence++)).name("line").data(line);
+
+                if (!buffer.offer(new Event(event, 1, false))) {
+                    overflow();
+                    return;
+                }
+            }
+            nextSequence = output.nextSequence();
+
+            if (Status.isFinished(status)) {
+                script.unsubscribe(this);
+                if (!buffer.offer(new Event(SseEmitter.event().name("status").data(status.name()), 0, true))) {
+                    overflow();
+                    return;
+                }
+            }
+
+            startWriting();
+        }
+
+        /**
+         * Drops the buffered events, so the stream is completed by the writer as soon as it can.
+         */
+        private void overflow() {
+            log.debug("Buffer of the stream of script {} is full, the stream is completed", script.getId());
+            overflowed = true;
+            script.unsubscribe(this);
+            buffer.clear();
+            startWriting();
+        }
+
+        private void startWriting() {
+            if (!writing.compareAndSet(false, true))
+                return;
+
+            try {
+                writer.execute(this::write);
+            } catch (RejectedExecutionException e) {
+                writing.set(false);
+                cancel();
+            }
+        }
+
+        /**
+         * Sends the buffered events until the buffer is empty. It's the only place that writes to the client.
+         */
+        private void write() {
+            try {
+                while (!cancelled.get()) {
+                    if (overflowed) {
+                        emitter.complete();
+                        cancel();
+                        return;
+                    }
+
+                    Event event = buffer.poll();
+                    if (event == null) {
+                        writing.set(false);
+                        // an event could be put after polling and before the flag was reset
+                        if (buffer.isEmpty() && !overflowed || !writing.compareAndSet(false, true))
+                            return;
+                        continue;
+                    }
+
+                    emitter.send(event.builder());
+                    sentLines.increment(event.lines());
+
+                    if (event.last()) {
+                        emitter.complete();
+                        cancel();
+                    }
+                }
+            } catch (IOException | IllegalStateException e) {
+                log.debug("Stream of script {} is closed: {}", script.getId(), e.getMessage());
+                cancel();
+            } finally {
+                if (cancelled.get())
+                    buffer.clear();
+            }
+        }
+
+        private void cancel() {
+            if (cancelled.compareAndSet(false, true)) {
+                script.unsubscribe(this);
+                streams.decrementAndGet();
+            }
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.alexsitiy.script.evaluation.service;
+
+import com.alexsitiy.script.evaluation.model.Script;
+import com.alexsitiy.script.evaluation.model.Status;
+import com.alexsitiy.script.evaluation.repository.ScriptRepository;
+import com.alexsitiy.script.evaluation.storage.OutputSpiller;
+import com.alexsitiy.script.evaluation.storage.ScriptJournal;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * This class enforces the retention policy of finished scripts. It periodically evicts the ones
+ * that were finished longer than the max age ago, and then, in a given {@link Order}, the ones that
+ * exceed either the max count or the max size of the retained output. A zero limit is not enforced.
+ * <br/>
+ * Evicted scripts are removed from {@link ScriptRepository}, which remembers their ids,
+ * so reads of them get a distinct response instead of Not Found.
+ * <br/>
+ * It registers the following metrics: script.retention.sweep (time spent on every sweep),
+ * script.retention.output.bytes and script.retention.evicted with "reason" tag equal to age, count or size.
+ */
+public class RetentionSweeper implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(RetentionSweeper.class);
+    private static final Set<Status> FINISHED = EnumSet.of(Status.COMPLETED, Status.FAILED, Status.INTERRUPTED);
+
+    private final ScriptRepository scriptRepository;
+    private final OutputSpiller outputSpiller;
+    private final ScriptJournal scriptJournal;
+    private final ResultMemo resultMemo;
+    private final Duration maxAge;
+    private final int maxCount;
+    private final long maxOutputBytes;
+    private final Order order;
+
+    private final ScheduledExecutorService scheduler;
+    private final Timer sweepTimer;
+    private final Counter evictedByAge;
+    private final Counter evictedByCount;
+    private final Counter evictedBySize;
+    private final AtomicLong outputBytes = new AtomicLong();
+
+    public RetentionSweeper(ScriptRepository scriptRepository,
+                            OutputSpiller outputSpiller,
+                            ScriptJournal scriptJournal,
+                            ResultMemo resultMemo,
+                            Duration maxAge,
+                            int maxCount,
+                            long maxOutputBytes,
+                            Order order,
+                            Duration sweepInterval,
+                            MeterRegistry meterRegistry) {
+        this.scriptRepository = scriptRepository;
+        this.outputSpiller = outputSpiller;
+        this.scriptJournal = scriptJournal;
+        this.resultMemo = resultMemo;
+        this.maxAge = maxAge;
+        this.maxCount = maxCount;
+        this.maxOutputBytes = maxOutputBytes;
+        this.order = order;
+
+        this.sweepTimer = meterRegistry.timer("script.retention.sweep");
+        this.evictedByAge = meterRegistry.counter("script.retention.evicted", "reason", "age");
+        this.evictedByCount = meterRegistry.counter("script.retention.evicted", "reason", "count");
+        this.evictedBySize = meterRegistry.counter("script.retention.evicted", "reason", "size");
+        meterRegistry.gauge("script.retention.output.bytes", outputBytes);
+
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "retention-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = sweepInterval.toMillis();
+        this.scheduler.scheduleWithFixedDelay(() -> sweepTimer.record(this::sweep), interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    private void sweep() {
+        try {
+            List<Script> retained = new ArrayList<>();
+            Instant expiration = Instant.now().minus(maxAge);
+
+            for (Script script : scriptRepository.findAll(FINISHED, null)) {
+                if (!maxAge.isZero() && script.getLastModified().isBefore(expiration)) {
+                    evict(script, evictedByAge);
+                } else {
+                    retained.add(script);
+                }
+            }
+
+            retained.sort(Comparator.comparing(order.key));
+            long bytes = retained.stream().mapToLong(Script::getResultSize).sum();
+            int count = retained.size();
+
+            for (Script script : retained) {
+                if (maxCount > 0 && count > maxCount) {
+                    evict(script, evictedByCount);
+                } else if (maxOutputBytes > 0 && bytes > maxOutputBytes) {
+                    evict(script, evictedBySize);
+                } else {
+                    break;
+                }
+
+                count--;
+                bytes -= script.getResultSize();
+            }
+
+            outputBytes.set(bytes);
+        } catch (RuntimeException e) {
+            log.warn("Retention sweep failed", e);
+        }
+    }
+
+    private void evict(Script script, Counter counter) {
+        scriptRepository.evict(script.getId());
+        outputSpiller.untrack(script);
+        scriptJournal.recordDeleted(script.getId());
+        resultMemo.forget(script);
+        counter.increment();
+
+        log.debug("Script with id {} has expired", script.getId());
+    }
+
+    /**
+     * The order finished scripts are evicted in.
+     */
+    public enum Order {
+        /**
+         * The scripts that were finished earlier are evicted first.
+         */
+        OLDEST(Script::getLastModified),
+        /**
+         * The scripts that were read by users earlier are evicted first.
+         */
+        LEAST_RECENTLY_READ(Script::getLastAccessed);
+
+        private final Function<Script, Instant> key;
+
+        Order(Function<Script, Instant> key) {
+            this.key = key;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.alexsitiy.script.evaluation.service;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class generates 64-bit ids of scripts in Snowflake style. An id consists of the milliseconds since
+ * the custom epoch, the id of the node and the sequence number within the millisecond, so the ids generated
+ * by different nodes never collide and sort by the time they were generated.
+ * <br/>
+ * The id fits into 53 bits, so JavaScript clients read it as a number exactly. 41 bits of time last for 69 years,
+ * 6 bits of the node allow 64 nodes and 6 bits of the sequence allow 64 ids per millisecond.
+ * <br/>
+ * It never blocks. If the sequence is exhausted within a millisecond or the clock goes back, the next ids
+ * borrow the following milliseconds, so the ids stay unique and increasing. Since the last id is lost on restart,
+ * the ids recovered after it must be passed to {@link #advancePast(long)}, otherwise the clock that went back
+ * across the restart reissues them.
+ */
+public class ScriptIdGenerator {
+
+    public static final int MAX_NODE_ID = (1 << 6) - 1;
+
+    private static final int SEQUENCE_BITS = 6;
+    private static final int NODE_SHIFT = SEQUENCE_BITS;
+    private static final int TIME_SHIFT = SEQUENCE_BITS + 6;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    private static final long EPOCH = Instant.parse("2024-01-01T00:00:00Z").toEpochMilli();
+
+    private final long nodeId;
+    /**
+     * The milliseconds since the epoch shifted by the sequence bits plus the sequence number of the last id.
+     */
+    private final AtomicLong last = new AtomicLong();
+
+    /**
+     * @param nodeId the id of the node from 0 to {@link #MAX_NODE_ID}.
+     */
+    public ScriptIdGenerator(int nodeId) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID)
+            throw new IllegalArgumentException("The node id must be from 0 to %d".formatted(MAX_NODE_ID));
+
+        this.nodeId = nodeId;
+    }
+
+    /**
+     * @return the next id that is greater than all the ids generated by this node before.
+     */
+    public Long nextId() {
+        long now = (System.currentTimeMillis() - EPOCH) << SEQUENCE_BITS;
+        long next = last.accumulateAndGet(now, (previous, current) -> Math.max(previous + 1, current));
+
+        return (next >>> SEQUENCE_BITS) << TIME_SHIFT | nodeId << NODE_SHIFT | next & SEQUENCE_MASK;
+    }
+
+    /**
+     * Makes the next ids greater than a given id if it was generated by this node. The ids of other nodes are ignored.
+     *
+     * @param id the id generated before, e.g. by this node before the restart.
+     */
+    public void advancePast(long id) {
+        if (nodeOf(id) != nodeId)
+            return;
+
+        long generated = (id >>> TIME_SHIFT) << SEQUENCE_BITS | id & SEQUENCE_MASK;
+        last.accumulateAndGet(generated, Math::max);
+    }
+
+    /**
+     * @param id the id of the script.
+     * @return the id of the node that generated a given id.
+     */
+    public static int nodeOf(long id) {
+        return (int) (id >>> NODE_SHIFT & MAX_NODE_ID);
+    }
+
+    /**
+     * @param id the id of the script.
+     * @return the time a given id was generated at.
+     */
+    public static Instant timeOf(long id) {
+        return Instant.ofEpochMilli((id >>> TIME_SHIFT) + EPOCH);
+    }
+}
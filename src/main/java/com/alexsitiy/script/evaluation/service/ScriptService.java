@@ -1,39 +1,106 @@
 package com.alexsitiy.script.evaluation.service;
 
+import com.alexsitiy.script.evaluation.engine.ExecutionBudget;
+import com.alexsitiy.script.evaluation.engine.ScriptContextFactory;
+import com.alexsitiy.script.evaluation.engine.SourceCache;
 import com.alexsitiy.script.evaluation.exception.CapacityViolationException;
 import com.alexsitiy.script.evaluation.exception.IllegalScriptStateException;
 import com.alexsitiy.script.evaluation.exception.NoSuchScriptException;
+import com.alexsitiy.script.evaluation.exception.ScriptNotValidException;
+import com.alexsitiy.script.evaluation.executor.ScriptScheduler;
+import com.alexsitiy.script.evaluation.model.OutputQuota;
+import com.alexsitiy.script.evaluation.model.RemoteEvaluator;
 import com.alexsitiy.script.evaluation.model.Script;
 import com.alexsitiy.script.evaluation.model.Status;
+import com.alexsitiy.script.evaluation.repository.ScriptPage;
 import com.alexsitiy.script.evaluation.repository.ScriptRepository;
+import com.alexsitiy.script.evaluation.storage.JournaledScript;
+import com.alexsitiy.script.evaluation.storage.OutputSpiller;
+import com.alexsitiy.script.evaluation.storage.RecoveryMode;
+import com.alexsitiy.script.evaluation.storage.ScriptJournal;
 import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.task.TaskExecutor;
 import org.springframework.core.task.TaskRejectedException;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
 
 /**
  * This class is used for running and stopping scripts.
  * <p/>
  * Utilizes {@link ScriptRepository} to save and get the script.
- * Uses {@link TaskExecutor} to run scripts asynchronously.
+ * Uses {@link ScriptScheduler} to run scripts of the current tenant asynchronously and {@link ScriptContextFactory}
+ * to create contexts for them, {@link SourceCache} to avoid parsing the same code repeatedly
+ * and {@link ResultMemo} to reuse runs of deterministic scripts. Every script gets
+ * {@link ExecutionBudget} whose time limit is enforced by {@link BudgetWatchdog} and keeps its output
+ * within {@link OutputQuota}. The memory of the output is accounted by {@link OutputSpiller}.
+ * The scripts are recorded by {@link ScriptJournal}, so they can be recovered after the restart.
+ * The scripts that don't fit the queue of {@link ScriptScheduler} wait in {@link OverflowDispatcher}.
+ * If {@link RemoteEvaluator} is configured, the scripts are validated here and evaluated by it.
  *
  * @see com.alexsitiy.script.evaluation.model.Script
  */
 @Service
 public class ScriptService {
 
+    private static final Logger log = LoggerFactory.getLogger(ScriptService.class);
+
     private final ScriptRepository scriptRepository;
-    private final TaskExecutor taskExecutor;
+    private final ScriptScheduler scriptScheduler;
+    private final TenantResolver tenantResolver;
+    private final ScriptContextFactory contextFactory;
+    private final SourceCache sourceCache;
+    private final ResultMemo resultMemo;
+    private final BudgetWatchdog budgetWatchdog;
+    private final ExecutionBudget defaultExecutionBudget;
+    private final OutputQuota outputQuota;
+    private final OutputSpiller outputSpiller;
+    private final ScriptJournal scriptJournal;
+    private final OverflowDispatcher overflowDispatcher;
+    private final ScriptIdGenerator idGenerator;
+    private final RemoteEvaluator remoteEvaluator;
+    private final Counter rejections;
 
     @Autowired
     public ScriptService(ScriptRepository scriptRepository,
-                         TaskExecutor taskExecutor) {
+                         ScriptScheduler scriptScheduler,
+                         TenantResolver tenantResolver,
+                         ScriptContextFactory contextFactory,
+                         SourceCache sourceCache,
+                         ResultMemo resultMemo,
+                         BudgetWatchdog budgetWatchdog,
+                         ExecutionBudget defaultExecutionBudget,
+                         OutputQuota outputQuota,
+                         OutputSpiller outputSpiller,
+                         ScriptJournal scriptJournal,
+                         OverflowDispatcher overflowDispatcher,
+                         ScriptIdGenerator idGenerator,
+                         Optional<RemoteEvaluator> remoteEvaluator,
+                         MeterRegistry meterRegistry) {
         this.scriptRepository = scriptRepository;
-        this.taskExecutor = taskExecutor;
+        this.scriptScheduler = scriptScheduler;
+        this.tenantResolver = tenantResolver;
+        this.contextFactory = contextFactory;
+        this.sourceCache = sourceCache;
+        this.resultMemo = resultMemo;
+        this.budgetWatchdog = budgetWatchdog;
+        this.defaultExecutionBudget = defaultExecutionBudget;
+        this.outputQuota = outputQuota;
+        this.outputSpiller = outputSpiller;
+        this.scriptJournal = scriptJournal;
+        this.overflowDispatcher = overflowDispatcher;
+        this.idGenerator = idGenerator;
+        this.remoteEvaluator = remoteEvaluator.orElse(null);
+        this.rejections = meterRegistry.counter("script.admission.rejected");
     }
 
     /**
@@ -44,12 +111,23 @@ public class ScriptService {
         return scriptRepository.findAll(statuses, sorts);
     }
 
+    /**
+     * Delegates method to {@link ScriptRepository}
+     */
+    @Timed("script.findPage")
+    public ScriptPage<Script> findPage(Set<Status> statuses, List<String> sorts, int limit, String cursor) {
+        return scriptRepository.findPage(statuses, sorts, limit, cursor);
+    }
+
     /**
      * Delegates method to {@link ScriptRepository}
      */
     @Timed("script.findById")
-    public Script findById(Integer id) {
-        return scriptRepository.findById(id);
+    public Script findById(Long id) {
+        Script script = scriptRepository.findById(id);
+        script.markRead();
+
+        return script;
     }
 
 
@@ -57,23 +135,155 @@ public class ScriptService {
      * Runs a given JavaScript code in a separate Thread to evaluate the script,
      * but before it checks for syntax errors.
      * It also saves the script in the storage via {@link ScriptRepository}
+     * <br/>
+     * If the script is deterministic, the remembered run of the same code is reused via
+     * {@link ResultMemo} and the thread pool is not used at all.
+     * <br/>
+     * The default {@link ExecutionBudget} can be lowered by the given limits.
      *
-     * @param jsCode JavaScript code passed for evaluation.
+     * @param jsCode         JavaScript code passed for evaluation.
+     * @param deterministic  whether the same code always produces the same output.
+     * @param statementLimit the max number of statements the script can execute, can be null.
+     * @param timeLimit      the max time the script can execute, can be null.
      * @return {@link Script} as a representation of JavaScript code that holds
      * all the necessary information about it.
-     * @throws CapacityViolationException if there is no free place in the thread pool.
+     * @throws CapacityViolationException if there is no free place in the thread pool, it includes
+     *                                    the estimated wait until the place frees up.
      */
-    public Script evaluate(String jsCode) {
+    public Script evaluate(String jsCode, boolean deterministic, Long statementLimit, Duration timeLimit) {
+        ExecutionBudget budget = defaultExecutionBudget.lowerTo(statementLimit, timeLimit);
+        String tenant = tenantResolver.currentTenant();
+
+        Admission prepared = prepare(jsCode, deterministic, budget, tenant);
+        if (prepared.reused())
+            return prepared.script();
+
+        return admit(prepared.script(), deterministic, tenant);
+    }
+
+    /**
+     * Evaluates the given JavaScript codes the same way as {@link #evaluate(String, boolean, Long, Duration)}
+     * does, but the codes are parsed in parallel and each of them is admitted on its own.
+     * A script that is not valid or is rejected due to capacity doesn't fail the whole batch,
+     * it's reported in its {@link Admission} instead.
+     * <br/>
+     * The scripts are submitted in the given order, so the queue keeps it.
+     *
+     * @param jsCodes        JavaScript codes passed for evaluation.
+     * @param deterministic  whether the same code always produces the same output.
+     * @param statementLimit the max number of statements each script can execute, can be null.
+     * @param timeLimit      the max time each script can execute, can be null.
+     * @return List of {@link Admission} in the order of the given codes.
+     */
+    public List<Admission> evaluateAll(List<String> jsCodes, boolean deterministic, Long statementLimit, Duration timeLimit) {
+        ExecutionBudget budget = defaultExecutionBudget.lowerTo(statementLimit, timeLimit);
+        String tenant = tenantResolver.currentTenant();
+
+        List<Admission> admissions = new ArrayList<>(jsCodes.size());
+        Set<String> admittedBodies = new HashSet<>();
+        for (Admission parsed : jsCodes.parallelStream().map(jsCode -> parse(jsCode, deterministic, budget, tenant)).toList()) {
+            if (parsed.error() != null || parsed.reused()) {
+                admissions.add(parsed);
+                continue;
+            }
+
+            // the same body admitted earlier in the batch was missed by the parallel lookup
+            if (deterministic && !admittedBodies.add(parsed.script().getBody())) {
+                Script reused = reuse(parsed.script().getBody(), tenant);
+
+                if (reused != null) {
+                    parsed.script().stop();
+                    admissions.add(new Admission(reused, true, null));
+                    continue;
+                }
+            }
+
+            try {
+                admissions.add(Admission.accepted(admit(parsed.script(), deterministic, tenant)));
+            } catch (CapacityViolationException e) {
+                admissions.add(Admission.rejected(e));
+            }
+        }
+
+        return admissions;
+    }
+
+    private Admission parse(String jsCode, boolean deterministic, ExecutionBudget budget, String tenant) {
         try {
-            Script script = Script.create(jsCode);
+            return prepare(jsCode, deterministic, budget, tenant);
+        } catch (ScriptNotValidException e) {
+            return Admission.rejected(e);
+        }
+    }
+
+    private Admission prepare(String jsCode, boolean deterministic, ExecutionBudget budget, String tenant) {
+        if (deterministic) {
+            Script reused = reuse(jsCode, tenant);
+
+            if (reused != null)
+                return new Admission(reused, true, null);
+        }
+
+        return new Admission(create(idGenerator.nextId(), jsCode, budget), false, null);
+    }
+
+    private Script reuse(String jsCode, String tenant) {
+        Script reused = resultMemo.reuse(jsCode);
+
+        if (reused != null) {
+            scriptJournal.record(reused, tenant);
+            scriptRepository.save(reused);
+        }
+
+        return reused;
+    }
+
+    private Script create(Long id, String jsCode, ExecutionBudget budget) {
+        Script script = Script.create(id, jsCode, contextFactory, sourceCache, budget, outputQuota);
+
+        if (remoteEvaluator != null)
+            script.isolate(remoteEvaluator);
 
-            taskExecutor.execute(script.getTaskToBeRun());
+        return script;
+    }
+
+    private Script admit(Script script, boolean deterministic, String tenant) {
+        // the run is remembered before it's submitted, so an identical submission finds it even if it's finished already
+        if (deterministic)
+            resultMemo.remember(script);
+
+        // the script is recorded and findable before it's submitted, so a fast script can't finish before that
+        budgetWatchdog.watch(script);
+        outputSpiller.track(script);
+        scriptJournal.record(script, tenant);
+        scriptRepository.save(script);
+
+        try {
+            // the scripts in the overflow queue go first
+            if (!overflowDispatcher.isEmpty())
+                throw new TaskRejectedException("The overflow queue is not empty");
 
-            scriptRepository.save(script);
-            return script;
+            scriptScheduler.submit(tenant, script.getTaskToBeRun());
         } catch (TaskRejectedException e) {
-            throw new CapacityViolationException("There is no free space in the pool");
+            if (!overflowDispatcher.offer(script, tenant)) {
+                script.stop();
+                discard(script);
+                rejections.increment();
+                throw new CapacityViolationException("There is no free space in the pool", scriptScheduler.estimateWait());
+            }
         }
+
+        return script;
+    }
+
+    /**
+     * Removes the script from the storage, the journal and the memo, e.g. when it's rejected after it was recorded.
+     */
+    private void discard(Script script) {
+        scriptRepository.delete(script.getId());
+        outputSpiller.untrack(script);
+        scriptJournal.recordDeleted(script.getId());
+        resultMemo.forget(script);
     }
 
     /**
@@ -83,7 +293,7 @@ public class ScriptService {
      * @throws NoSuchScriptException if the script with a given id was not found.
      * @see ScriptRepository
      */
-    public void stopById(Integer id) {
+    public void stopById(Long id) {
         findById(id).stop();
     }
 
@@ -95,13 +305,79 @@ public class ScriptService {
      * @throws IllegalStateException if the script did have appropriate status.
      * @see Status
      */
-    public void delete(Integer id) {
+    public void delete(Long id) {
         Script script = scriptRepository.findById(id);
 
         if (!Status.isFinished(script.getStatus()))
             throw new IllegalScriptStateException("Couldn't delete the script with id:%d due to its inappropriate state".formatted(id));
 
-        scriptRepository.delete(id);
+        discard(script);
+    }
+
+    /**
+     * Restores the scripts recorded by {@link ScriptJournal} before the restart. The scripts that were
+     * in flight either get the INTERRUPTED status or are run again according to a given {@link RecoveryMode}.
+     * The new ids are generated after the recovered ones, so they aren't reissued if the clock went back.
+     *
+     * @param mode the way the scripts that were in flight are recovered.
+     */
+    public void recover(RecoveryMode mode) {
+        List<JournaledScript> recovered = scriptJournal.takeRecovered();
+        recovered.forEach(journaled -> idGenerator.advancePast(journaled.id()));
+
+        for (JournaledScript journaled : recovered) {
+            boolean inFlight = !Status.isFinished(journaled.status());
+
+            if (!inFlight || mode != RecoveryMode.REQUEUE || !requeue(journaled))
+                restore(journaled, inFlight);
+        }
+
+        if (!recovered.isEmpty())
+            log.info("{} scripts are recovered", recovered.size());
     }
 
+    private boolean requeue(JournaledScript journaled) {
+        try {
+            Script script = create(journaled.id(), journaled.body(), journaled.budget());
+            admit(script, false, journaled.tenant());
+
+            return true;
+        } catch (ScriptNotValidException | CapacityViolationException e) {
+            log.warn("Script with id {} couldn't be requeued: {}", journaled.id(), e.getMessage());
+            return false;
+        }
+    }
+
+    private void restore(JournaledScript journaled, boolean inFlight) {
+        Status status = journaled.status();
+        List<String> output = journaled.output();
+
+        if (inFlight) {
+            status = Status.INTERRUPTED;
+            output = new ArrayList<>(output);
+            output.add("Error: Script was interrupted by the restart");
+        }
+
+        Script script = Script.restore(journaled.id(), journaled.body(), journaled.budget(), status,
+                Duration.ofMillis(journaled.executionTime()), journaled.scheduledTime(), journaled.lastModified(), output);
+
+        outputSpiller.track(script);
+        scriptJournal.record(script, journaled.tenant());
+        scriptRepository.save(script);
+    }
+
+    /**
+     * The outcome of admitting one script of a batch, it holds either the admitted script or
+     * the error the script was rejected with. Reused means the remembered run of the same code is returned.
+     */
+    public record Admission(Script script, boolean reused, RuntimeException error) {
+
+        static Admission accepted(Script script) {
+            return new Admission(script, false, null);
+        }
+
+        static Admission rejected(RuntimeException error) {
+            return new Admission(null, false, error);
+        }
+    }
 }
@@ -0,0 +1,44 @@
+package com.alexsitiy.script.evaluation.service;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+
+/**
+ * This class resolves the tenant of the current request from the JWT
+ * the request was authenticated with.
+ */
+public class TenantResolver {
+
+    public static final String ANONYMOUS = "anonymous";
+
+    private final String tenantClaim;
+
+    /**
+     * @param tenantClaim the JWT claim that identifies a tenant.
+     */
+    public TenantResolver(String tenantClaim) {
+        this.tenantClaim = tenantClaim;
+    }
+
+    /**
+     * Gets the tenant of the current request. Falls back to the name of the
+     * authenticated principal if the JWT doesn't have the configured claim.
+     *
+     * @return the tenant or "anonymous" if the request is not authenticated.
+     */
+    public String currentTenant() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+
+        if (authentication == null)
+            return ANONYMOUS;
+
+        if (authentication instanceof JwtAuthenticationToken jwtAuthentication) {
+            String tenant = jwtAuthentication.getToken().getClaimAsString(tenantClaim);
+            if (tenant != null)
+                return tenant;
+        }
+
+        return authentication.getName() != null ? authentication.getName() : ANONYMOUS;
+    }
+}
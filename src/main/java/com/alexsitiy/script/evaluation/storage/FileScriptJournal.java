@@ -0,0 +1,511 @@
+package com.alexsitiy.script.evaluation.storage;
+
+import com.alexsitiy.script.evaluation.engine.ExecutionBudget;
+import com.alexsitiy.script.evaluation.model.Script;
+import com.alexsitiy.script.evaluation.model.Status;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32C;
+
+/**
+ * This class is an implementation of {@link ScriptJournal} that appends the records to a journal file
+ * on local disk. Every record is framed by its length and CRC32C checksum, so a torn tail left by a crash
+ * is detected and cut off on startup.
+ * <br/>
+ * Records are encoded in the calling thread and appended by a background thread which takes all the pending
+ * records at once, writes them with one gathering write via {@link FileChannel} and forces them to disk once
+ * per batch (group commit). So the scripts never wait for the disk, but the last batch can be lost by a crash.
+ * <br/>
+ * Once the journal exceeds the compaction threshold, the state of all the followed scripts is written to
+ * a snapshot that atomically replaces the previous one, and the journal is truncated. On startup the snapshot
+ * and then the journal are replayed. Replaying is idempotent, a status transition is applied only if it's not
+ * older than the current one, so the records that were appended while the snapshot was written do no harm.
+ * <br/>
+ * It registers the following metrics: script.journal.records, script.journal.batch.size, script.journal.commit
+ * (time spent on writing and forcing every batch), script.journal.compactions and script.journal.size.
+ */
+public class FileScriptJournal implements ScriptJournal {
+
+    private static final Logger log = LoggerFactory.getLogger(FileScriptJournal.class);
+
+    private static final String JOURNAL_FILE = "journal.log";
+    private static final String SNAPSHOT_FILE = "snapshot.bin";
+    private static final int HEADER_SIZE = Integer.BYTES * 2;
+    private static final int MAX_BATCH_SIZE = 1024;
+    private static final long POLL_INTERVAL_MILLIS = 100;
+
+    private static final byte SUBMITTED = 1;
+    private static final byte STATUS = 2;
+    private static final byte OUTPUT = 3;
+    private static final byte DELETED = 4;
+
+    private final Path journalFile;
+    private final Path snapshotFile;
+    private final long compactionThreshold;
+    private final FileChannel channel;
+
+    private final Map<Long, Follower> followed = new ConcurrentHashMap<>();
+    private final BlockingQueue<ByteBuffer> pending = new LinkedBlockingQueue<>();
+    private final Thread writer;
+    private volatile boolean closed;
+    private volatile List<JournaledScript> recovered;
+
+    private final Counter records;
+    private final DistributionSummary batchSize;
+    private final Timer commitTimer;
+    private final Counter compactions;
+    private final AtomicLong size = new AtomicLong();
+
+    /**
+     * Replays the snapshot and the journal kept in a given directory and opens the journal for appending.
+     *
+     * @param directory           the directory of the journal and the snapshot.
+     * @param compactionThreshold the size of the journal that triggers compaction.
+     * @param meterRegistry       the registry the metrics are registered in.
+     */
+    public FileScriptJournal(Path directory, long compactionThreshold, MeterRegistry meterRegistry) {
+        this.journalFile = directory.resolve(JOURNAL_FILE);
+        this.snapshotFile = directory.resolve(SNAPSHOT_FILE);
+        this.compactionThreshold = compactionThreshold;
+
+        this.records = meterRegistry.counter("script.journal.records");
+        this.batchSize = meterRegistry.summary("script.journal.batch.size");
+        this.commitTimer = meterRegistry.timer("script.journal.commit");
+        this.compactions = meterRegistry.counter("script.journal.compactions");
+        meterRegistry.gauge("script.journal.size", size);
+
+        try {
+            Files.createDirectories(directory);
+
+            long start = System.nanoTime();
+            Map<Long, Replayed> replayed = new LinkedHashMap<>();
+            replay(snapshotFile, replayed);
+            long valid = replay(journalFile, replayed);
+            this.recovered = replayed.values().stream().map(Replayed::toJournaledScript).toList();
+
+            this.channel = FileChannel.open(journalFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            this.channel.truncate(valid);
+            this.channel.position(valid);
+            size.set(valid);
+
+            log.info("Journal {} is replayed in {} ms, {} scripts are recovered", directory,
+                    Duration.ofNanos(System.nanoTime() - start).toMillis(), recovered.size());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Journal in %s couldn't be opened".formatted(directory), e);
+        }
+
+        this.writer = new Thread(this::writeLoop, "script-journal");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    @Override
+    public void record(Script script, String tenant) {
+        Follower follower = new Follower(script, tenant);
+        Follower previous = followed.put(script.getId(), follower);
+        if (previous != null)
+            previous.stop();
+
+        append(submitted(script, tenant));
+        script.subscribeToStatus(follower);
+        follower.run();
+    }
+
+    @Override
+    public void recordDeleted(Long id) {
+        Follower follower = followed.remove(id);
+        if (follower != null)
+            follower.stop();
+
+        append(encode(DELETED, id, out -> {
+        }));
+    }
+
+    @Override
+    public List<JournaledScript> takeRecovered() {
+        List<JournaledScript> scripts = this.recovered;
+        this.recovered = List.of();
+
+        return scripts;
+    }
+
+    /**
+     * Appends the pending records and closes the journal.
+     */
+    @Override
+    public void close() {
+        closed = true;
+
+        try {
+            writer.join();
+            channel.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            log.warn("Journal couldn't be closed", e);
+        }
+    }
+
+    private void append(ByteBuffer record) {
+        if (closed) {
+            log.warn("Journal is closed, the record is dropped");
+            return;
+        }
+
+        pending.add(record);
+    }
+
+    /**
+     * Takes the pending records in batches and commits them. The thread is never interrupted,
+     * because the interruption would close {@link FileChannel}.
+     */
+    private void writeLoop() {
+        List<ByteBuffer> batch = new ArrayList<>(MAX_BATCH_SIZE);
+
+        while (!closed || !pending.isEmpty()) {
+            try {
+                ByteBuffer first = pending.poll(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null)
+                    continue;
+
+                batch.add(first);
+                pending.drainTo(batch, MAX_BATCH_SIZE - 1);
+                commit(batch);
+
+                if (size.get() > compactionThreshold)
+                    compact();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (IOException | RuntimeException e) {
+                log.error("Journal batch of {} records couldn't be committed", batch.size(), e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void commit(List<ByteBuffer> batch) throws IOException {
+        long start = System.nanoTime();
+
+        ByteBuffer[] buffers = batch.toArray(ByteBuffer[]::new);
+        long remaining = 0;
+        for (ByteBuffer buffer : buffers) {
+            remaining += buffer.remaining();
+        }
+        while (remaining > 0) {
+            remaining -= channel.write(buffers);
+        }
+        channel.force(false);
+
+        commitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        records.increment(batch.size());
+        batchSize.record(batch.size());
+        size.set(channel.position());
+    }
+
+    /**
+     * Writes the state of the followed scripts to a new snapshot that replaces the previous one
+     * and truncates the journal.
+     */
+    private void compact() throws IOException {
+        long start = System.nanoTime();
+        Path temp = snapshotFile.resolveSibling(SNAPSHOT_FILE + ".tmp");
+
+        try (FileChannel snapshot = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (Follower follower : followed.values()) {
+                for (ByteBuffer record : follower.state()) {
+                    while (record.hasRemaining()) {
+                        snapshot.write(record);
+                    }
+                }
+            }
+            snapshot.force(true);
+        }
+
+        Files.move(temp, snapshotFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        channel.truncate(0);
+        channel.force(true);
+        size.set(0);
+
+        compactions.increment();
+        log.debug("Journal is compacted in {} ms, {} scripts are in the snapshot",
+                Duration.ofNanos(System.nanoTime() - start).toMillis(), followed.size());
+    }
+
+    /**
+     * Applies the records of a given file to the replayed scripts.
+     *
+     * @return the length of the valid records, the rest of the file is a torn tail.
+     */
+    private static long replay(Path file, Map<Long, Replayed> replayed) throws IOException {
+        if (!Files.exists(file))
+            return 0;
+
+        long fileSize = Files.size(file);
+        long valid = 0;
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            while (valid + HEADER_SIZE <= fileSize) {
+                int length = in.readInt();
+                int checksum = in.readInt();
+                if (length < 0 || valid + HEADER_SIZE + length > fileSize)
+                    break;
+
+                byte[] payload = new byte[length];
+                in.readFully(payload);
+                if (checksum(payload) != checksum)
+                    break;
+
+                apply(payload, replayed);
+                valid += HEADER_SIZE + length;
+            }
+        } catch (EOFException e) {
+            log.debug("Journal file {} ended unexpectedly", file);
+        }
+
+        if (valid < fileSize)
+            log.warn("Journal file {} has a torn tail of {} bytes, it's dropped", file, fileSize - valid);
+
+        return valid;
+    }
+
+    private static void apply(byte[] payload, Map<Long, Replayed> replayed) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        byte type = in.readByte();
+        Long id = in.readLong();
+
+        switch (type) {
+            case SUBMITTED -> {
+                String body = readString(in);
+                String tenant = readString(in);
+                ExecutionBudget budget = new ExecutionBudget(in.readLong(), Duration.ofMillis(in.readLong()));
+                replayed.putIfAbsent(id, new Replayed(id, body, tenant, budget));
+            }
+            case STATUS -> {
+                Status status = Status.valueOf(readString(in));
+                long executionTime = in.readLong();
+                long scheduledTime = in.readLong();
+                Instant lastModified = Instant.ofEpochMilli(in.readLong());
+
+                Replayed script = replayed.get(id);
+                if (script != null && script.accepts(status, lastModified)) {
+                    script.status = status;
+                    script.executionTime = executionTime;
+                    script.scheduledTime = scheduledTime < 0 ? null : Instant.ofEpochMilli(scheduledTime);
+                    script.lastModified = lastModified;
+                }
+            }
+            case OUTPUT -> {
+                int count = in.readInt();
+                List<String> lines = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    lines.add(readString(in));
+                }
+
+                Replayed script = replayed.get(id);
+                if (script != null)
+                    script.output = lines;
+            }
+            case DELETED -> replayed.remove(id);
+            default -> throw new IOException("Unknown journal record type: " + type);
+        }
+    }
+
+    private static ByteBuffer submitted(Script script, String tenant) {
+        ExecutionBudget budget = script.getBudget();
+
+        return encode(SUBMITTED, script.getId(), out -> {
+            writeString(out, script.getBody());
+            writeString(out, tenant);
+            out.writeLong(budget.statementLimit());
+            out.writeLong(budget.timeLimit().toMillis());
+        });
+    }
+
+    private static ByteBuffer status(Script script, Status status) {
+        Instant scheduledTime = script.getScheduledTime();
+
+        return encode(STATUS, script.getId(), out -> {
+            writeString(out, status.name());
+            out.writeLong(script.getExecutionTime());
+            out.writeLong(scheduledTime == null ? -1 : scheduledTime.toEpochMilli());
+            out.writeLong(script.getLastModified().toEpochMilli());
+        });
+    }
+
+    private static ByteBuffer output(Script script) {
+        List<String> lines = script.getResultSince(0).lines();
+
+        return encode(OUTPUT, script.getId(), out -> {
+            out.writeInt(lines.size());
+            for (String line : lines) {
+                writeString(out, line);
+            }
+        });
+    }
+
+    private static ByteBuffer encode(byte type, Long id, RecordWriter writer) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(type);
+            out.writeLong(id);
+            writer.writeTo(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        byte[] payload = bytes.toByteArray();
+        return ByteBuffer.allocate(HEADER_SIZE + payload.length)
+                .putInt(payload.length)
+                .putInt(checksum(payload))
+                .put(payload)
+                .flip();
+    }
+
+    private static int checksum(byte[] payload) {
+        CRC32C crc = new CRC32C();
+        crc.update(payload);
+
+        return (int) crc.getValue();
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @FunctionalInterface
+    private interface RecordWriter {
+        void writeTo(DataOutputStream out) throws IOException;
+    }
+
+    /**
+     * Records every status transition of the script and its output once it's finished.
+     */
+    private class Follower implements Runnable {
+        private final Script script;
+        private final String tenant;
+        private Status recorded;
+        private boolean stopped;
+
+        private Follower(Script script, String tenant) {
+            this.script = script;
+            this.tenant = tenant;
+        }
+
+        @Override
+        public synchronized void run() {
+            Status current = script.getStatus();
+            if (stopped || current == recorded)
+                return;
+
+            recorded = current;
+            append(status(script, current));
+
+            if (Status.isFinished(current)) {
+                append(output(script));
+                script.unsubscribeFromStatus(this);
+            }
+        }
+
+        private synchronized void stop() {
+            stopped = true;
+            script.unsubscribeFromStatus(this);
+        }
+
+        /**
+         * @return the records the current state of the script can be replayed from.
+         */
+        private List<ByteBuffer> state() {
+            Status current = script.getStatus();
+            List<ByteBuffer> state = new ArrayList<>(3);
+
+            state.add(submitted(script, tenant));
+            state.add(status(script, current));
+            if (Status.isFinished(current))
+                state.add(output(script));
+
+            return state;
+        }
+    }
+
+    /**
+     * The state of the script that is being replayed.
+     */
+    private static class Replayed {
+        private final Long id;
+        private final String body;
+        private final String tenant;
+        private final ExecutionBudget budget;
+        private Status status = Status.IN_QUEUE;
+        private long executionTime;
+        private Instant scheduledTime;
+        private Instant lastModified = Instant.EPOCH;
+        private List<String> output = List.of();
+
+        private Replayed(Long id, String body, String tenant, ExecutionBudget budget) {
+            this.id = id;
+            this.body = body;
+            this.tenant = tenant;
+            this.budget = budget;
+        }
+
+        /**
+         * A finished script is never moved back, the transitions recorded within the same millisecond
+         * can't be ordered otherwise.
+         */
+        private boolean accepts(Status status, Instant lastModified) {
+            if (Status.isFinished(this.status) && !Status.isFinished(status))
+                return false;
+
+            return !lastModified.isBefore(this.lastModified);
+        }
+
+        private JournaledScript toJournaledScript() {
+            return new JournaledScript(id, body, tenant, budget, status, executionTime,
+                    scheduledTime, lastModified, output);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.alexsitiy.script.evaluation.storage;
+
+import com.alexsitiy.script.evaluation.engine.ExecutionBudget;
+import com.alexsitiy.script.evaluation.model.Status;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * The last state of the script recorded by {@link ScriptJournal} before the restart.
+ *
+ * @param id            the id of the script.
+ * @param body          the JavaScript code of the script.
+ * @param tenant        the tenant that submitted the script.
+ * @param budget        {@link ExecutionBudget} the script was given.
+ * @param status        the last recorded status.
+ * @param executionTime the time in millis the script was executing.
+ * @param scheduledTime the time the script was started, can be null.
+ * @param lastModified  the time of the last recorded status transition.
+ * @param output        the retained lines of the output, it's recorded once the script is finished.
+ */
+public record JournaledScript(Long id,
+                              String body,
+                              String tenant,
+                              ExecutionBudget budget,
+                              Status status,
+                              long executionTime,
+                              Instant scheduledTime,
+                              Instant lastModified,
+                              List<String> output) {
+}
@@ -0,0 +1,29 @@
+package com.alexsitiy.script.evaluation.storage;
+
+import com.alexsitiy.script.evaluation.model.Script;
+
+import java.util.List;
+
+/**
+ * This class is an implementation of {@link ScriptJournal} that keeps nothing,
+ * it's used when the journal is disabled.
+ */
+public class NoOpScriptJournal implements ScriptJournal {
+
+    @Override
+    public void record(Script script, String tenant) {
+    }
+
+    @Override
+    public void recordDeleted(Long id) {
+    }
+
+    @Override
+    public List<JournaledScript> takeRecovered() {
+        return List.of();
+    }
+
+    @Override
+    public void close() {
+    }
+}
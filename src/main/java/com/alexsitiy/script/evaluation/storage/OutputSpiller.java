@@ -0,0 +1,259 @@
+package com.alexsitiy.script.evaluation.storage;
+
+import com.alexsitiy.script.evaluation.model.Script;
+import com.alexsitiy.script.evaluation.model.SpillTarget;
+import com.alexsitiy.script.evaluation.model.SpilledOutput;
+import com.alexsitiy.script.evaluation.model.Status;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.ref.Cleaner;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * This class keeps the output of scripts within the global memory budget. It accounts the memory of
+ * the output of every tracked script once it's finished, and once the budget is exceeded, the output of the finished scripts
+ * is moved to append-only segment files in the oldest-finished-first order. The spilled output is read back
+ * via {@link SpilledOutput}.
+ * <br/>
+ * Spilling is done in a background thread. A segment file is deleted once it's full and
+ * none of its outputs is reachable anymore.
+ * <br/>
+ * It registers the following metrics: script.output.memory (bytes kept in memory), script.output.spilled
+ * (the number of spilled outputs), script.output.spilled.bytes and script.output.segments.
+ */
+public class OutputSpiller implements SpillTarget, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(OutputSpiller.class);
+    private static final Cleaner cleaner = Cleaner.create();
+
+    private final Path directory;
+    private final long memoryBudget;
+    private final long segmentSize;
+
+    private final Set<Script> finished = new LinkedHashSet<>();
+    private final AtomicLong memory = new AtomicLong();
+    private final AtomicBoolean spillScheduled = new AtomicBoolean();
+    private final ExecutorService spillThread;
+    private final AtomicInteger segmentNumber = new AtomicInteger();
+    private final AtomicInteger segments = new AtomicInteger();
+    private final Counter spilled;
+    private final Counter spilledBytes;
+
+    private Segment current;
+
+    /**
+     * @param directory     the directory of the segment files, the old files in it are deleted.
+     * @param memoryBudget  the max number of bytes of the output kept in memory.
+     * @param segmentSize   the max size of a segment file.
+     * @param meterRegistry the registry the metrics are registered in.
+     */
+    public OutputSpiller(Path directory, long memoryBudget, long segmentSize, MeterRegistry meterRegistry) {
+        this.directory = directory;
+        this.memoryBudget = memoryBudget;
+        this.segmentSize = segmentSize;
+        this.spilled = meterRegistry.counter("script.output.spilled");
+        this.spilledBytes = meterRegistry.counter("script.output.spilled.bytes");
+        meterRegistry.gauge("script.output.memory", memory);
+        meterRegistry.gauge("script.output.segments", segments);
+
+        this.spillThread = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "output-spiller");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        try {
+            Files.createDirectories(directory);
+            try (Stream<Path> files = Files.list(directory)) {
+                for (Path file : files.filter(OutputSpiller::isSegment).toList()) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Directory %s couldn't be prepared for output segments".formatted(directory), e);
+        }
+    }
+
+    /**
+     * Starts following a given script. Once the script is finished, the memory of its output
+     * is accounted and the output can be spilled.
+     */
+    public void track(Script script) {
+        AtomicBoolean done = new AtomicBoolean();
+        Runnable onChange = new Runnable() {
+            @Override
+            public void run() {
+                if (Status.isFinished(script.getStatus()) && done.compareAndSet(false, true)) {
+                    script.unsubscribeFromStatus(this);
+                    onFinished(script);
+                }
+            }
+        };
+
+        script.subscribeToStatus(onChange);
+        onChange.run();
+    }
+
+    /**
+     * Stops accounting the memory of the output of a given script that was removed.
+     */
+    public void untrack(Script script) {
+        boolean removed;
+        synchronized (finished) {
+            removed = finished.remove(script);
+        }
+
+        if (removed)
+            memory.addAndGet(-script.getResultFootprint());
+    }
+
+    @Override
+    public SpilledOutput write(byte[] text, int[] lineEnds, long firstSequence) throws IOException {
+        if (current == null || current.size + text.length > segmentSize)
+            roll();
+
+        long offset = current.append(text);
+        SpilledOutput output = new SpilledOutput(current.file, offset, text.length, lineEnds, firstSequence);
+
+        Segment segment = current;
+        segment.live.incrementAndGet();
+        cleaner.register(output, segment::release);
+
+        return output;
+    }
+
+    @Override
+    public void close() {
+        spillThread.shutdownNow();
+
+        if (current != null)
+            current.seal();
+    }
+
+    private void onFinished(Script script) {
+        synchronized (finished) {
+            if (finished.add(script))
+                memory.addAndGet(script.getResultFootprint());
+        }
+
+        if (memory.get() > memoryBudget && spillScheduled.compareAndSet(false, true))
+            spillThread.execute(this::spill);
+    }
+
+    private void spill() {
+        spillScheduled.set(false);
+
+        while (memory.get() > memoryBudget) {
+            Script script;
+            synchronized (finished) {
+                Iterator<Script> iterator = finished.iterator();
+                if (!iterator.hasNext())
+                    return;
+
+                script = iterator.next();
+                iterator.remove();
+            }
+
+            try {
+                long released = script.spillResult(this);
+                memory.addAndGet(-released);
+                spilled.increment();
+                log.debug("Output of script {} was spilled, {} bytes released", script.getId(), released);
+            } catch (IOException | UncheckedIOException e) {
+                log.warn("Output of script {} couldn't be spilled", script.getId(), e);
+                return;
+            }
+        }
+    }
+
+    private void roll() throws IOException {
+        if (current != null)
+            current.seal();
+
+        Path file = directory.resolve("segment-%d.out".formatted(segmentNumber.incrementAndGet()));
+        current = new Segment(file);
+        segments.incrementAndGet();
+    }
+
+    private static boolean isSegment(Path file) {
+        String name = file.getFileName().toString();
+        return name.startsWith("segment-") && name.endsWith(".out");
+    }
+
+    /**
+     * An append-only file that is deleted once it's sealed and none of its outputs is reachable.
+     */
+    private class Segment {
+        private final Path file;
+        private final FileChannel channel;
+        private final AtomicInteger live = new AtomicInteger();
+        private volatile boolean sealed;
+        private long size;
+
+        private Segment(Path file) throws IOException {
+            this.file = file;
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        }
+
+        private long append(byte[] text) throws IOException {
+            long offset = size;
+            ByteBuffer buffer = ByteBuffer.wrap(text);
+
+            while (buffer.hasRemaining()) {
+                channel.write(buffer, offset + buffer.position());
+            }
+            size += text.length;
+            spilledBytes.increment(text.length);
+
+            return offset;
+        }
+
+        private void seal() {
+            sealed = true;
+
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.debug("Segment {} couldn't be closed: {}", file, e.getMessage());
+            }
+
+            deleteIfUnused();
+        }
+
+        private void release() {
+            live.decrementAndGet();
+            deleteIfUnused();
+        }
+
+        private synchronized void deleteIfUnused() {
+            if (!sealed || live.get() != 0 || !Files.exists(file))
+                return;
+
+            try {
+                Files.delete(file);
+                segments.decrementAndGet();
+                log.debug("Segment {} was deleted", file);
+            } catch (IOException e) {
+                log.warn("Segment {} couldn't be deleted", file, e);
+            }
+        }
+    }
+}
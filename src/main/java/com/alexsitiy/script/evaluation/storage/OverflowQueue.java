@@ -0,0 +1,299 @@
+package com.alexsitiy.script.evaluation.storage;
+
+import com.alexsitiy.script.evaluation.engine.ExecutionBudget;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class is a FIFO of the scripts that wait for a free place in the executor's queue. The entries are
+ * appended to a file and read back from its head, so only the head entry is kept in memory, the bodies
+ * of the other ones can be read by their positions. The file is truncated every time the queue is drained
+ * and when the app is started, the journal is what survives the restart.
+ * <br/>
+ * A head record that can't be read is skipped. If even its length can't be trusted, the records after it
+ * can't be found, so the whole queue is dropped.
+ * <br/>
+ * It registers the following metrics: script.overflow.depth and script.overflow.age (the time the head entry waits).
+ */
+public class OverflowQueue implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(OverflowQueue.class);
+
+    private final int maxDepth;
+    private final FileChannel channel;
+
+    private long head;
+    private long tail;
+    private int depth;
+    private Entry first;
+
+    /**
+     * @param file          the file of the queue, the old entries in it are dropped.
+     * @param maxDepth      the max number of entries, 0 means the queue never accepts anything.
+     * @param meterRegistry the registry the metrics are registered in.
+     */
+    public OverflowQueue(Path file, int maxDepth, MeterRegistry meterRegistry) {
+        this.maxDepth = maxDepth;
+
+        try {
+            Files.createDirectories(file.getParent());
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        } catch (IOException e) {
+            throw new UncheckedIOException("File %s couldn't be prepared for the overflow queue".formatted(file), e);
+        }
+
+        meterRegistry.gauge("script.overflow.depth", this, OverflowQueue::getDepth);
+        TimeGauge.builder("script.overflow.age", this, TimeUnit.MILLISECONDS, queue -> queue.getAge().toMillis())
+                .register(meterRegistry);
+    }
+
+    /**
+     * Appends a given entry to the tail of the queue.
+     *
+     * @param entry the entry to be appended.
+     * @return the position of the record, -1 if the queue is full or the entry couldn't be written.
+     */
+    public synchronized long offer(Entry entry) {
+        if (depth >= maxDepth)
+            return -1;
+
+        long position = tail;
+        try {
+            ByteBuffer record = encode(entry);
+            while (record.hasRemaining()) {
+                tail += channel.write(record, tail);
+            }
+        } catch (IOException e) {
+            log.warn("Script {} couldn't be appended to the overflow queue", entry.id(), e);
+            tail = position;
+            return -1;
+        }
+
+        depth++;
+        return position;
+    }
+
+    /**
+     * @return the head entry without removing it or null if the queue is empty.
+     */
+    public synchronized Entry peek() {
+        while (first == null && depth > 0) {
+            try {
+                first = read(head);
+            } catch (IOException | RuntimeException e) {
+                skipHead(e);
+            }
+        }
+
+        return first;
+    }
+
+    /**
+     * Reads the body of the entry that is still in the queue.
+     *
+     * @param position the position of the record returned by {@link #offer(Entry)}.
+     * @param id       the id of the script the record belongs to.
+     * @return the body or null if the record has been removed or can't be read.
+     */
+    public synchronized String readBody(long position, Long id) {
+        if (position < head || position >= tail)
+            return null;
+
+        try {
+            Entry entry = read(position);
+            return entry.id().equals(id) ? entry.body() : null;
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Removes the head entry.
+     *
+     * @return the removed entry or null if the queue is empty.
+     */
+    public synchronized Entry poll() {
+        Entry entry = peek();
+        if (entry == null)
+            return null;
+
+        head += entry.recordLength();
+        depth--;
+        first = null;
+
+        if (depth == 0)
+            clear();
+
+        return entry;
+    }
+
+    public synchronized boolean isEmpty() {
+        return depth == 0;
+    }
+
+    public synchronized int getDepth() {
+        return depth;
+    }
+
+    /**
+     * @return the time the head entry waits, zero if the queue is empty.
+     */
+    public Duration getAge() {
+        Entry entry = peek();
+
+        return entry == null ? Duration.ZERO : Duration.between(entry.queuedAt(), Instant.now());
+    }
+
+    @Override
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            log.debug("Overflow queue couldn't be closed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Skips the head record that couldn't be read or drops the whole queue if the length of the record is broken.
+     */
+    private void skipHead(Exception cause) {
+        int length;
+        try {
+            length = readLength(head);
+        } catch (IOException e) {
+            length = -1;
+        }
+
+        if (length < 0) {
+            log.error("Overflow queue is corrupted, {} waiting scripts are dropped", depth, cause);
+            clear();
+            return;
+        }
+
+        log.error("Overflow queue record at {} couldn't be read, it's skipped", head, cause);
+        head += Integer.BYTES + length;
+        depth--;
+        if (depth == 0)
+            clear();
+    }
+
+    private void clear() {
+        head = 0;
+        tail = 0;
+        depth = 0;
+        first = null;
+
+        try {
+            channel.truncate(0);
+        } catch (IOException e) {
+            log.debug("Overflow queue couldn't be truncated: {}", e.getMessage());
+        }
+    }
+
+    private Entry read(long position) throws IOException {
+        ByteBuffer record = ByteBuffer.allocate(readLength(position));
+        readFully(record, position + Integer.BYTES);
+        record.flip();
+
+        Long id = record.getLong();
+        Instant queuedAt = Instant.ofEpochMilli(record.getLong());
+        String tenant = readString(record);
+        ExecutionBudget budget = new ExecutionBudget(record.getLong(), Duration.ofMillis(record.getLong()));
+        String body = readString(record);
+
+        return new Entry(id, tenant, budget, queuedAt, body, Integer.BYTES + record.capacity());
+    }
+
+    /**
+     * Reads the length of the record at a given position and checks that the record fits the queue.
+     */
+    private int readLength(long position) throws IOException {
+        ByteBuffer length = ByteBuffer.allocate(Integer.BYTES);
+        readFully(length, position);
+
+        int value = length.flip().getInt();
+        if (value < 0 || position + Integer.BYTES + value > tail)
+            throw new IOException("Overflow queue record at %d has a wrong length %d".formatted(position, value));
+
+        return value;
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0)
+                throw new IOException("Unexpected end of the overflow queue");
+        }
+    }
+
+    private static ByteBuffer encode(Entry entry) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeLong(entry.id());
+            out.writeLong(entry.queuedAt().toEpochMilli());
+            writeString(out, entry.tenant());
+            out.writeLong(entry.budget().statementLimit());
+            out.writeLong(entry.budget().timeLimit().toMillis());
+            writeString(out, entry.body());
+        }
+
+        byte[] payload = bytes.toByteArray();
+        return ByteBuffer.allocate(Integer.BYTES + payload.length)
+                .putInt(payload.length)
+                .put(payload)
+                .flip();
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0 || length > buffer.remaining())
+            throw new BufferUnderflowException();
+
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * The script that waits in the queue.
+     *
+     * @param id           the id of the script.
+     * @param tenant       the tenant that submitted the script.
+     * @param budget       {@link ExecutionBudget} the script was given.
+     * @param queuedAt     the time the script was appended.
+     * @param body         the JavaScript code of the script.
+     * @param recordLength the length of the record in the file, it's unknown until the entry is read.
+     */
+    public record Entry(Long id, String tenant, ExecutionBudget budget, Instant queuedAt, String body,
+                        int recordLength) {
+
+        public Entry(Long id, String tenant, ExecutionBudget budget, Instant queuedAt, String body) {
+            this(id, tenant, budget, queuedAt, body, 0);
+        }
+    }
+}
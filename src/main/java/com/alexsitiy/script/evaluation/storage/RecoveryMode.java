@@ -0,0 +1,15 @@
+package com.alexsitiy.script.evaluation.storage;
+
+/**
+ * The Enum with possible ways of recovering the scripts that were in flight before the restart.
+ */
+public enum RecoveryMode {
+    /**
+     * The scripts get the INTERRUPTED status.
+     */
+    INTERRUPT,
+    /**
+     * The scripts are run again with the same ids, the ones that can't be run get the INTERRUPTED status.
+     */
+    REQUEUE
+}
@@ -0,0 +1,38 @@
+package com.alexsitiy.script.evaluation.storage;
+
+import com.alexsitiy.script.evaluation.model.Script;
+
+import java.util.List;
+
+/**
+ * This interface records the scripts, so they survive the restart of the app.
+ * Its implementation decides whether and how the records are kept.
+ */
+public interface ScriptJournal extends AutoCloseable {
+
+    /**
+     * Records the submission of a given script and follows it, so its status transitions
+     * and the final output are recorded too.
+     *
+     * @param script the script that is saved.
+     * @param tenant the tenant that submitted the script.
+     */
+    void record(Script script, String tenant);
+
+    /**
+     * Records the deletion of the script and stops following it.
+     *
+     * @param id the id of the deleted script.
+     */
+    void recordDeleted(Long id);
+
+    /**
+     * Gets the scripts that were recorded before the restart. They can be taken only once.
+     *
+     * @return List of {@link JournaledScript} in the order they were submitted.
+     */
+    List<JournaledScript> takeRecovered();
+
+    @Override
+    void close();
+}
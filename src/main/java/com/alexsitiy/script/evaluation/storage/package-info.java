@@ -0,0 +1,4 @@
+/**
+ * Includes classes which keep the data of scripts on local disk.
+ */
+package com.alexsitiy.script.evaluation.storage;
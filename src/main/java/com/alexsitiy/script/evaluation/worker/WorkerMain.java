@@ -0,0 +1,237 @@
+package com.alexsitiy.script.evaluation.worker;
+
+import com.alexsitiy.script.evaluation.engine.ExecutionBudget;
+import com.alexsitiy.script.evaluation.engine.ScriptContextFactory;
+import com.alexsitiy.script.evaluation.engine.SharedEngineContextFactory;
+import com.alexsitiy.script.evaluation.model.RemoteEvaluator;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.PolyglotException;
+import org.graalvm.polyglot.Source;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.ClassUtils;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * This class is the entry point of a worker JVM. The worker connects to the socket the app listens on,
+ * evaluates the scripts the app sends one by one in its own engine and streams their output back.
+ * It doesn't start Spring, so it takes only what the engine needs.
+ * <br/>
+ * The statement limit is enforced by the worker, the time limit by the app that cancels the evaluation.
+ * Every DONE frame carries the heap usage after the last GC, so the app can tell when the worker has to be restarted.
+ * The worker exits once the socket is closed.
+ */
+public final class WorkerMain {
+
+    private static final Logger log = LoggerFactory.getLogger(WorkerMain.class);
+    private static final String BOOT_LAUNCHER = "org.springframework.boot.loader.PropertiesLauncher";
+
+    private final DataInputStream in;
+    private final DataOutputStream out;
+    private final ScriptContextFactory contextFactory;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "script-worker");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile Running running;
+    private volatile long cancelledId = -1;
+
+    private WorkerMain(SocketChannel channel, ScriptContextFactory contextFactory) {
+        this.in = WorkerProtocol.inputOf(channel);
+        this.out = WorkerProtocol.outputOf(channel);
+        this.contextFactory = contextFactory;
+    }
+
+    /**
+     * @param args the path of the socket the app listens on.
+     */
+    public static void main(String[] args) throws IOException {
+        try (SocketChannel channel = SocketChannel.open(UnixDomainSocketAddress.of(args[0]));
+             SharedEngineContextFactory contextFactory = new SharedEngineContextFactory(event -> {
+             })) {
+            new WorkerMain(channel, contextFactory).serve();
+        }
+
+        System.exit(0);
+    }
+
+    /**
+     * Builds the command that starts a worker with the classpath of the current JVM, the path of the socket
+     * has to be appended. If the app is run from the executable jar, the worker is started via
+     * PropertiesLauncher of Spring Boot, so the nested jars are loaded.
+     *
+     * @param maxHeapSize the max heap size of the worker in bytes.
+     * @param jvmOptions  other options of the worker JVM.
+     * @return the command without the path of the socket.
+     */
+    public static List<String> command(long maxHeapSize, List<String> jvmOptions) {
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.add("-Xmx" + maxHeapSize);
+        command.addAll(jvmOptions);
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+
+        if (ClassUtils.isPresent(BOOT_LAUNCHER, ClassLoader.getSystemClassLoader())) {
+            command.add("-Dloader.main=" + WorkerMain.class.getName());
+            command.add(BOOT_LAUNCHER);
+        } else {
+            command.add(WorkerMain.class.getName());
+        }
+
+        return command;
+    }
+
+    private void serve() throws IOException {
+        while (true) {
+            byte type;
+            try {
+                type = in.readByte();
+            } catch (EOFException e) {
+                return;
+            }
+
+            long id = in.readLong();
+            switch (type) {
+                case WorkerProtocol.RUN -> {
+                    long statementLimit = in.readLong();
+                    String body = WorkerProtocol.readString(in);
+                    executor.execute(() -> evaluate(id, statementLimit, body));
+                }
+                case WorkerProtocol.CANCEL -> cancel(id);
+                default -> throw new IOException("Unknown frame type: " + type);
+            }
+        }
+    }
+
+    private void cancel(long id) {
+        // either the evaluation sees the cancelled id or the running context is seen here
+        this.cancelledId = id;
+
+        Running running = this.running;
+        if (running != null && running.id() == id)
+            closeContext(running.context(), true);
+    }
+
+    private void evaluate(long id, long statementLimit, String body) {
+        Context context = contextFactory.createContext(new FrameOutputStream(id),
+                new ExecutionBudget(statementLimit, Duration.ZERO));
+        this.running = new Running(id, context);
+
+        RemoteEvaluator.Kind kind;
+        String error = null;
+        long start = System.currentTimeMillis();
+
+        try {
+            if (this.cancelledId == id)
+                throw new IllegalStateException("Script was cancelled before it was started");
+
+            context.eval(Source.create("js", body));
+            kind = RemoteEvaluator.Kind.COMPLETED;
+        } catch (PolyglotException e) {
+            if (e.isResourceExhausted())
+                kind = RemoteEvaluator.Kind.STATEMENT_LIMIT;
+            else if (e.isInterrupted() || e.isCancelled())
+                kind = RemoteEvaluator.Kind.CANCELLED;
+            else
+                kind = RemoteEvaluator.Kind.FAILED;
+            error = ExceptionUtils.getStackTrace(e);
+        } catch (IllegalStateException e) {
+            // the context was closed by CANCEL before the evaluation was started
+            kind = RemoteEvaluator.Kind.CANCELLED;
+            error = ExceptionUtils.getStackTrace(e);
+        } finally {
+            this.running = null;
+            closeContext(context, false);
+        }
+
+        long executionTime = System.currentTimeMillis() - start;
+        try {
+            synchronized (out) {
+                out.writeByte(WorkerProtocol.DONE);
+                out.writeLong(id);
+                out.writeByte(kind.ordinal());
+                out.writeLong(executionTime);
+                WorkerProtocol.writeString(out, error);
+                out.writeLong(heapUsage());
+                out.flush();
+            }
+        } catch (IOException e) {
+            log.warn("The outcome of script {} couldn't be sent: {}", id, e.getMessage());
+        }
+    }
+
+    private static void closeContext(Context context, boolean cancelIfExecuting) {
+        try {
+            context.close(cancelIfExecuting);
+        } catch (IllegalStateException | PolyglotException e) {
+            log.debug("Context couldn't be closed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Sums the usage of the heap pools after the last GC, so the garbage that is not collected yet is not counted.
+     */
+    private static long heapUsage() {
+        long usage = 0;
+
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            MemoryUsage collectionUsage = pool.getCollectionUsage();
+
+            if (pool.getType() == MemoryType.HEAP && collectionUsage != null)
+                usage += collectionUsage.getUsed();
+        }
+
+        return usage;
+    }
+
+    private record Running(long id, Context context) {
+    }
+
+    /**
+     * Sends every write as an OUTPUT frame.
+     */
+    private class FrameOutputStream extends OutputStream {
+        private final long id;
+
+        private FrameOutputStream(long id) {
+            this.id = id;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            synchronized (out) {
+                out.writeByte(WorkerProtocol.OUTPUT);
+                out.writeLong(id);
+                out.writeInt(len);
+                out.write(b, off, len);
+                out.flush();
+            }
+        }
+    }
+}
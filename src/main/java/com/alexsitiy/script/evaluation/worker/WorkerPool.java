@@ -0,0 +1,172 @@
+package com.alexsitiy.script.evaluation.worker;
+
+import com.alexsitiy.script.evaluation.engine.ExecutionBudget;
+import com.alexsitiy.script.evaluation.model.RemoteEvaluator;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class is an implementation of {@link RemoteEvaluator} that evaluates scripts in a fixed number of worker JVMs,
+ * so a script that fills its heap or crashes its JVM doesn't affect the app and other workers.
+ * A script waits for an idle worker, so the number of workers is also the max number of scripts executing at a time.
+ * <br/>
+ * A worker is restarted once it has run the given number of scripts or its heap usage after GC exceeds the given
+ * threshold, so the garbage the engine leaves behind never piles up. The workers are started
+ * in the background, the start is retried until it succeeds.
+ * <br/>
+ * It registers script.worker.restarts metric with "reason" tag and script.worker.idle metric.
+ */
+public class WorkerPool implements RemoteEvaluator, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(WorkerPool.class);
+    private static final Duration RETRY_DELAY = Duration.ofSeconds(1);
+
+    private final List<String> command;
+    private final Path socketDirectory;
+    private final int maxScripts;
+    private final long maxHeapUsage;
+    private final Duration startTimeout;
+    private final Duration cancelTimeout;
+    private final MeterRegistry meterRegistry;
+
+    private final BlockingQueue<WorkerProcess> idle = new LinkedBlockingQueue<>();
+    private final Queue<WorkerProcess> all = new ConcurrentLinkedQueue<>();
+    private final ScheduledExecutorService starter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "script-worker-starter");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile boolean closed;
+
+    /**
+     * @param size            the number of workers.
+     * @param command         the command the workers are started with, see {@link WorkerMain#command(long, List)}.
+     * @param socketDirectory the directory the sockets of the workers are created in.
+     * @param maxScripts      the number of scripts after which a worker is restarted.
+     * @param maxHeapUsage    the heap usage after GC in bytes above which a worker is restarted.
+     * @param startTimeout    the max time a worker may take to start.
+     * @param cancelTimeout   the max time a worker may take to stop a cancelled script before it's killed.
+     * @param meterRegistry   the registry the metrics are registered in.
+     */
+    public WorkerPool(int size,
+                      List<String> command,
+                      Path socketDirectory,
+                      int maxScripts,
+                      long maxHeapUsage,
+                      Duration startTimeout,
+                      Duration cancelTimeout,
+                      MeterRegistry meterRegistry) {
+        this.command = List.copyOf(command);
+        this.socketDirectory = socketDirectory;
+        this.maxScripts = maxScripts;
+        this.maxHeapUsage = maxHeapUsage;
+        this.startTimeout = startTimeout;
+        this.cancelTimeout = cancelTimeout;
+        this.meterRegistry = meterRegistry;
+
+        meterRegistry.gauge("script.worker.idle", idle, BlockingQueue::size);
+
+        for (int i = 0; i < size; i++) {
+            scheduleStart(i, Duration.ZERO);
+        }
+    }
+
+    @Override
+    public Outcome evaluate(Long id, String body, ExecutionBudget budget, OutputStream out) {
+        WorkerProcess worker;
+        try {
+            worker = idle.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new Outcome(Kind.CANCELLED, 0, "Script was cancelled while waiting for a worker");
+        }
+
+        Outcome outcome;
+        try {
+            outcome = worker.run(id, body, budget, out, cancelTimeout);
+        } finally {
+            release(worker);
+        }
+
+        return outcome;
+    }
+
+    /**
+     * Returns a given worker to the pool or restarts it if it's dead or has to be recycled.
+     * The worker is closed and restarted in the background, since closing waits for its exit
+     * and the script that has just finished must not wait for it.
+     */
+    private void release(WorkerProcess worker) {
+        String reason;
+        if (!worker.isAlive())
+            reason = "exit";
+        else if (worker.getScriptsRun() >= maxScripts)
+            reason = "scripts";
+        else if (worker.getHeapUsage() > maxHeapUsage)
+            reason = "heap";
+        else {
+            idle.offer(worker);
+            return;
+        }
+
+        log.debug("Worker {} is restarted, reason: {}", worker.getIndex(), reason);
+        meterRegistry.counter("script.worker.restarts", "reason", reason).increment();
+
+        all.remove(worker);
+        try {
+            starter.execute(() -> {
+                worker.close();
+                scheduleStart(worker.getIndex(), Duration.ZERO);
+            });
+        } catch (RejectedExecutionException e) {
+            // the pool is closed, so the worker is not restarted
+            worker.close();
+        }
+    }
+
+    private void scheduleStart(int index, Duration delay) {
+        if (closed)
+            return;
+
+        starter.schedule(() -> {
+            try {
+                WorkerProcess worker = WorkerProcess.start(index, command,
+                        socketDirectory.resolve("worker-%d.sock".formatted(index)), startTimeout);
+
+                all.add(worker);
+                if (closed)
+                    worker.close();
+                else
+                    idle.offer(worker);
+            } catch (IOException | RuntimeException e) {
+                log.warn("Worker {} couldn't be started, it's retried in {}", index, RETRY_DELAY, e);
+                scheduleStart(index, RETRY_DELAY);
+            }
+        }, delay.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops all the workers, the scripts they're running are finished as failed.
+     */
+    @Override
+    public void close() {
+        this.closed = true;
+        starter.shutdownNow();
+        all.forEach(WorkerProcess::close);
+    }
+}
@@ -0,0 +1,267 @@
+package com.alexsitiy.script.evaluation.worker;
+
+import com.alexsitiy.script.evaluation.engine.ExecutionBudget;
+import com.alexsitiy.script.evaluation.model.RemoteEvaluator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * This class is a single worker JVM and the connection to it. One script is evaluated by the worker at a time,
+ * its frames are read by a separate thread, so the output reaches the script as soon as it's written.
+ * <br/>
+ * A worker that doesn't stop a cancelled script in time or whose connection is lost is killed
+ * and marked as dead, so it's never given another script.
+ */
+final class WorkerProcess implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(WorkerProcess.class);
+    private static final Duration ACCEPT_INTERVAL = Duration.ofMillis(50);
+
+    private final int index;
+    private final Process process;
+    private final SocketChannel channel;
+    private final DataInputStream in;
+    private final DataOutputStream out;
+
+    private volatile Run current;
+    private volatile boolean dead;
+    private volatile long heapUsage;
+    private int scriptsRun;
+
+    private WorkerProcess(int index, Process process, SocketChannel channel) {
+        this.index = index;
+        this.process = process;
+        this.channel = channel;
+        this.in = WorkerProtocol.inputOf(channel);
+        this.out = WorkerProtocol.outputOf(channel);
+
+        Thread reader = new Thread(this::read, "script-worker-" + index);
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    /**
+     * Starts the worker JVM and waits until it connects to a new socket.
+     *
+     * @param index        the index of the worker in the pool.
+     * @param command      the command the JVM is started with, the path of the socket is appended to it.
+     * @param socket       the path of the socket, it's replaced if it exists.
+     * @param startTimeout the max time the worker may take to connect.
+     * @return the connected worker.
+     * @throws IOException if the worker couldn't be started or hasn't connected in time.
+     */
+    static WorkerProcess start(int index, List<String> command, Path socket, Duration startTimeout) throws IOException {
+        Files.createDirectories(socket.getParent());
+        Files.deleteIfExists(socket);
+
+        try (ServerSocketChannel server = ServerSocketChannel.open(StandardProtocolFamily.UNIX)) {
+            server.bind(UnixDomainSocketAddress.of(socket));
+            server.configureBlocking(false);
+
+            List<String> arguments = new ArrayList<>(command);
+            arguments.add(socket.toString());
+            Process process = new ProcessBuilder(arguments)
+                    .inheritIO()
+                    .start();
+
+            long deadline = System.nanoTime() + startTimeout.toNanos();
+            try {
+                while (System.nanoTime() < deadline && process.isAlive()) {
+                    SocketChannel channel = server.accept();
+
+                    if (channel != null) {
+                        channel.configureBlocking(true);
+                        log.debug("Worker {} is started with pid {}", index, process.pid());
+                        return new WorkerProcess(index, process, channel);
+                    }
+
+                    Thread.sleep(ACCEPT_INTERVAL.toMillis());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            process.destroyForcibly();
+            throw new IOException("Worker %d hasn't connected within %s".formatted(index, startTimeout));
+        } finally {
+            Files.deleteIfExists(socket);
+        }
+    }
+
+    /**
+     * Sends the code to the worker and waits for the outcome. If the calling thread is interrupted,
+     * the evaluation is cancelled, the worker is killed if it doesn't stop the script within a given timeout.
+     *
+     * @param id            the id of the script.
+     * @param body          the code of the script.
+     * @param budget        {@link ExecutionBudget} whose statement limit is passed to the worker.
+     * @param sink          the stream the output of the script is written to.
+     * @param cancelTimeout the max time the worker may take to stop the cancelled script.
+     * @return {@link RemoteEvaluator.Outcome} of the evaluation.
+     */
+    RemoteEvaluator.Outcome run(Long id, String body, ExecutionBudget budget, OutputStream sink, Duration cancelTimeout) {
+        Run run = new Run(id, sink);
+        this.current = run;
+        this.scriptsRun++;
+
+        try {
+            synchronized (out) {
+                out.writeByte(WorkerProtocol.RUN);
+                out.writeLong(id);
+                out.writeLong(budget.statementLimit());
+                WorkerProtocol.writeString(out, body);
+                out.flush();
+            }
+
+            return run.future.get();
+        } catch (InterruptedException e) {
+            RemoteEvaluator.Outcome outcome = cancel(run, cancelTimeout);
+            Thread.currentThread().interrupt();
+            return outcome;
+        } catch (IOException | ExecutionException e) {
+            markDead();
+            log.warn("Worker {} has failed while running script {}", index, id, e);
+            return new RemoteEvaluator.Outcome(RemoteEvaluator.Kind.FAILED, 0,
+                    "Worker process failed while running the script");
+        } finally {
+            this.current = null;
+        }
+    }
+
+    private RemoteEvaluator.Outcome cancel(Run run, Duration cancelTimeout) {
+        try {
+            synchronized (out) {
+                out.writeByte(WorkerProtocol.CANCEL);
+                out.writeLong(run.id);
+                out.flush();
+            }
+
+            return run.future.get(cancelTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (IOException | ExecutionException | TimeoutException | InterruptedException e) {
+            log.warn("Worker {} hasn't stopped script {} in time, it's killed", index, run.id);
+            markDead();
+            return new RemoteEvaluator.Outcome(RemoteEvaluator.Kind.CANCELLED, 0,
+                    "Worker process was killed while stopping the script");
+        }
+    }
+
+    private void read() {
+        try {
+            while (true) {
+                byte type = in.readByte();
+                long id = in.readLong();
+                Run run = this.current;
+
+                switch (type) {
+                    case WorkerProtocol.OUTPUT -> {
+                        byte[] bytes = new byte[in.readInt()];
+                        in.readFully(bytes);
+
+                        if (run != null && run.id == id)
+                            run.sink.write(bytes);
+                    }
+                    case WorkerProtocol.DONE -> {
+                        RemoteEvaluator.Kind kind = RemoteEvaluator.Kind.values()[in.readByte()];
+                        long executionTime = in.readLong();
+                        String error = WorkerProtocol.readString(in);
+                        this.heapUsage = in.readLong();
+
+                        if (run != null && run.id == id)
+                            run.future.complete(new RemoteEvaluator.Outcome(kind, executionTime, error));
+                    }
+                    default -> throw new IOException("Unknown frame type: " + type);
+                }
+            }
+        } catch (EOFException e) {
+            log.debug("Worker {} has closed the connection", index);
+        } catch (IOException e) {
+            if (!dead)
+                log.warn("Connection to worker {} is lost", index, e);
+        } finally {
+            markDead();
+
+            Run run = this.current;
+            if (run != null)
+                run.future.completeExceptionally(new IOException("Worker %d has exited".formatted(index)));
+        }
+    }
+
+    private void markDead() {
+        this.dead = true;
+        process.destroyForcibly();
+    }
+
+    int getIndex() {
+        return index;
+    }
+
+    boolean isAlive() {
+        return !dead && process.isAlive();
+    }
+
+    /**
+     * @return the number of scripts the worker has been given.
+     */
+    int getScriptsRun() {
+        return scriptsRun;
+    }
+
+    /**
+     * @return the heap usage of the worker after the last GC in bytes as of the last finished script.
+     */
+    long getHeapUsage() {
+        return heapUsage;
+    }
+
+    /**
+     * Closes the connection, so the worker exits, and kills it if it's still alive after a while.
+     */
+    @Override
+    public void close() {
+        this.dead = true;
+
+        try {
+            channel.close();
+        } catch (IOException e) {
+            log.debug("Connection to worker {} couldn't be closed: {}", index, e.getMessage());
+        }
+
+        try {
+            if (!process.waitFor(ACCEPT_INTERVAL.toMillis() * 20, TimeUnit.MILLISECONDS))
+                process.destroyForcibly();
+        } catch (InterruptedException e) {
+            process.destroyForcibly();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static final class Run {
+        private final long id;
+        private final OutputStream sink;
+        private final CompletableFuture<RemoteEvaluator.Outcome> future = new CompletableFuture<>();
+
+        private Run(long id, OutputStream sink) {
+            this.id = id;
+            this.sink = sink;
+        }
+    }
+}
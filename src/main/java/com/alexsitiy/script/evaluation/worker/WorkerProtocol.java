@@ -0,0 +1,97 @@
+package com.alexsitiy.script.evaluation.worker;
+
+import com.alexsitiy.script.evaluation.model.RemoteEvaluator;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * This class holds the frames the app and its workers exchange over a Unix domain socket.
+ * A frame starts with its type followed by the id of the script:
+ * <br/>
+ * 1. RUN [long statementLimit][string body] - the app asks the worker to evaluate the code.
+ * <br/>
+ * 2. CANCEL - the app asks the worker to cancel the evaluation.
+ * <br/>
+ * 3. OUTPUT [int length][bytes] - the worker passes the output of the script.
+ * <br/>
+ * 4. DONE [byte kind][long executionTime][string error][long heapUsage] - the worker has finished the evaluation,
+ * the kind is the ordinal of {@link RemoteEvaluator.Kind}.
+ * <br/>
+ * A string is written as its length in UTF-8 followed by the bytes, -1 means null.
+ * The streams read and write the channel directly, so one thread can read while another one writes.
+ */
+final class WorkerProtocol {
+
+    static final byte RUN = 1;
+    static final byte CANCEL = 2;
+    static final byte OUTPUT = 3;
+    static final byte DONE = 4;
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private WorkerProtocol() {
+    }
+
+    static DataInputStream inputOf(SocketChannel channel) {
+        return new DataInputStream(new BufferedInputStream(new InputStream() {
+            @Override
+            public int read() throws IOException {
+                byte[] b = new byte[1];
+                return read(b, 0, 1) < 0 ? -1 : b[0] & 0xff;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                return len == 0 ? 0 : channel.read(ByteBuffer.wrap(b, off, len));
+            }
+        }, BUFFER_SIZE));
+    }
+
+    static DataOutputStream outputOf(SocketChannel channel) {
+        return new DataOutputStream(new BufferedOutputStream(new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                write(new byte[]{(byte) b}, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                ByteBuffer buffer = ByteBuffer.wrap(b, off, len);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+        }, BUFFER_SIZE));
+    }
+
+    static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0)
+            return null;
+
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,5 @@
+/**
+ * Includes classes which evaluate scripts in separate worker JVMs,
+ * so the scripts don't share the heap with the REST API.
+ */
+package com.alexsitiy.script.evaluation.worker;
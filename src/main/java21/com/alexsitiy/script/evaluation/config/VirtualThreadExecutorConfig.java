@@ -0,0 +1,33 @@
+package com.alexsitiy.script.evaluation.config;
+
+import com.alexsitiy.script.evaluation.executor.SemaphoreTaskExecutor;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * This configuration class creates {@link SemaphoreTaskExecutor} that runs every
+ * script on its own virtual thread. It replaces the platform thread pool created by
+ * Spring Boot auto-configuration when script.executor.mode is VIRTUAL. It's sized
+ * the same way as the pool, from {@link SchedulerProperties}.
+ * <br/>
+ * It's compiled only with the java21 build profile.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "script.executor", name = "mode", havingValue = "virtual")
+public class VirtualThreadExecutorConfig {
+
+    @Bean
+    public SemaphoreTaskExecutor applicationTaskExecutor(SchedulerProperties properties, MeterRegistry meterRegistry) {
+        ThreadFactory threadFactory = Thread.ofVirtual().name("script-virtual-", 0).factory();
+
+        return new SemaphoreTaskExecutor(Executors.newThreadPerTaskExecutor(threadFactory),
+                properties.getConcurrency(),
+                SchedulerConfig.executorQueueCapacity(properties),
+                meterRegistry);
+    }
+}